@@ -0,0 +1,27 @@
+package org.example.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler and writes the results as JSON, so runs of different releases can be
+ * compared.
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar [include regex] [result file]}; the result file defaults to
+ * {@code jmh-result.json}. For the full JMH command line use {@code java -cp target/benchmarks.jar org.openjdk.jmh.Main}.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : "org\\.example\\.benchmarks\\..*")
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(args.length > 1 ? args[1] : "jmh-result.json");
+        new Runner(options.build()).run();
+    }
+}
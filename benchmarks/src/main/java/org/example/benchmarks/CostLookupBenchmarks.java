@@ -0,0 +1,87 @@
+package org.example.benchmarks;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
+import com.graphhopper.jsprit.core.util.VehicleRoutingTransportCostsMatrix;
+import org.example.DenseTransportCostsMatrix;
+import org.example.LazyHaversineTransportCosts;
+import org.example.multiple100locations;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of {@link VehicleRoutingTransportCosts#getTransportCost} as the solver calls it, over a fixed sequence of
+ * random location pairs of the {@code multiple100locations} generator.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CostLookupBenchmarks {
+
+    private static final int PAIRS = 4096;
+
+    @Param({"dense", "stringKeyed", "lazy"})
+    public String costs;
+
+    @Param({"101", "1001"})
+    public int noLocations;
+
+    private VehicleRoutingTransportCosts transportCosts;
+
+    private Location[] from;
+
+    private Location[] to;
+
+    @Setup
+    public void setUp() {
+        List<Location> locations = multiple100locations.createLocations(noLocations - 1, 42);
+        if ("dense".equals(costs)) {
+            transportCosts = DenseTransportCostsMatrix.Builder.newInstance(locations).build();
+        } else if ("lazy".equals(costs)) {
+            transportCosts = new LazyHaversineTransportCosts(locations, noLocations * noLocations / 4);
+        } else {
+            VehicleRoutingTransportCostsMatrix.Builder builder = VehicleRoutingTransportCostsMatrix.Builder.newInstance(true);
+            for (Location a : locations) {
+                for (Location b : locations) {
+                    builder.addTransportDistance(a.getId(), b.getId(), multiple100locations.haversine(
+                            a.getCoordinate().getY(), a.getCoordinate().getX(), b.getCoordinate().getY(), b.getCoordinate().getX()));
+                }
+            }
+            transportCosts = builder.build();
+        }
+        Random rand = new Random(7);
+        from = new Location[PAIRS];
+        to = new Location[PAIRS];
+        for (int k = 0; k < PAIRS; k++) {
+            from[k] = locations.get(rand.nextInt(noLocations));
+            to[k] = locations.get(rand.nextInt(noLocations));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public double transportCost() {
+        double sum = 0;
+        for (int k = 0; k < PAIRS; k++) {
+            sum += transportCosts.getTransportCost(from[k], to[k], 0, null, null);
+        }
+        return sum;
+    }
+}
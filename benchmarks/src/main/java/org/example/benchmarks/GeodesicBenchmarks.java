@@ -0,0 +1,112 @@
+package org.example.benchmarks;
+
+import org.example.GeodesicKernel;
+import org.example.multiple100locations;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Distance throughput of {@link multiple100locations#haversine(double, double, double, double)} against the
+ * {@link GeodesicKernel} modes, pair by pair and through the row batch API. Scores are distances per microsecond.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeodesicBenchmarks {
+
+    private static final int N = 1000;
+
+    private double[] latitudes;
+
+    private double[] longitudes;
+
+    private GeodesicKernel haversine;
+
+    private GeodesicKernel equirectangular;
+
+    private double[] row;
+
+    @Setup
+    public void setUp() {
+        Random rand = new Random(42);
+        latitudes = new double[N];
+        longitudes = new double[N];
+        for (int i = 0; i < N; i++) {
+            latitudes[i] = 40.7128 + (rand.nextDouble() - 0.5) * 0.1;
+            longitudes[i] = -74.0060 + (rand.nextDouble() - 0.5) * 0.1;
+        }
+        haversine = new GeodesicKernel(latitudes, longitudes, GeodesicKernel.Mode.HAVERSINE);
+        equirectangular = new GeodesicKernel(latitudes, longitudes, GeodesicKernel.Mode.EQUIRECTANGULAR);
+        row = new double[N];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N * N)
+    public double referenceHaversine() {
+        double sum = 0;
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                sum += multiple100locations.haversine(latitudes[i], longitudes[i], latitudes[j], longitudes[j]);
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N * N)
+    public double kernelHaversineDistance() {
+        return pairwise(haversine);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N * N)
+    public double kernelHaversineFillRow() {
+        return rowwise(haversine);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N * N)
+    public double kernelEquirectangularDistance() {
+        return pairwise(equirectangular);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N * N)
+    public double kernelEquirectangularFillRow() {
+        return rowwise(equirectangular);
+    }
+
+    private static double pairwise(GeodesicKernel kernel) {
+        double sum = 0;
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                sum += kernel.distance(i, j);
+            }
+        }
+        return sum;
+    }
+
+    private double rowwise(GeodesicKernel kernel) {
+        double sum = 0;
+        for (int i = 0; i < N; i++) {
+            kernel.fillRow(i, row, 0, 0, N);
+            sum += row[i];
+        }
+        return sum;
+    }
+}
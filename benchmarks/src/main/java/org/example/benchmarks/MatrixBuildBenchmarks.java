@@ -0,0 +1,87 @@
+package org.example.benchmarks;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.util.VehicleRoutingTransportCostsMatrix;
+import org.example.DenseTransportCostsMatrix;
+import org.example.multiple100locations;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to build the distance matrix of the {@code multiple100locations} generator for N locations.
+ * Run with the GC profiler (the default in {@link BenchmarkRunner}) to get the bytes allocated per build.
+ * <p>
+ * The string-keyed {@link VehicleRoutingTransportCostsMatrix} the example used before has its own state limited
+ * to 1000 locations; at 5000 it needs several gigabytes of boxed entries.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class MatrixBuildBenchmarks {
+
+    /**
+     * Locations for the index-based matrices.
+     */
+    @State(Scope.Benchmark)
+    public static class Locations {
+
+        @Param({"100", "1000", "5000"})
+        public int noLocations;
+
+        List<Location> locations;
+
+        @Setup
+        public void setUp() {
+            locations = multiple100locations.createLocations(noLocations - 1, 42);
+        }
+    }
+
+    /**
+     * Locations for the string-keyed matrix, which does not fit into the heap beyond 1000 locations.
+     */
+    @State(Scope.Benchmark)
+    public static class StringKeyedLocations {
+
+        @Param({"100", "1000"})
+        public int noLocations;
+
+        List<Location> locations;
+
+        @Setup
+        public void setUp() {
+            locations = multiple100locations.createLocations(noLocations - 1, 42);
+        }
+    }
+
+    @Benchmark
+    public DenseTransportCostsMatrix dense(Locations state) {
+        return DenseTransportCostsMatrix.Builder.newInstance(state.locations).build();
+    }
+
+    @Benchmark
+    public VehicleRoutingTransportCostsMatrix stringKeyed(StringKeyedLocations state) {
+        VehicleRoutingTransportCostsMatrix.Builder builder = VehicleRoutingTransportCostsMatrix.Builder.newInstance(true);
+        for (Location from : state.locations) {
+            for (Location to : state.locations) {
+                double distance = multiple100locations.haversine(from.getCoordinate().getY(), from.getCoordinate().getX(),
+                        to.getCoordinate().getY(), to.getCoordinate().getX());
+                builder.addTransportDistance(from.getId(), to.getId(), distance);
+            }
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,62 @@
+package org.example.benchmarks;
+
+import com.graphhopper.jsprit.core.algorithm.VehicleRoutingAlgorithm;
+import com.graphhopper.jsprit.core.algorithm.box.Jsprit;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.util.Solutions;
+import org.example.CustomPlotter;
+import org.example.DenseTransportCostsMatrix;
+import org.example.multiple100locations;
+import org.jfree.chart.JFreeChart;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time for {@link CustomPlotter} to build and paint the chart of a solved {@code multiple100locations} problem,
+ * headless and without a window.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RenderBenchmarks {
+
+    private VehicleRoutingProblemSolution solution;
+
+    @Setup
+    public void setUp() {
+        List<Location> locations = multiple100locations.createLocations(100, 42);
+        VehicleRoutingProblem problem = multiple100locations.createProblem(locations,
+                DenseTransportCostsMatrix.Builder.newInstance(locations).build());
+        VehicleRoutingAlgorithm algorithm = Jsprit.Builder.newInstance(problem).setRandom(new Random(42)).buildAlgorithm();
+        algorithm.setMaxIterations(200);
+        solution = Solutions.bestOf(algorithm.searchSolutions());
+    }
+
+    @Benchmark
+    public JFreeChart createChart() {
+        return CustomPlotter.createChart(solution);
+    }
+
+    @Benchmark
+    public BufferedImage renderPng() {
+        return CustomPlotter.createChart(solution).createBufferedImage(1024, 768);
+    }
+}
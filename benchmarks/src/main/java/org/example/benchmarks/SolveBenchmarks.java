@@ -0,0 +1,70 @@
+package org.example.benchmarks;
+
+import com.graphhopper.jsprit.core.algorithm.VehicleRoutingAlgorithm;
+import com.graphhopper.jsprit.core.algorithm.box.Jsprit;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import org.example.DenseTransportCostsMatrix;
+import org.example.JspritEx2experiment;
+import org.example.multiple100locations;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end {@code searchSolutions} time for the example problems, with a fixed seed and iteration count so
+ * every invocation does the same work.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SolveBenchmarks {
+
+    @Param({"500"})
+    public int maxIterations;
+
+    private VehicleRoutingProblem multiple100locationsProblem;
+
+    private VehicleRoutingProblem jspritEx2experimentProblem;
+
+    @Setup
+    public void setUp() {
+        List<Location> locations = multiple100locations.createLocations(100, 42);
+        multiple100locationsProblem = multiple100locations.createProblem(locations,
+                DenseTransportCostsMatrix.Builder.newInstance(locations).build());
+        jspritEx2experimentProblem = JspritEx2experiment.createProblem();
+    }
+
+    @Benchmark
+    public Collection<VehicleRoutingProblemSolution> multiple100locations() {
+        return solve(multiple100locationsProblem);
+    }
+
+    @Benchmark
+    public Collection<VehicleRoutingProblemSolution> jspritEx2experiment() {
+        return solve(jspritEx2experimentProblem);
+    }
+
+    private Collection<VehicleRoutingProblemSolution> solve(VehicleRoutingProblem problem) {
+        VehicleRoutingAlgorithm algorithm = Jsprit.Builder.newInstance(problem).setRandom(new Random(42)).buildAlgorithm();
+        algorithm.setMaxIterations(maxIterations);
+        return algorithm.searchSolutions();
+    }
+}
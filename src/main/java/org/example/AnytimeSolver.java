@@ -0,0 +1,218 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.algorithm.SearchStrategy;
+import com.graphhopper.jsprit.core.algorithm.VehicleRoutingAlgorithm;
+import com.graphhopper.jsprit.core.algorithm.box.Jsprit;
+import com.graphhopper.jsprit.core.algorithm.listener.StrategySelectedListener;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.util.Solutions;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Solves a {@link VehicleRoutingProblem} until a wall-clock deadline passes or the best solution has not improved
+ * for a number of iterations, whichever comes first, and reports every new best solution as soon as it is found.
+ * <p>
+ * Without a deadline or convergence window the search runs jsprit's default number of iterations. Listeners are
+ * called on the search thread with a copy of the solution, so they may hand it to other threads but should return
+ * quickly.
+ */
+public class AnytimeSolver {
+
+    /**
+     * Receives every solution that is better than all solutions found before it.
+     */
+    public interface BestSolutionListener {
+
+        void informBestSolution(VehicleRoutingProblemSolution solution, int iteration, long elapsedMillis);
+    }
+
+    /**
+     * Builder for {@link AnytimeSolver}.
+     */
+    public static class Builder {
+
+        public static Builder newInstance(VehicleRoutingProblem problem) {
+            return new Builder(problem);
+        }
+
+        private final VehicleRoutingProblem problem;
+
+        private final List<BestSolutionListener> listeners = new ArrayList<>();
+
+        private final List<VehicleRoutingProblemSolution> initialSolutions = new ArrayList<>();
+
+        private long timeBudgetMillis = -1;
+
+        private int convergenceWindow = -1;
+
+        private int maxIterations = -1;
+
+        private long seed = 42;
+
+        private Builder(VehicleRoutingProblem problem) {
+            this.problem = problem;
+        }
+
+        /**
+         * Sets the wall-clock budget, measured from the start of {@link AnytimeSolver#solve()}.
+         */
+        public Builder setTimeBudget(long timeBudget, TimeUnit unit) {
+            this.timeBudgetMillis = unit.toMillis(timeBudget);
+            return this;
+        }
+
+        /**
+         * Stops the search after this many consecutive iterations without a new best solution.
+         */
+        public Builder setConvergenceWindow(int iterations) {
+            if (iterations < 1) {
+                throw new IllegalArgumentException("convergence window must be positive");
+            }
+            this.convergenceWindow = iterations;
+            return this;
+        }
+
+        /**
+         * Sets a hard iteration limit. Defaults to none if a deadline or convergence window is set, and to
+         * jsprit's own limit otherwise.
+         */
+        public Builder setMaxIterations(int maxIterations) {
+            this.maxIterations = maxIterations;
+            return this;
+        }
+
+        public Builder setSeed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public Builder addListener(BestSolutionListener listener) {
+            listeners.add(listener);
+            return this;
+        }
+
+        /**
+         * Starts the search from {@code solution} instead of a constructed one. Jobs of the problem that are
+         * in no route are treated as unassigned.
+         */
+        public Builder addInitialSolution(VehicleRoutingProblemSolution solution) {
+            initialSolutions.add(solution);
+            return this;
+        }
+
+        public AnytimeSolver build() {
+            return new AnytimeSolver(this);
+        }
+    }
+
+    private final VehicleRoutingProblem problem;
+
+    private final List<BestSolutionListener> listeners;
+
+    private final List<VehicleRoutingProblemSolution> initialSolutions;
+
+    private final long timeBudgetMillis;
+
+    private final int convergenceWindow;
+
+    private final int maxIterations;
+
+    private final long seed;
+
+    private volatile VehicleRoutingProblemSolution bestSolution;
+
+    private volatile int iterations;
+
+    private AnytimeSolver(Builder builder) {
+        this.problem = builder.problem;
+        this.listeners = new ArrayList<>(builder.listeners);
+        this.initialSolutions = new ArrayList<>(builder.initialSolutions);
+        this.timeBudgetMillis = builder.timeBudgetMillis;
+        this.convergenceWindow = builder.convergenceWindow;
+        this.maxIterations = builder.maxIterations;
+        this.seed = builder.seed;
+    }
+
+    /**
+     * Runs the search on the calling thread.
+     *
+     * @return the best solution found.
+     */
+    public VehicleRoutingProblemSolution solve() {
+        VehicleRoutingAlgorithm algorithm = Jsprit.Builder.newInstance(problem).setRandom(new Random(seed))
+                .buildAlgorithm();
+        if (maxIterations > 0) {
+            algorithm.setMaxIterations(maxIterations);
+        } else if (timeBudgetMillis >= 0 || convergenceWindow > 0) {
+            algorithm.setMaxIterations(Integer.MAX_VALUE);
+        }
+        for (VehicleRoutingProblemSolution initialSolution : initialSolutions) {
+            algorithm.addInitialSolution(initialSolution);
+        }
+        bestSolution = null;
+        iterations = 0;
+        long start = System.nanoTime();
+        algorithm.addListener(new Progress(start));
+        algorithm.addTerminationCriterion(new ConvergenceTermination(new AtomicBoolean(), timeBudgetMillis >= 0,
+                start + timeBudgetMillis * 1_000_000L, convergenceWindow));
+        Collection<VehicleRoutingProblemSolution> solutions = algorithm.searchSolutions();
+        VehicleRoutingProblemSolution best = Solutions.bestOf(solutions);
+        return bestSolution != null && bestSolution.getCost() <= best.getCost() ? bestSolution : best;
+    }
+
+    /**
+     * @return the best solution found so far by the running or last {@link #solve()}, or null before the first
+     * iteration.
+     */
+    public VehicleRoutingProblemSolution getBestSolution() {
+        return bestSolution;
+    }
+
+    /**
+     * @return the number of iterations run so far by the running or last {@link #solve()}.
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Tracks the best solution and informs the listeners.
+     */
+    private final class Progress implements StrategySelectedListener {
+
+        private final long start;
+
+        private double bestCost = Double.MAX_VALUE;
+
+        private int iteration;
+
+        Progress(long start) {
+            this.start = start;
+        }
+
+        @Override
+        public void informSelectedStrategy(SearchStrategy.DiscoveredSolution discoveredSolution,
+                                           VehicleRoutingProblem problem,
+                                           Collection<VehicleRoutingProblemSolution> solutions) {
+            iteration++;
+            iterations = iteration;
+            VehicleRoutingProblemSolution solution = discoveredSolution.getSolution();
+            if (solution.getCost() < bestCost) {
+                bestCost = solution.getCost();
+                VehicleRoutingProblemSolution copy = VehicleRoutingProblemSolution.copyOf(solution);
+                bestSolution = copy;
+                long elapsedMillis = (System.nanoTime() - start) / 1_000_000L;
+                for (BestSolutionListener listener : listeners) {
+                    listener.informBestSolution(copy, iteration, elapsedMillis);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.algorithm.VehicleRoutingAlgorithm;
+import com.graphhopper.jsprit.core.algorithm.box.Jsprit;
+import com.graphhopper.jsprit.core.algorithm.state.UpdateActivityTimes;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.RouteActivityVisitor;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.util.Coordinate;
+import com.graphhopper.jsprit.core.util.Solutions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Cluster-first, route-second solving of large problems.
+ * <p>
+ * The jobs are grouped spatially with {@link KMeansClustering}, the fleet is split across the clusters in
+ * proportion to their demand, and every cluster is solved as its own {@link VehicleRoutingProblem} with its own
+ * small {@link DenseTransportCostsMatrix} on a worker thread. The cluster solutions are merged into one solution
+ * of the original problem, referring to its original jobs and vehicles. Only {@link Service} jobs (including
+ * pickups and deliveries) are supported; routes never cross cluster borders.
+ */
+public class ClusterDecomposition {
+
+    /**
+     * Builder for {@link ClusterDecomposition}.
+     */
+    public static class Builder {
+
+        public static Builder newInstance(VehicleRoutingProblem problem) {
+            return new Builder(problem);
+        }
+
+        private final VehicleRoutingProblem problem;
+
+        private int noClusters = 2;
+
+        private int noThreads = Runtime.getRuntime().availableProcessors();
+
+        private int maxIterations = -1;
+
+        private long seed = 42;
+
+        private Builder(VehicleRoutingProblem problem) {
+            this.problem = problem;
+        }
+
+        /**
+         * Sets the number of clusters. With a finite fleet it is capped by the number of vehicles.
+         */
+        public Builder setNoClusters(int noClusters) {
+            this.noClusters = noClusters;
+            return this;
+        }
+
+        public Builder setNoThreads(int noThreads) {
+            this.noThreads = noThreads;
+            return this;
+        }
+
+        /**
+         * Sets the iteration limit of every cluster's search. Defaults to jsprit's own limit.
+         */
+        public Builder setMaxIterations(int maxIterations) {
+            this.maxIterations = maxIterations;
+            return this;
+        }
+
+        public Builder setSeed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public ClusterDecomposition build() {
+            return new ClusterDecomposition(this);
+        }
+    }
+
+    private final VehicleRoutingProblem problem;
+
+    private final int noClusters;
+
+    private final int noThreads;
+
+    private final int maxIterations;
+
+    private final long seed;
+
+    private ClusterDecomposition(Builder builder) {
+        this.problem = builder.problem;
+        this.noClusters = builder.noClusters;
+        this.noThreads = builder.noThreads;
+        this.maxIterations = builder.maxIterations;
+        this.seed = builder.seed;
+    }
+
+    /**
+     * Clusters the jobs, solves all clusters concurrently and merges their solutions.
+     */
+    public VehicleRoutingProblemSolution solve() {
+        List<Service> services = new ArrayList<>();
+        for (Job job : problem.getJobs().values()) {
+            if (!(job instanceof Service)) {
+                throw new IllegalArgumentException("cluster decomposition only supports services, but job "
+                        + job.getId() + " is a " + job.getClass().getSimpleName());
+            }
+            services.add((Service) job);
+        }
+        List<Vehicle> vehicles = new ArrayList<>(problem.getVehicles());
+        boolean finiteFleet = problem.getFleetSize() == VehicleRoutingProblem.FleetSize.FINITE;
+        int k = finiteFleet ? Math.min(noClusters, vehicles.size()) : noClusters;
+
+        double[] x = new double[services.size()];
+        double[] y = new double[services.size()];
+        project(services, x, y);
+        KMeansClustering clustering = KMeansClustering.cluster(x, y, k, new Random(seed), 100);
+
+        List<List<Service>> clusters = new ArrayList<>();
+        List<double[]> centroids = new ArrayList<>();
+        for (int c = 0; c < clustering.getNoClusters(); c++) {
+            List<Service> members = new ArrayList<>();
+            for (int i = 0; i < services.size(); i++) {
+                if (clustering.getCluster(i) == c) {
+                    members.add(services.get(i));
+                }
+            }
+            if (!members.isEmpty()) {
+                clusters.add(members);
+                centroids.add(new double[]{clustering.getCentroidX(c), clustering.getCentroidY(c)});
+            }
+        }
+        List<List<Vehicle>> fleets = finiteFleet
+                ? splitFleet(vehicles, clusters, centroids)
+                : sameFleetEverywhere(vehicles, clusters.size());
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(noThreads, clusters.size())));
+        try {
+            List<Future<VehicleRoutingProblemSolution>> futures = new ArrayList<>();
+            for (int c = 0; c < clusters.size(); c++) {
+                final List<Service> members = clusters.get(c);
+                final List<Vehicle> fleet = fleets.get(c);
+                futures.add(executor.submit(new Callable<VehicleRoutingProblemSolution>() {
+                    @Override
+                    public VehicleRoutingProblemSolution call() {
+                        return solveCluster(members, fleet);
+                    }
+                }));
+            }
+            List<VehicleRoute> routes = new ArrayList<>();
+            List<Job> unassigned = new ArrayList<>();
+            double cost = 0;
+            RouteActivityVisitor times = new RouteActivityVisitor().addActivityVisitor(
+                    new UpdateActivityTimes(problem.getTransportCosts(), problem.getActivityCosts()));
+            for (Future<VehicleRoutingProblemSolution> future : futures) {
+                VehicleRoutingProblemSolution part = future.get();
+                cost += part.getCost();
+                for (VehicleRoute route : part.getRoutes()) {
+                    VehicleRoute original = toOriginal(route);
+                    // The rebuilt activities carry no times yet; derive them from the original problem's costs.
+                    times.visit(original);
+                    routes.add(original);
+                }
+                for (Job job : part.getUnassignedJobs()) {
+                    unassigned.add(problem.getJobs().get(job.getId()));
+                }
+            }
+            return new VehicleRoutingProblemSolution(routes, unassigned, cost);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while solving clusters", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("solving a cluster failed", e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    // Equirectangular projection around the mean latitude, so k-means sees comparable axes.
+    private static void project(List<Service> services, double[] x, double[] y) {
+        double meanLat = 0;
+        for (Service service : services) {
+            meanLat += service.getLocation().getCoordinate().getY();
+        }
+        double cosLat = Math.cos(Math.toRadians(services.isEmpty() ? 0 : meanLat / services.size()));
+        for (int i = 0; i < services.size(); i++) {
+            Coordinate coord = services.get(i).getLocation().getCoordinate();
+            x[i] = coord.getX() * cosLat;
+            y[i] = coord.getY();
+        }
+    }
+
+    private static List<List<Vehicle>> sameFleetEverywhere(List<Vehicle> vehicles, int noClusters) {
+        List<List<Vehicle>> fleets = new ArrayList<>();
+        for (int c = 0; c < noClusters; c++) {
+            fleets.add(vehicles);
+        }
+        return fleets;
+    }
+
+    /**
+     * Gives every cluster at least one vehicle and the rest in proportion to its demand (largest remainder),
+     * then hands each cluster the free vehicles whose start is closest to its centroid.
+     */
+    private static List<List<Vehicle>> splitFleet(List<Vehicle> vehicles, List<List<Service>> clusters,
+                                                  List<double[]> centroids) {
+        int noClusters = clusters.size();
+        double[] demand = new double[noClusters];
+        double totalDemand = 0;
+        for (int c = 0; c < noClusters; c++) {
+            for (Service service : clusters.get(c)) {
+                demand[c] += service.getSize().getNuOfDimensions() > 0 ? service.getSize().get(0) : 0;
+            }
+            // Clusters without any demand in dimension 0 still need to be visited.
+            demand[c] = Math.max(demand[c], 1e-9 * clusters.get(c).size());
+            totalDemand += demand[c];
+        }
+        int spare = vehicles.size() - noClusters;
+        int[] counts = new int[noClusters];
+        double[] remainders = new double[noClusters];
+        int handedOut = 0;
+        for (int c = 0; c < noClusters; c++) {
+            double share = spare * demand[c] / totalDemand;
+            counts[c] = 1 + (int) share;
+            remainders[c] = share - (int) share;
+            handedOut += (int) share;
+        }
+        for (; handedOut < spare; handedOut++) {
+            int best = 0;
+            for (int c = 1; c < noClusters; c++) {
+                if (remainders[c] > remainders[best]) {
+                    best = c;
+                }
+            }
+            counts[best]++;
+            remainders[best] = -1;
+        }
+
+        Integer[] byDemand = new Integer[noClusters];
+        for (int c = 0; c < noClusters; c++) {
+            byDemand[c] = c;
+        }
+        Arrays.sort(byDemand, (a, b) -> Double.compare(demand[b], demand[a]));
+        List<Vehicle> free = new ArrayList<>(vehicles);
+        List<List<Vehicle>> fleets = new ArrayList<>();
+        for (int c = 0; c < noClusters; c++) {
+            fleets.add(new ArrayList<Vehicle>());
+        }
+        double cosLat = Math.cos(Math.toRadians(meanCentroidLatitude(centroids)));
+        for (int c : byDemand) {
+            double[] centroid = centroids.get(c);
+            for (int v = 0; v < counts[c]; v++) {
+                Vehicle closest = null;
+                double closestDistance = Double.MAX_VALUE;
+                for (Vehicle vehicle : free) {
+                    Coordinate start = vehicle.getStartLocation().getCoordinate();
+                    double d = start == null ? 0 : Math.hypot(start.getX() * cosLat - centroid[0], start.getY() - centroid[1]);
+                    if (d < closestDistance) {
+                        closestDistance = d;
+                        closest = vehicle;
+                    }
+                }
+                free.remove(closest);
+                fleets.get(c).add(closest);
+            }
+        }
+        return fleets;
+    }
+
+    private static double meanCentroidLatitude(List<double[]> centroids) {
+        double sum = 0;
+        for (double[] centroid : centroids) {
+            sum += centroid[1];
+        }
+        return centroids.isEmpty() ? 0 : sum / centroids.size();
+    }
+
+    /**
+     * Builds and solves the sub-problem of one cluster on copies of its jobs and vehicles, with locations
+     * re-indexed {@code 0..m-1} and a dense matrix filled from the original problem's transport costs.
+     */
+    private VehicleRoutingProblemSolution solveCluster(List<Service> members, List<Vehicle> fleet) {
+        Map<String, Location> originals = new LinkedHashMap<>();
+        for (Vehicle vehicle : fleet) {
+            originals.put(vehicle.getStartLocation().getId(), vehicle.getStartLocation());
+            originals.put(vehicle.getEndLocation().getId(), vehicle.getEndLocation());
+        }
+        for (Service service : members) {
+            originals.put(service.getLocation().getId(), service.getLocation());
+        }
+        Map<String, Location> locals = new HashMap<>();
+        List<Location> ordered = new ArrayList<>(originals.values());
+        for (int i = 0; i < ordered.size(); i++) {
+            locals.put(ordered.get(i).getId(), ProblemCopies.withIndex(ordered.get(i), i));
+        }
+
+        VehicleRoutingTransportCosts costs = problem.getTransportCosts();
+        DenseTransportCostsMatrix.Builder matrix = DenseTransportCostsMatrix.Builder.newInstance(ordered.size(), false);
+        for (int i = 0; i < ordered.size(); i++) {
+            for (int j = 0; j < ordered.size(); j++) {
+                if (i == j) {
+                    continue;
+                }
+                matrix.addTransportDistance(i, j, costs.getDistance(ordered.get(i), ordered.get(j), 0, null));
+                double time = costs.getTransportTime(ordered.get(i), ordered.get(j), 0, null, null);
+                if (time != 0) {
+                    matrix.addTransportTime(i, j, time);
+                }
+            }
+        }
+
+        VehicleRoutingProblem.Builder sub = VehicleRoutingProblem.Builder.newInstance()
+                .setFleetSize(problem.getFleetSize())
+                .setRoutingCost(matrix.build());
+        for (Vehicle vehicle : fleet) {
+            sub.addVehicle(ProblemCopies.copyOf(vehicle, locals.get(vehicle.getStartLocation().getId()),
+                    locals.get(vehicle.getEndLocation().getId())));
+        }
+        for (Service service : members) {
+            sub.addJob(ProblemCopies.copyOf(service, locals.get(service.getLocation().getId())));
+        }
+        VehicleRoutingAlgorithm algorithm = Jsprit.Builder.newInstance(sub.build())
+                .setRandom(new Random(seed))
+                .buildAlgorithm();
+        if (maxIterations > 0) {
+            algorithm.setMaxIterations(maxIterations);
+        }
+        return Solutions.bestOf(algorithm.searchSolutions());
+    }
+
+    private VehicleRoute toOriginal(VehicleRoute route) {
+        Vehicle vehicle = null;
+        for (Vehicle candidate : problem.getVehicles()) {
+            if (candidate.getId().equals(route.getVehicle().getId())) {
+                vehicle = candidate;
+                break;
+            }
+        }
+        VehicleRoute.Builder builder = VehicleRoute.Builder.newInstance(vehicle, route.getDriver())
+                .setJobActivityFactory(problem.getJobActivityFactory())
+                .setDepartureTime(route.getDepartureTime());
+        for (TourActivity activity : route.getActivities()) {
+            Job job = ProblemCopies.jobOf(activity);
+            if (job != null) {
+                ProblemCopies.addJob(builder, problem.getJobs().get(job.getId()));
+            }
+        }
+        return builder.build();
+    }
+}
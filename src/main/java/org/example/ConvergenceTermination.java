@@ -0,0 +1,60 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.algorithm.SearchStrategy;
+import com.graphhopper.jsprit.core.algorithm.termination.PrematureAlgorithmTermination;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Stops a search when a deadline passes, when a stop flag is set, or when the search converges; converging sets the
+ * flag, so searches sharing one flag all stop when the first of them converges.
+ * <p>
+ * Convergence is judged by the cost of the discovered solutions, not by jsprit's
+ * {@code IterationWithoutImprovementTermination}, which counts iterations without an accepted solution and so
+ * rarely fires while the acceptor still takes worse solutions.
+ */
+final class ConvergenceTermination implements PrematureAlgorithmTermination {
+
+    private final AtomicBoolean stop;
+
+    private final boolean hasDeadline;
+
+    private final long deadline;
+
+    private final int convergenceWindow;
+
+    private double bestCost = Double.MAX_VALUE;
+
+    private int iterationsWithoutImprovement;
+
+    /**
+     * @param deadline          {@link System#nanoTime()} after which the search stops; ignored without a deadline.
+     * @param convergenceWindow iterations without improvement after which the search has converged; none if not
+     *                          positive.
+     */
+    ConvergenceTermination(AtomicBoolean stop, boolean hasDeadline, long deadline, int convergenceWindow) {
+        this.stop = stop;
+        this.hasDeadline = hasDeadline;
+        this.deadline = deadline;
+        this.convergenceWindow = convergenceWindow;
+    }
+
+    @Override
+    public boolean isPrematureBreak(SearchStrategy.DiscoveredSolution discoveredSolution) {
+        if (stop.get() || (hasDeadline && System.nanoTime() - deadline >= 0)) {
+            return true;
+        }
+        if (convergenceWindow <= 0) {
+            return false;
+        }
+        double cost = discoveredSolution.getSolution().getCost();
+        if (cost < bestCost) {
+            bestCost = cost;
+            iterationsWithoutImprovement = 0;
+        } else if (++iterationsWithoutImprovement >= convergenceWindow) {
+            stop.set(true);
+            return true;
+        }
+        return false;
+    }
+}
@@ -7,54 +7,169 @@ import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
 import com.graphhopper.jsprit.core.util.Coordinate;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
+import org.jfree.chart.ChartUtilities;
 import org.jfree.chart.JFreeChart;
 import org.jfree.chart.annotations.XYTextAnnotation;
 import org.jfree.chart.plot.PlotOrientation;
 import org.jfree.chart.plot.XYPlot;
+import org.jfree.chart.renderer.xy.SamplingXYLineRenderer;
 import org.jfree.data.xy.XYSeries;
 import org.jfree.data.xy.XYSeriesCollection;
+import org.jfree.graphics2d.svg.SVGGraphics2D;
+import org.jfree.graphics2d.svg.SVGUtils;
 
 import javax.swing.JFrame;
 import java.awt.Color;
 import java.awt.Font;
+import java.awt.GraphicsEnvironment;
+import java.awt.Rectangle;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 public class CustomPlotter {
 
+    /**
+     * Above this many stops, only every n-th stop is labelled so that at most this many stop labels are drawn,
+     * and routes are drawn with a renderer that merges points falling onto the same pixel column.
+     */
+    public static final int LABEL_THRESHOLD = 250;
+
+    // Styles are immutable and shared by all charts, including charts rendered concurrently.
+    private static final Color[] ROUTE_COLORS = {Color.RED, Color.BLUE, Color.GREEN, Color.MAGENTA, Color.ORANGE, Color.CYAN, Color.PINK, Color.YELLOW};
+
+    private static final Font LABEL_FONT = new Font("SansSerif", Font.BOLD, 12);
+
+    private static final Color LABEL_PAINT = Color.BLACK;
+
+    private static final int DEFAULT_WIDTH = 1024;
+
+    private static final int DEFAULT_HEIGHT = 768;
+
+    // Renders charts off the calling thread; daemon, so pending renders never keep the JVM alive on their own.
+    private static final ExecutorService RENDERER = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "custom-plotter");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
     /**
      * Displays the VRP solution in a window using an XY line chart.
      * Each vehicle's route is plotted as a separate colored series,
      * and each location is annotated with its ID.
+     * <p>
+     * Without a display (e.g. in a container) the chart is written to {@code customPlot.png} instead.
      *
      * @param solution the VRP solution to be visualized.
      */
     public static void displaySolution(VehicleRoutingProblemSolution solution) {
+        if (GraphicsEnvironment.isHeadless()) {
+            renderToFile(solution, Paths.get("customPlot.png"), DEFAULT_WIDTH, DEFAULT_HEIGHT);
+            return;
+        }
+        JFreeChart chart = createChart(solution);
+
+        // Create a chart panel and a frame to display the chart.
+        ChartPanel panel = new ChartPanel(chart);
+        JFrame frame = new JFrame("Custom Vehicle Routing Plot");
+        frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        frame.add(panel);
+        frame.pack();
+        frame.setLocationRelativeTo(null); // center on screen
+        frame.setVisible(true);
+    }
+
+    /**
+     * Renders the solution to a PNG or, if the file name ends in {@code .svg}, an SVG file without a display.
+     *
+     * @param solution the VRP solution to be visualized.
+     * @param file     the output file.
+     * @param width    the image width in pixels.
+     * @param height   the image height in pixels.
+     * @return the output file.
+     */
+    public static Path renderToFile(VehicleRoutingProblemSolution solution, Path file, int width, int height) {
+        JFreeChart chart = createChart(solution);
+        try {
+            if (file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".svg")) {
+                SVGGraphics2D g2 = new SVGGraphics2D(width, height);
+                chart.draw(g2, new Rectangle(width, height));
+                SVGUtils.writeToSVG(file.toFile(), g2.getSVGElement());
+            } else {
+                try (OutputStream out = Files.newOutputStream(file)) {
+                    ChartUtilities.writeChartAsPNG(out, chart, width, height);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot write plot to " + file, e);
+        }
+        return file;
+    }
+
+    /**
+     * Like {@link #renderToFile(VehicleRoutingProblemSolution, Path, int, int)}, but on a background thread.
+     * Renders are queued and run one at a time.
+     *
+     * @return the output file once it has been written.
+     */
+    public static Future<Path> renderInBackground(final VehicleRoutingProblemSolution solution, final Path file,
+                                                  final int width, final int height) {
+        return RENDERER.submit(new Callable<Path>() {
+            @Override
+            public Path call() {
+                return renderToFile(solution, file, width, height);
+            }
+        });
+    }
+
+    /**
+     * Creates the XY line chart of a VRP solution without displaying it.
+     *
+     * @param solution the VRP solution to be visualized.
+     * @return the chart with one series per route and labelled locations, thinned past {@link #LABEL_THRESHOLD}.
+     */
+    public static JFreeChart createChart(VehicleRoutingProblemSolution solution) {
         // Prepare a dataset where each series corresponds to one vehicle's route.
         XYSeriesCollection dataset = new XYSeriesCollection();
-        // Define an array of colors to differentiate routes.
-        Color[] colors = {Color.RED, Color.BLUE, Color.GREEN, Color.MAGENTA, Color.ORANGE, Color.CYAN, Color.PINK, Color.YELLOW};
 
         // Iterate over all routes in the solution.
         Collection<VehicleRoute> routes = solution.getRoutes();
         int routeIndex = 0;
+        int noStops = 0;
         for (VehicleRoute route : routes) {
             String seriesKey = route.getVehicle().getId() + "_" + routeIndex;
-            // Create a series for the route.
-            XYSeries series = new XYSeries(seriesKey);
+            // Create a series for the route; points stay in visiting order and events are only fired once.
+            XYSeries series = new XYSeries(seriesKey, false, true);
 
             // Add the start (depot) location.
             Location startLoc = route.getStart().getLocation();
-            series.add(startLoc.getCoordinate().getX(), startLoc.getCoordinate().getY());
+            series.add(startLoc.getCoordinate().getX(), startLoc.getCoordinate().getY(), false);
 
             // Add each activity location (service stops).
             for (TourActivity activity : route.getActivities()) {
                 Location loc = activity.getLocation();
-                series.add(loc.getCoordinate().getX(), loc.getCoordinate().getY());
+                series.add(loc.getCoordinate().getX(), loc.getCoordinate().getY(), false);
             }
+            noStops += route.getActivities().size();
 
             // Add the end location.
             Location endLoc = route.getEnd().getLocation();
-            series.add(endLoc.getCoordinate().getX(), endLoc.getCoordinate().getY());
+            series.add(endLoc.getCoordinate().getX(), endLoc.getCoordinate().getY(), false);
 
             // Add this series to the dataset.
             dataset.addSeries(series);
@@ -69,42 +184,46 @@ public class CustomPlotter {
                 dataset,                      // Dataset
                 PlotOrientation.VERTICAL,     // Plot orientation
                 true,                         // Include legend
-                true,                         // Tooltips
+                noStops <= LABEL_THRESHOLD,   // Tooltips
                 false                         // URLs
         );
 
         // Customize the plot by setting different colors for each series.
         XYPlot plot = chart.getXYPlot();
+        if (noStops > LABEL_THRESHOLD) {
+            plot.setRenderer(new SamplingXYLineRenderer());
+        }
         for (int i = 0; i < dataset.getSeriesCount(); i++) {
-            plot.getRenderer().setSeriesPaint(i, colors[i % colors.length]);
+            plot.getRenderer().setSeriesPaint(i, ROUTE_COLORS[i % ROUTE_COLORS.length]);
         }
 
-        // Add annotations (location IDs) for every point.
+        // Add annotations (location IDs): every depot once, and every stop or every n-th stop past the threshold.
+        int labelEvery = Math.max(1, (noStops + LABEL_THRESHOLD - 1) / LABEL_THRESHOLD);
+        Set<String> labelledDepots = new HashSet<>();
+        int stop = 0;
         for (VehicleRoute route : routes) {
             // Annotate the start location.
-            addAnnotation(plot, route.getStart().getLocation());
+            if (labelledDepots.add(route.getStart().getLocation().getId())) {
+                addAnnotation(plot, route.getStart().getLocation());
+            }
 
             // Annotate each service activity's location.
             for (TourActivity activity : route.getActivities()) {
-                addAnnotation(plot, activity.getLocation());
+                if (stop++ % labelEvery == 0) {
+                    addAnnotation(plot, activity.getLocation());
+                }
             }
 
             // Annotate the end location.
-            addAnnotation(plot, route.getEnd().getLocation());
+            if (labelledDepots.add(route.getEnd().getLocation().getId())) {
+                addAnnotation(plot, route.getEnd().getLocation());
+            }
         }
-
-        // Create a chart panel and a frame to display the chart.
-        ChartPanel panel = new ChartPanel(chart);
-        JFrame frame = new JFrame("Custom Vehicle Routing Plot");
-        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        frame.add(panel);
-        frame.pack();
-        frame.setLocationRelativeTo(null); // center on screen
-        frame.setVisible(true);
+        return chart;
     }
 
     /**
-     * Adds an annotation to the plot at the given location.
+     * Adds an annotation to the plot at the given location without triggering a redraw.
      *
      * @param plot the XYPlot where the annotation will be added.
      * @param loc  the location whose ID and coordinates will be annotated.
@@ -112,8 +231,8 @@ public class CustomPlotter {
     private static void addAnnotation(XYPlot plot, Location loc) {
         Coordinate coord = loc.getCoordinate();
         XYTextAnnotation annotation = new XYTextAnnotation(loc.getId(), coord.getX(), coord.getY());
-        annotation.setFont(new Font("SansSerif", Font.BOLD, 12));
-        annotation.setPaint(Color.BLACK);
-        plot.addAnnotation(annotation);
+        annotation.setFont(LABEL_FONT);
+        annotation.setPaint(LABEL_PAINT);
+        plot.addAnnotation(annotation, false);
     }
 }
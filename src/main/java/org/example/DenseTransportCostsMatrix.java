@@ -0,0 +1,135 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.problem.Location;
+
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Transport costs backed by a flat, row-major {@code double[]} and indexed by {@link Location#getIndex()}.
+ * <p>
+ * This replaces the String-keyed {@code VehicleRoutingTransportCostsMatrix} for large instances: every lookup in
+ * the solver's insertion loop is a single array read, and the memory footprint is {@code 8 * N * N} bytes for the
+ * distances (plus the same again only if travel times are set).
+ */
+public class DenseTransportCostsMatrix extends IndexedTransportCosts {
+
+    /**
+     * Builder for {@link DenseTransportCostsMatrix}.
+     */
+    public static class Builder {
+
+        /**
+         * Creates a builder for a matrix with {@code noLocations} entries per row.
+         *
+         * @param noLocations the number of locations, i.e. the highest location index plus one.
+         * @param isSymmetric if true, every added relation is also added in the opposite direction.
+         */
+        public static Builder newInstance(int noLocations, boolean isSymmetric) {
+            return new Builder(noLocations, isSymmetric);
+        }
+
+        /**
+         * Creates a symmetric builder whose distances are computed from the locations' coordinates with the
+         * haversine formula on the common {@link ForkJoinPool}. Every location must carry an index.
+         *
+         * @param locations the indexed locations to build the matrix for.
+         */
+        public static Builder newInstance(Collection<Location> locations) {
+            return newInstance(GeodesicKernel.of(locations, GeodesicKernel.Mode.HAVERSINE), ForkJoinPool.commonPool());
+        }
+
+        /**
+         * Creates a symmetric builder whose distances are computed by {@code kernel} on the given pool.
+         *
+         * @param kernel the points, one per location index, and the distance mode.
+         * @param pool   the pool the rows of the matrix are computed on.
+         */
+        public static Builder newInstance(GeodesicKernel kernel, ForkJoinPool pool) {
+            Builder builder = new Builder(kernel.size(), true);
+            ParallelDistanceMatrix.fill(kernel, builder.distances, pool);
+            return builder;
+        }
+
+        private final int noLocations;
+
+        private final boolean isSymmetric;
+
+        private final double[] distances;
+
+        private double[] times;
+
+        private Builder(int noLocations, boolean isSymmetric) {
+            if (noLocations < 0) {
+                throw new IllegalArgumentException("number of locations must not be negative");
+            }
+            long size = (long) noLocations * noLocations;
+            if (size > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException(noLocations + " locations do not fit into a dense matrix");
+            }
+            this.noLocations = noLocations;
+            this.isSymmetric = isSymmetric;
+            this.distances = new double[(int) size];
+        }
+
+        /**
+         * Sets the distance between two location indices.
+         */
+        public Builder addTransportDistance(int fromIndex, int toIndex, double distance) {
+            distances[fromIndex * noLocations + toIndex] = distance;
+            if (isSymmetric) {
+                distances[toIndex * noLocations + fromIndex] = distance;
+            }
+            return this;
+        }
+
+        /**
+         * Sets the travel time between two location indices. The time table is only allocated once the first
+         * time is added; without it all travel times are zero, like in {@code VehicleRoutingTransportCostsMatrix}.
+         */
+        public Builder addTransportTime(int fromIndex, int toIndex, double time) {
+            if (times == null) {
+                times = new double[distances.length];
+            }
+            times[fromIndex * noLocations + toIndex] = time;
+            if (isSymmetric) {
+                times[toIndex * noLocations + fromIndex] = time;
+            }
+            return this;
+        }
+
+        public DenseTransportCostsMatrix build() {
+            return new DenseTransportCostsMatrix(this);
+        }
+    }
+
+    private final int noLocations;
+
+    private final double[] distances;
+
+    private final double[] times;
+
+    private DenseTransportCostsMatrix(Builder builder) {
+        this.noLocations = builder.noLocations;
+        this.distances = builder.distances;
+        this.times = builder.times;
+    }
+
+    @Override
+    public int getNoLocations() {
+        return noLocations;
+    }
+
+    @Override
+    public double getDistance(int fromIndex, int toIndex) {
+        return distances[fromIndex * noLocations + toIndex];
+    }
+
+    @Override
+    public double getTransportTime(int fromIndex, int toIndex) {
+        if (times == null) {
+            return 0.0;
+        }
+        return times[fromIndex * noLocations + toIndex];
+    }
+}
@@ -0,0 +1,158 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.util.Coordinate;
+
+import java.util.Collection;
+
+/**
+ * Great-circle distance engine over a fixed set of points, in kilometers.
+ * <p>
+ * All per-point trigonometry is computed once into primitive arrays when the kernel is created, so a distance
+ * costs only the per-pair work and allocates nothing. Coordinates follow jsprit's convention everywhere:
+ * {@link Coordinate#getX()} is the longitude and {@link Coordinate#getY()} the latitude.
+ */
+public final class GeodesicKernel {
+
+    /**
+     * Accuracy modes of the kernel.
+     */
+    public enum Mode {
+
+        /**
+         * Exact haversine distance on a sphere of radius {@link multiple100locations#EARTH_RADIUS}, bit-identical
+         * to {@link multiple100locations#haversine(double, double, double, double)}.
+         */
+        HAVERSINE,
+
+        /**
+         * Equirectangular projection around the mean latitude of the two points: one square root per pair and no
+         * trigonometry. For legs up to 100 km between latitudes of at most 60 degrees the relative error against
+         * {@link #HAVERSINE} stays below 0.01 % (about 10 m per 100 km; below 0.001 % up to 20 km). The error
+         * grows with leg length, so do not use it for inter-city legs.
+         */
+        EQUIRECTANGULAR
+    }
+
+    private static final double TWO_PI = 2 * Math.PI;
+
+    private final Mode mode;
+
+    private final double[] latDeg;
+
+    private final double[] lonDeg;
+
+    private final double[] latRad;
+
+    private final double[] lonRad;
+
+    private final double[] cosLat;
+
+    /**
+     * Creates a kernel over indexed locations; point {@code i} is the location with index {@code i}.
+     */
+    public static GeodesicKernel of(Collection<Location> locations, Mode mode) {
+        int noLocations = 0;
+        for (Location location : locations) {
+            noLocations = Math.max(noLocations, IndexedTransportCosts.indexOf(location) + 1);
+        }
+        double[] latitudes = new double[noLocations];
+        double[] longitudes = new double[noLocations];
+        for (Location location : locations) {
+            Coordinate coord = location.getCoordinate();
+            latitudes[location.getIndex()] = coord.getY();
+            longitudes[location.getIndex()] = coord.getX();
+        }
+        return new GeodesicKernel(latitudes, longitudes, mode);
+    }
+
+    /**
+     * @param latitudes  latitudes in degrees.
+     * @param longitudes longitudes in degrees.
+     * @param mode       the accuracy mode.
+     */
+    public GeodesicKernel(double[] latitudes, double[] longitudes, Mode mode) {
+        if (latitudes.length != longitudes.length) {
+            throw new IllegalArgumentException("got " + latitudes.length + " latitudes but " + longitudes.length
+                    + " longitudes");
+        }
+        int n = latitudes.length;
+        this.mode = mode;
+        this.latDeg = latitudes.clone();
+        this.lonDeg = longitudes.clone();
+        this.latRad = new double[n];
+        this.lonRad = new double[n];
+        this.cosLat = new double[n];
+        for (int i = 0; i < n; i++) {
+            latRad[i] = Math.toRadians(latitudes[i]);
+            lonRad[i] = Math.toRadians(longitudes[i]);
+            cosLat[i] = Math.cos(latRad[i]);
+        }
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * @return the number of points.
+     */
+    public int size() {
+        return latDeg.length;
+    }
+
+    public double getLatitude(int i) {
+        return latDeg[i];
+    }
+
+    public double getLongitude(int i) {
+        return lonDeg[i];
+    }
+
+    /**
+     * @return the distance between point {@code i} and point {@code j} in kilometers.
+     */
+    public double distance(int i, int j) {
+        if (mode == Mode.HAVERSINE) {
+            return haversine(i, j);
+        }
+        return equirectangular(i, j);
+    }
+
+    /**
+     * Batch form of {@link #distance(int, int)}: writes the distance from point {@code i} to every point
+     * {@code j} in {@code [fromColumn, toColumn)} into {@code out[offset + j]}. With {@code offset = i * n} this
+     * fills a slice of row {@code i} of a row-major matrix.
+     */
+    public void fillRow(int i, double[] out, int offset, int fromColumn, int toColumn) {
+        if (mode == Mode.HAVERSINE) {
+            for (int j = fromColumn; j < toColumn; j++) {
+                out[offset + j] = haversine(i, j);
+            }
+        } else {
+            for (int j = fromColumn; j < toColumn; j++) {
+                out[offset + j] = equirectangular(i, j);
+            }
+        }
+    }
+
+    private double haversine(int i, int j) {
+        // Same operation order as multiple100locations.haversine, with the cosines taken from the tables.
+        double sinDLat = Math.sin(Math.toRadians(latDeg[j] - latDeg[i]) / 2);
+        double sinDLon = Math.sin(Math.toRadians(lonDeg[j] - lonDeg[i]) / 2);
+        double a = sinDLat * sinDLat + cosLat[i] * cosLat[j] * sinDLon * sinDLon;
+        return multiple100locations.EARTH_RADIUS * (2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a)));
+    }
+
+    private double equirectangular(int i, int j) {
+        double dLon = lonRad[j] - lonRad[i];
+        if (dLon > Math.PI) {
+            dLon -= TWO_PI;
+        } else if (dLon < -Math.PI) {
+            dLon += TWO_PI;
+        }
+        double x = dLon * 0.5 * (cosLat[i] + cosLat[j]);
+        double y = latRad[j] - latRad[i];
+        return multiple100locations.EARTH_RADIUS * Math.sqrt(x * x + y * y);
+    }
+}
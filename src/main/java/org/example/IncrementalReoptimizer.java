@@ -0,0 +1,260 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.algorithm.recreate.InsertionStrategy;
+import com.graphhopper.jsprit.core.algorithm.recreate.InsertionStrategyBuilder;
+import com.graphhopper.jsprit.core.algorithm.state.StateManager;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.constraint.ConstraintManager;
+import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.FiniteFleetManagerFactory;
+import com.graphhopper.jsprit.core.problem.vehicle.InfiniteFleetManagerFactory;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleFleetManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Re-plans after jobs were added to or cancelled from a solved problem, starting from the previous solution
+ * instead of from scratch.
+ * <p>
+ * The new problem keeps the previous vehicles, fleet size and costs; cancelled jobs are dropped and added jobs
+ * appended. The previous routes minus cancelled jobs are kept in their order, only the added jobs are inserted
+ * into them with jsprit's best insertion (respecting capacities, time windows and skills), and the result seeds a
+ * short {@link AnytimeSolver} run. Like {@link ClusterDecomposition}, this handles service jobs only.
+ */
+public class IncrementalReoptimizer {
+
+    /**
+     * Builder for {@link IncrementalReoptimizer}.
+     */
+    public static class Builder {
+
+        public static Builder newInstance(VehicleRoutingProblem previousProblem,
+                                          VehicleRoutingProblemSolution previousSolution) {
+            return new Builder(previousProblem, previousSolution);
+        }
+
+        private final VehicleRoutingProblem previousProblem;
+
+        private final VehicleRoutingProblemSolution previousSolution;
+
+        private final List<Service> addedJobs = new ArrayList<>();
+
+        private final Set<String> removedJobIds = new HashSet<>();
+
+        private VehicleRoutingTransportCosts transportCosts;
+
+        private int maxIterations = 100;
+
+        private long timeBudgetMillis = -1;
+
+        private long seed = 42;
+
+        private Builder(VehicleRoutingProblem previousProblem, VehicleRoutingProblemSolution previousSolution) {
+            this.previousProblem = previousProblem;
+            this.previousSolution = previousSolution;
+            this.transportCosts = previousProblem.getTransportCosts();
+        }
+
+        /**
+         * Adds a new job. Its location must be known to the transport costs.
+         */
+        public Builder addJob(Service job) {
+            addedJobs.add(job);
+            return this;
+        }
+
+        /**
+         * Cancels the job with this id.
+         */
+        public Builder removeJob(String jobId) {
+            removedJobIds.add(jobId);
+            return this;
+        }
+
+        /**
+         * Replaces the transport costs, e.g. with a matrix that also covers the locations of added jobs.
+         * Defaults to the costs of the previous problem.
+         */
+        public Builder setTransportCosts(VehicleRoutingTransportCosts transportCosts) {
+            this.transportCosts = transportCosts;
+            return this;
+        }
+
+        /**
+         * Sets the number of improvement iterations after the insertion. Defaults to 100.
+         */
+        public Builder setMaxIterations(int maxIterations) {
+            this.maxIterations = maxIterations;
+            return this;
+        }
+
+        /**
+         * Bounds the improvement phase by wall-clock time as well.
+         */
+        public Builder setTimeBudget(long timeBudget, TimeUnit unit) {
+            this.timeBudgetMillis = unit.toMillis(timeBudget);
+            return this;
+        }
+
+        public Builder setSeed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public IncrementalReoptimizer build() {
+            return new IncrementalReoptimizer(this);
+        }
+    }
+
+    private final VehicleRoutingProblem problem;
+
+    private final VehicleRoutingProblemSolution initialSolution;
+
+    private final int maxIterations;
+
+    private final long timeBudgetMillis;
+
+    private final long seed;
+
+    private IncrementalReoptimizer(Builder builder) {
+        VehicleRoutingProblem previous = builder.previousProblem;
+        VehicleRoutingProblem.Builder problemBuilder = VehicleRoutingProblem.Builder.newInstance()
+                .setFleetSize(previous.getFleetSize())
+                .setRoutingCost(builder.transportCosts)
+                .setActivityCosts(previous.getActivityCosts());
+        Map<String, Vehicle> vehicles = new HashMap<>();
+        for (Vehicle vehicle : previous.getVehicles()) {
+            Vehicle copy = ProblemCopies.copyOf(vehicle, vehicle.getStartLocation(), vehicle.getEndLocation());
+            vehicles.put(copy.getId(), copy);
+            problemBuilder.addVehicle(copy);
+        }
+        Map<String, Service> jobs = new LinkedHashMap<>();
+        for (Job job : previous.getJobs().values()) {
+            if (!builder.removedJobIds.contains(job.getId())) {
+                jobs.put(job.getId(), copyOf(job));
+            }
+        }
+        List<Job> addedJobs = new ArrayList<>();
+        for (Service job : builder.addedJobs) {
+            Service copy = copyOf(job);
+            if (jobs.put(copy.getId(), copy) != null) {
+                throw new IllegalArgumentException("job " + copy.getId() + " already exists");
+            }
+            addedJobs.add(copy);
+        }
+        for (Service job : jobs.values()) {
+            problemBuilder.addJob(job);
+        }
+        this.problem = problemBuilder.build();
+        this.initialSolution = seed(builder.previousSolution, vehicles, jobs, addedJobs);
+        this.maxIterations = builder.maxIterations;
+        this.timeBudgetMillis = builder.timeBudgetMillis;
+        this.seed = builder.seed;
+    }
+
+    private static Service copyOf(Job job) {
+        if (!(job instanceof Service)) {
+            throw new IllegalArgumentException("job " + job.getId() + " is not a service");
+        }
+        Service service = (Service) job;
+        return ProblemCopies.copyOf(service, service.getLocation());
+    }
+
+    // The surviving routes with the added jobs inserted; cancelled-from, now empty routes are dropped.
+    private VehicleRoutingProblemSolution seed(VehicleRoutingProblemSolution previousSolution,
+                                               Map<String, Vehicle> vehicles, Map<String, Service> jobs,
+                                               List<Job> addedJobs) {
+        List<VehicleRoute> routes = new ArrayList<>();
+        for (VehicleRoute previousRoute : previousSolution.getRoutes()) {
+            VehicleRoute.Builder route = VehicleRoute.Builder.newInstance(vehicles.get(previousRoute.getVehicle().getId()),
+                    previousRoute.getDriver()).setJobActivityFactory(problem.getJobActivityFactory());
+            boolean empty = true;
+            for (TourActivity activity : previousRoute.getActivities()) {
+                Job job = ProblemCopies.jobOf(activity);
+                if (job != null && jobs.containsKey(job.getId())) {
+                    ProblemCopies.addJob(route, jobs.get(job.getId()));
+                    empty = false;
+                }
+            }
+            if (!empty) {
+                routes.add(route.build());
+            }
+        }
+        return insertJobs(problem, routes, addedJobs);
+    }
+
+    /**
+     * Inserts {@code jobs} into {@code routes}, which must be built on {@code problem}, with jsprit's best insertion;
+     * vehicles of the given routes are not used for new routes.
+     *
+     * @return the routes as a solution, with jobs that fit nowhere as unassigned and a cost of 0.
+     */
+    static VehicleRoutingProblemSolution insertJobs(VehicleRoutingProblem problem, List<VehicleRoute> routes,
+                                                    Collection<Job> jobs) {
+        StateManager states = new StateManager(problem);
+        states.updateLoadStates();
+        states.updateTimeWindowStates();
+        states.updateSkillStates();
+        ConstraintManager constraints = new ConstraintManager(problem, states);
+        constraints.addLoadConstraint();
+        constraints.addTimeWindowConstraint();
+        constraints.addSkillsConstraint();
+        VehicleFleetManager fleet = problem.getFleetSize() == VehicleRoutingProblem.FleetSize.FINITE
+                ? new FiniteFleetManagerFactory(problem.getVehicles()).createFleetManager()
+                : new InfiniteFleetManagerFactory(problem.getVehicles()).createFleetManager();
+        for (VehicleRoute route : routes) {
+            fleet.lock(route.getVehicle());
+        }
+        InsertionStrategy insertion = new InsertionStrategyBuilder(problem, fleet, states, constraints)
+                .setInsertionStrategy(InsertionStrategyBuilder.Strategy.BEST)
+                .build();
+        insertion.addListener(states);
+        Collection<Job> unassigned = insertion.insertJobs(routes, jobs);
+        // The cost is computed by the algorithm when the solution is added to it.
+        return new VehicleRoutingProblemSolution(routes, new ArrayList<>(unassigned), 0);
+    }
+
+    /**
+     * @return the problem after the delta; its jobs and vehicles are copies, so the previous problem stays valid.
+     */
+    public VehicleRoutingProblem getProblem() {
+        return problem;
+    }
+
+    /**
+     * @return the previous routes with the added jobs inserted, before any improvement.
+     */
+    public VehicleRoutingProblemSolution getInitialSolution() {
+        return initialSolution;
+    }
+
+    /**
+     * Runs the bounded improvement phase from the initial solution.
+     *
+     * @return the best solution found.
+     */
+    public VehicleRoutingProblemSolution solve() {
+        AnytimeSolver.Builder solver = AnytimeSolver.Builder.newInstance(problem)
+                .addInitialSolution(initialSolution)
+                .setMaxIterations(maxIterations)
+                .setSeed(seed);
+        if (timeBudgetMillis >= 0) {
+            solver.setTimeBudget(timeBudgetMillis, TimeUnit.MILLISECONDS);
+        }
+        return solver.build().solve();
+    }
+}
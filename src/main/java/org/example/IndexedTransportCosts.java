@@ -0,0 +1,70 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.cost.AbstractForwardVehicleRoutingTransportCosts;
+import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+
+/**
+ * Base class for transport costs that are looked up by {@link Location#getIndex()} instead of by location id.
+ * <p>
+ * Subclasses only provide the distance and travel time between two indices. Costs are derived the same way
+ * jsprit's {@code VehicleRoutingTransportCostsMatrix} derives them: distance times the vehicle's per-distance
+ * cost plus time times its per-time cost, or the plain distance if no vehicle is given.
+ */
+public abstract class IndexedTransportCosts extends AbstractForwardVehicleRoutingTransportCosts {
+
+    /**
+     * @return the number of location indices this cost model can answer for.
+     */
+    public abstract int getNoLocations();
+
+    /**
+     * @param fromIndex index of the origin location.
+     * @param toIndex   index of the destination location.
+     * @return the distance between the two locations.
+     */
+    public abstract double getDistance(int fromIndex, int toIndex);
+
+    /**
+     * @param fromIndex index of the origin location.
+     * @param toIndex   index of the destination location.
+     * @return the travel time between the two locations.
+     */
+    public abstract double getTransportTime(int fromIndex, int toIndex);
+
+    @Override
+    public double getDistance(Location from, Location to, double departureTime, Vehicle vehicle) {
+        return getDistance(indexOf(from), indexOf(to));
+    }
+
+    @Override
+    public double getTransportTime(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle) {
+        return getTransportTime(indexOf(from), indexOf(to));
+    }
+
+    @Override
+    public double getTransportCost(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle) {
+        int fromIndex = indexOf(from);
+        int toIndex = indexOf(to);
+        if (vehicle == null) {
+            return getDistance(fromIndex, toIndex);
+        }
+        VehicleTypeImpl.VehicleCostParams costParams = vehicle.getType().getVehicleCostParams();
+        return costParams.perDistanceUnit * getDistance(fromIndex, toIndex)
+                + costParams.perTransportTimeUnit * getTransportTime(fromIndex, toIndex);
+    }
+
+    /**
+     * Returns the index of the given location, failing fast for locations that were built without one.
+     */
+    static int indexOf(Location location) {
+        int index = location.getIndex();
+        if (index < 0) {
+            throw new IllegalArgumentException("location " + location.getId() + " has no index. "
+                    + "Build it with Location.Builder.setIndex(..) to use it with index-based costs.");
+        }
+        return index;
+    }
+}
@@ -0,0 +1,546 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
+import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decorator that measures how the solver uses a cost model: calls per lookup method, a latency histogram and the
+ * most frequently looked up pairs of locations, and optionally answers the hottest pairs from a small front cache.
+ * <p>
+ * Call counts, cache hits and the latency histogram are {@link LongAdder}s, so concurrent searches do not contend on
+ * them. The histogram has one bucket per power of two of nanoseconds and, as two clock reads cost more than an
+ * array lookup, samples one in {@link Builder#setLatencySampling(int)} lookups of every pair. Pairs are counted by
+ * location index in a fixed table of {@link Builder#setPairTableSize(int)} slots: a slot belongs to the first pair
+ * hashed to it, and pairs that collide with it add to its count, so reported counts are upper bounds once the table
+ * is crowded.
+ * <p>
+ * With {@link Builder#setFrontCacheSize(int)}, a pair whose count reaches a multiple of
+ * {@link Builder#setPromotionThreshold(int)} stores its cost, keyed by pair and vehicle type, in a direct-mapped
+ * table that keeps sequence number, key and value of an entry in 32 bytes of one {@link AtomicLongArray}, so no
+ * entry straddles a cache line. A writer claims an entry by moving its sequence number from even to odd with a
+ * compare-and-set, and makes it even again once key and value are written; writers that lose the race skip the
+ * promotion. A lookup only uses a value if the sequence number was even and unchanged around reading key and value,
+ * so even racing writers never make it return a value for another key. The front cache only pays off for cost
+ * models that compute their costs, such as {@link LazyHaversineTransportCosts} or {@link SparseTransportCosts}, and
+ * is only correct for costs that do not depend on the departure time or the driver.
+ * <p>
+ * {@link #getSnapshot()} may be called from any thread at any time; {@link Snapshot#toJson()} exports it.
+ */
+public class InstrumentedTransportCosts implements VehicleRoutingTransportCosts {
+
+    /**
+     * Builder for {@link InstrumentedTransportCosts}.
+     */
+    public static class Builder {
+
+        public static Builder newInstance(VehicleRoutingTransportCosts costs) {
+            return new Builder(costs);
+        }
+
+        private final VehicleRoutingTransportCosts costs;
+
+        private int pairTableSize = 1 << 16;
+
+        private int frontCacheSize;
+
+        private int promotionThreshold = 64;
+
+        private int noHotPairs = 20;
+
+        private int latencySampling = 64;
+
+        private Builder(VehicleRoutingTransportCosts costs) {
+            this.costs = costs;
+        }
+
+        /**
+         * Sets the number of slots pairs are counted in, rounded up to a power of two. Defaults to 65536.
+         */
+        public Builder setPairTableSize(int size) {
+            this.pairTableSize = powerOfTwo(size, "pair table size");
+            return this;
+        }
+
+        /**
+         * Enables the front cache with this many entries, rounded up to a power of two, or disables it with 0.
+         * Disabled by default.
+         */
+        public Builder setFrontCacheSize(int size) {
+            this.frontCacheSize = size == 0 ? 0 : powerOfTwo(size, "front cache size");
+            return this;
+        }
+
+        /**
+         * Sets how many lookups of a pair promote it into the front cache. Defaults to 64.
+         */
+        public Builder setPromotionThreshold(int threshold) {
+            if (threshold < 1) {
+                throw new IllegalArgumentException("promotion threshold must be positive");
+            }
+            this.promotionThreshold = threshold;
+            return this;
+        }
+
+        /**
+         * Sets how many of the most frequent pairs a snapshot reports. Defaults to 20.
+         */
+        public Builder setNoHotPairs(int noHotPairs) {
+            this.noHotPairs = noHotPairs;
+            return this;
+        }
+
+        /**
+         * Times every {@code n}th lookup of a pair, rounded up to a power of two, and lookups of unindexed
+         * locations always. Defaults to 64, since timing a lookup costs more than most lookups.
+         */
+        public Builder setLatencySampling(int n) {
+            this.latencySampling = powerOfTwo(n, "latency sampling");
+            return this;
+        }
+
+        public InstrumentedTransportCosts build() {
+            return new InstrumentedTransportCosts(this);
+        }
+
+        private static int powerOfTwo(int size, String name) {
+            if (size < 1 || size > 1 << 30) {
+                throw new IllegalArgumentException(name + " must be between 1 and 2^30");
+            }
+            return size == 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+        }
+    }
+
+    /**
+     * A pair of location indices and how often it was looked up.
+     */
+    public static class Pair {
+
+        private final int fromIndex;
+
+        private final int toIndex;
+
+        private final long count;
+
+        Pair(int fromIndex, int toIndex, long count) {
+            this.fromIndex = fromIndex;
+            this.toIndex = toIndex;
+            this.count = count;
+        }
+
+        public int getFromIndex() {
+            return fromIndex;
+        }
+
+        public int getToIndex() {
+            return toIndex;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        @Override
+        public String toString() {
+            return "[from=" + fromIndex + "][to=" + toIndex + "][count=" + count + "]";
+        }
+    }
+
+    /**
+     * Point-in-time copy of the statistics.
+     */
+    public static class Snapshot {
+
+        private final long costCalls;
+
+        private final long backwardCostCalls;
+
+        private final long timeCalls;
+
+        private final long backwardTimeCalls;
+
+        private final long distanceCalls;
+
+        private final long frontCacheHits;
+
+        private final long distinctPairs;
+
+        private final long[] latencyHistogram;
+
+        private final List<Pair> hotPairs;
+
+        Snapshot(long costCalls, long backwardCostCalls, long timeCalls, long backwardTimeCalls, long distanceCalls,
+                 long frontCacheHits, long distinctPairs, long[] latencyHistogram, List<Pair> hotPairs) {
+            this.costCalls = costCalls;
+            this.backwardCostCalls = backwardCostCalls;
+            this.timeCalls = timeCalls;
+            this.backwardTimeCalls = backwardTimeCalls;
+            this.distanceCalls = distanceCalls;
+            this.frontCacheHits = frontCacheHits;
+            this.distinctPairs = distinctPairs;
+            this.latencyHistogram = latencyHistogram;
+            this.hotPairs = hotPairs;
+        }
+
+        public long getCostCalls() {
+            return costCalls;
+        }
+
+        public long getBackwardCostCalls() {
+            return backwardCostCalls;
+        }
+
+        public long getTimeCalls() {
+            return timeCalls;
+        }
+
+        public long getBackwardTimeCalls() {
+            return backwardTimeCalls;
+        }
+
+        public long getDistanceCalls() {
+            return distanceCalls;
+        }
+
+        /**
+         * @return the number of calls over all lookup methods.
+         */
+        public long getCalls() {
+            return costCalls + backwardCostCalls + timeCalls + backwardTimeCalls + distanceCalls;
+        }
+
+        /**
+         * @return the number of forward cost lookups answered by the front cache.
+         */
+        public long getFrontCacheHits() {
+            return frontCacheHits;
+        }
+
+        /**
+         * @return the number of occupied pair table slots, a lower bound of the number of distinct pairs.
+         */
+        public long getDistinctPairs() {
+            return distinctPairs;
+        }
+
+        /**
+         * @return the number of timed calls per latency bucket; bucket {@code b > 0} counts calls that took
+         * {@code [2^(b - 1), 2^b)} nanoseconds, bucket 0 those that took less than a nanosecond to measure.
+         */
+        public long[] getLatencyHistogram() {
+            return latencyHistogram.clone();
+        }
+
+        /**
+         * @return an upper bound of the {@code quantile} of the call latency in nanoseconds, or 0 without calls.
+         */
+        public long getLatencyNanos(double quantile) {
+            long total = 0;
+            for (long count : latencyHistogram) {
+                total += count;
+            }
+            long rank = (long) Math.ceil(quantile * total);
+            long seen = 0;
+            for (int b = 0; b < latencyHistogram.length; b++) {
+                seen += latencyHistogram[b];
+                if (seen >= rank && seen > 0) {
+                    return b == 0 ? 0 : 1L << b;
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * @return the most frequently looked up pairs, most frequent first.
+         */
+        public List<Pair> getHotPairs() {
+            return hotPairs;
+        }
+
+        public String toJson() {
+            StringBuilder json = new StringBuilder();
+            json.append("{\"costCalls\":").append(costCalls)
+                    .append(",\"backwardCostCalls\":").append(backwardCostCalls)
+                    .append(",\"timeCalls\":").append(timeCalls)
+                    .append(",\"backwardTimeCalls\":").append(backwardTimeCalls)
+                    .append(",\"distanceCalls\":").append(distanceCalls)
+                    .append(",\"frontCacheHits\":").append(frontCacheHits)
+                    .append(",\"distinctPairs\":").append(distinctPairs)
+                    .append(",\"latencyP50Nanos\":").append(getLatencyNanos(0.5))
+                    .append(",\"latencyP99Nanos\":").append(getLatencyNanos(0.99))
+                    .append(",\"latencyHistogram\":[");
+            int last = latencyHistogram.length - 1;
+            while (last > 0 && latencyHistogram[last] == 0) {
+                last--;
+            }
+            for (int b = 0; b <= last; b++) {
+                json.append(b == 0 ? "" : ",").append(latencyHistogram[b]);
+            }
+            json.append("],\"hotPairs\":[");
+            for (int i = 0; i < hotPairs.size(); i++) {
+                Pair pair = hotPairs.get(i);
+                json.append(i == 0 ? "" : ",").append("{\"from\":").append(pair.getFromIndex())
+                        .append(",\"to\":").append(pair.getToIndex())
+                        .append(",\"count\":").append(pair.getCount()).append('}');
+            }
+            return json.append("]}").toString();
+        }
+
+        @Override
+        public String toString() {
+            return toJson();
+        }
+    }
+
+    private static final long EMPTY = -1L;
+
+    private static final long NOT_TIMED = Long.MIN_VALUE;
+
+    private static final int ENTRY_LENGTH = 4;
+
+    // Front cache keys pack the from and to index into 24 bits each and the vehicle type index into 15.
+    private static final int MAX_CACHED_INDEX = (1 << 24) - 1;
+
+    private static final int MAX_CACHED_TYPE = (1 << 15) - 1;
+
+    private final VehicleRoutingTransportCosts costs;
+
+    private final LongAdder costCalls = new LongAdder();
+
+    private final LongAdder backwardCostCalls = new LongAdder();
+
+    private final LongAdder timeCalls = new LongAdder();
+
+    private final LongAdder backwardTimeCalls = new LongAdder();
+
+    private final LongAdder distanceCalls = new LongAdder();
+
+    private final LongAdder frontCacheHits = new LongAdder();
+
+    private final LongAdder[] latency = new LongAdder[64];
+
+    private final AtomicLongArray pairKeys;
+
+    private final AtomicLongArray pairCounts;
+
+    private final int pairMask;
+
+    // Sequence number, key and value bits per entry, padded to ENTRY_LENGTH, or null without a front cache.
+    private final AtomicLongArray frontCache;
+
+    private final int frontMask;
+
+    private final int promotionThreshold;
+
+    private final int noHotPairs;
+
+    private final long latencyMask;
+
+    private InstrumentedTransportCosts(Builder builder) {
+        this.costs = builder.costs;
+        for (int b = 0; b < latency.length; b++) {
+            latency[b] = new LongAdder();
+        }
+        this.pairKeys = new AtomicLongArray(builder.pairTableSize);
+        for (int i = 0; i < builder.pairTableSize; i++) {
+            pairKeys.set(i, EMPTY);
+        }
+        this.pairCounts = new AtomicLongArray(builder.pairTableSize);
+        this.pairMask = builder.pairTableSize - 1;
+        if (builder.frontCacheSize > 0) {
+            this.frontCache = new AtomicLongArray(ENTRY_LENGTH * builder.frontCacheSize);
+            for (int i = 0; i < builder.frontCacheSize; i++) {
+                frontCache.set(ENTRY_LENGTH * i + 1, EMPTY);
+            }
+            this.frontMask = builder.frontCacheSize - 1;
+        } else {
+            this.frontCache = null;
+            this.frontMask = 0;
+        }
+        this.promotionThreshold = builder.promotionThreshold;
+        this.noHotPairs = builder.noHotPairs;
+        this.latencyMask = builder.latencySampling - 1;
+    }
+
+    /**
+     * @return the decorated cost model.
+     */
+    public VehicleRoutingTransportCosts getCosts() {
+        return costs;
+    }
+
+    @Override
+    public double getTransportCost(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle) {
+        costCalls.increment();
+        long count = countPair(from, to);
+        long start = startTimer(count);
+        long key = frontCache == null ? EMPTY : cacheKey(from, to, vehicle);
+        double cost;
+        if (key != EMPTY) {
+            int entry = ENTRY_LENGTH * (int) (mix(key) & frontMask);
+            long sequence = frontCache.get(entry);
+            if ((sequence & 1) == 0 && frontCache.get(entry + 1) == key) {
+                long bits = frontCache.get(entry + 2);
+                if (frontCache.get(entry) == sequence) {
+                    frontCacheHits.increment();
+                    record(start);
+                    return Double.longBitsToDouble(bits);
+                }
+            }
+            cost = costs.getTransportCost(from, to, departureTime, driver, vehicle);
+            if (count >= promotionThreshold && count % promotionThreshold == 0) {
+                promote(entry, key, cost);
+            }
+        } else {
+            cost = costs.getTransportCost(from, to, departureTime, driver, vehicle);
+        }
+        record(start);
+        return cost;
+    }
+
+    @Override
+    public double getBackwardTransportCost(Location from, Location to, double arrivalTime, Driver driver,
+                                           Vehicle vehicle) {
+        backwardCostCalls.increment();
+        long start = startTimer(countPair(from, to));
+        double cost = costs.getBackwardTransportCost(from, to, arrivalTime, driver, vehicle);
+        record(start);
+        return cost;
+    }
+
+    @Override
+    public double getTransportTime(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle) {
+        timeCalls.increment();
+        long start = startTimer(countPair(from, to));
+        double time = costs.getTransportTime(from, to, departureTime, driver, vehicle);
+        record(start);
+        return time;
+    }
+
+    @Override
+    public double getBackwardTransportTime(Location from, Location to, double arrivalTime, Driver driver,
+                                           Vehicle vehicle) {
+        backwardTimeCalls.increment();
+        long start = startTimer(countPair(from, to));
+        double time = costs.getBackwardTransportTime(from, to, arrivalTime, driver, vehicle);
+        record(start);
+        return time;
+    }
+
+    @Override
+    public double getDistance(Location from, Location to, double departureTime, Vehicle vehicle) {
+        distanceCalls.increment();
+        long start = startTimer(countPair(from, to));
+        double distance = costs.getDistance(from, to, departureTime, vehicle);
+        record(start);
+        return distance;
+    }
+
+    /**
+     * @return the statistics so far; concurrent lookups may or may not be included.
+     */
+    public Snapshot getSnapshot() {
+        long[] histogram = new long[latency.length];
+        for (int b = 0; b < latency.length; b++) {
+            histogram[b] = latency[b].sum();
+        }
+        List<Pair> pairs = new ArrayList<>();
+        long distinct = 0;
+        for (int slot = 0; slot <= pairMask; slot++) {
+            long key = pairKeys.get(slot);
+            if (key == EMPTY) {
+                continue;
+            }
+            distinct++;
+            pairs.add(new Pair((int) (key >>> 32), (int) key, pairCounts.get(slot)));
+        }
+        Collections.sort(pairs, new Comparator<Pair>() {
+            @Override
+            public int compare(Pair a, Pair b) {
+                return Long.compare(b.getCount(), a.getCount());
+            }
+        });
+        List<Pair> hot = new ArrayList<>(pairs.subList(0, Math.min(noHotPairs, pairs.size())));
+        return new Snapshot(costCalls.sum(), backwardCostCalls.sum(), timeCalls.sum(), backwardTimeCalls.sum(),
+                distanceCalls.sum(), frontCacheHits.sum(), distinct, histogram, Collections.unmodifiableList(hot));
+    }
+
+    /**
+     * Writes {@link Snapshot#toJson()} of the current statistics to {@code file}.
+     */
+    public void writeJson(Path file) {
+        try {
+            Files.write(file, (getSnapshot().toJson() + "\n").getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot write cost lookup statistics to " + file, e);
+        }
+    }
+
+    // Counts the pair, if both locations are indexed.
+    private long countPair(Location from, Location to) {
+        int fromIndex = from.getIndex();
+        int toIndex = to.getIndex();
+        if (fromIndex < 0 || toIndex < 0) {
+            return 0;
+        }
+        long key = (long) fromIndex << 32 | toIndex;
+        int slot = (int) (mix(key) & pairMask);
+        long owner = pairKeys.get(slot);
+        if (owner == EMPTY) {
+            pairKeys.compareAndSet(slot, EMPTY, key);
+        }
+        return pairCounts.incrementAndGet(slot);
+    }
+
+    private void promote(int entry, long key, double cost) {
+        long sequence = frontCache.get(entry);
+        if ((sequence & 1) != 0 || !frontCache.compareAndSet(entry, sequence, sequence + 1)) {
+            return;
+        }
+        frontCache.set(entry + 1, key);
+        frontCache.set(entry + 2, Double.doubleToRawLongBits(cost));
+        frontCache.set(entry, sequence + 2);
+    }
+
+    private static long cacheKey(Location from, Location to, Vehicle vehicle) {
+        int fromIndex = from.getIndex();
+        int toIndex = to.getIndex();
+        int type = vehicle == null ? 0 : vehicle.getVehicleTypeIdentifier().getIndex() + 1;
+        if (fromIndex < 0 || toIndex < 0 || fromIndex > MAX_CACHED_INDEX || toIndex > MAX_CACHED_INDEX
+                || type < 0 || type > MAX_CACHED_TYPE) {
+            return EMPTY;
+        }
+        return (long) type << 48 | (long) fromIndex << 24 | toIndex;
+    }
+
+    private long startTimer(long pairCount) {
+        return (pairCount & latencyMask) == 0 ? System.nanoTime() : NOT_TIMED;
+    }
+
+    private void record(long start) {
+        if (start == NOT_TIMED) {
+            return;
+        }
+        long nanos = System.nanoTime() - start;
+        latency[nanos <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(nanos)].increment();
+    }
+
+    // Spreads the bits of a key over the low bits used as slot index.
+    private static long mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+}
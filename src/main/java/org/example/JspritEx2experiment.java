@@ -16,10 +16,41 @@ import com.graphhopper.jsprit.core.util.Coordinate;
 import com.graphhopper.jsprit.core.util.Solutions;
 import com.graphhopper.jsprit.core.util.VehicleRoutingTransportCostsMatrix;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Collection;
 
 public class JspritEx2experiment {
     public static void main(String[] args) {
+        VehicleRoutingProblem problem = createProblem();
+
+        // With -Dsolver.warmup the JVM is primed on a synthetic 100-service problem first, see WarmUp.
+        if (Boolean.getBoolean("solver.warmup")) {
+            System.out.println("Warm-up took " + WarmUp.run(100, 200) + " ms");
+        }
+
+        // Solve the problem using Jsprit's algorithm
+        long solveStart = System.nanoTime();
+        VehicleRoutingAlgorithm algorithm = Jsprit.createAlgorithm(problem);
+        Collection<VehicleRoutingProblemSolution> solutions = algorithm.searchSolutions();
+        System.out.println("Solve took " + (System.nanoTime() - solveStart) / 1_000_000L + " ms");
+        Path solutionsFile = Paths.get(System.getProperty("solutions.out", "solutions.jsonl"));
+        multiple100locations.writeSolutions(solutions, solutionsFile);
+        System.out.println("All possible solutions written to " + solutionsFile);
+        // Print the best solution to the console
+        System.out.println("The best sol: ");
+        VehicleRoutingProblemSolution bestSolution=Solutions.bestOf(solutions);
+        SolutionPrinter.print(bestSolution);
+
+        // Plot the solution (the Plotter now has a valid range)
+        new Plotter(problem, Solutions.bestOf(solutions)).plot("outputGraph.png", "JspritEx2experiment");
+CustomPlotter.displaySolution(bestSolution);
+    }
+
+    /**
+     * Creates the example problem: five services around a depot, three vehicles with capacity 15.
+     */
+    public static VehicleRoutingProblem createProblem() {
         // Create locations with varying y-coordinates to avoid a zero range.
         Location depot = Location.Builder.newInstance()
                 .setId("depot")
@@ -91,7 +122,7 @@ public class JspritEx2experiment {
 
 
         // Build the vehicle routing problem instance using a cost matrix
-        VehicleRoutingProblem problem = VehicleRoutingProblem.Builder.newInstance()
+        return VehicleRoutingProblem.Builder.newInstance()
                 .addVehicle(vehicle1)
                 .addVehicle(vehicle2)
                 .addVehicle(vehicle3)
@@ -126,18 +157,5 @@ public class JspritEx2experiment {
                         .addTransportDistance("location4", "location5", 11)
                         .build())
                 .build();
-
-        // Solve the problem using Jsprit's algorithm
-        VehicleRoutingAlgorithm algorithm = Jsprit.createAlgorithm(problem);
-        Collection<VehicleRoutingProblemSolution> solutions = algorithm.searchSolutions();
-        System.out.println("All possible solutions: "+solutions);
-        // Print the best solution to the console
-        System.out.println("The best sol: ");
-        VehicleRoutingProblemSolution bestSolution=Solutions.bestOf(solutions);
-        SolutionPrinter.print(bestSolution);
-
-        // Plot the solution (the Plotter now has a valid range)
-        new Plotter(problem, Solutions.bestOf(solutions)).plot("outputGraph.png", "JspritEx2experiment");
-CustomPlotter.displaySolution(bestSolution);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,161 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Lloyd's k-means over planar points with k-means++ seeding.
+ * <p>
+ * Geographic callers should project longitude/latitude first, e.g. by scaling the longitude with the cosine of
+ * the mean latitude, so distances along both axes are comparable.
+ */
+public final class KMeansClustering {
+
+    private final int[] assignment;
+
+    private final double[] centroidX;
+
+    private final double[] centroidY;
+
+    private final int iterations;
+
+    private KMeansClustering(int[] assignment, double[] centroidX, double[] centroidY, int iterations) {
+        this.assignment = assignment;
+        this.centroidX = centroidX;
+        this.centroidY = centroidY;
+        this.iterations = iterations;
+    }
+
+    /**
+     * Clusters the points into at most {@code k} groups.
+     *
+     * @param x             x coordinates of the points.
+     * @param y             y coordinates of the points.
+     * @param k             the number of clusters; reduced to the number of points if there are fewer.
+     * @param random        source of randomness for the seeding.
+     * @param maxIterations the maximum number of Lloyd iterations.
+     */
+    public static KMeansClustering cluster(double[] x, double[] y, int k, Random random, int maxIterations) {
+        int n = x.length;
+        if (y.length != n) {
+            throw new IllegalArgumentException("got " + n + " x coordinates but " + y.length + " y coordinates");
+        }
+        k = Math.max(1, Math.min(k, n));
+        double[] cx = new double[k];
+        double[] cy = new double[k];
+        int[] assignment = new int[n];
+        if (n == 0) {
+            return new KMeansClustering(assignment, cx, cy, 0);
+        }
+        seed(x, y, cx, cy, random);
+
+        int[] counts = new int[k];
+        double[] sumX = new double[k];
+        double[] sumY = new double[k];
+        int iteration = 0;
+        boolean changed = true;
+        while (changed && iteration < maxIterations) {
+            iteration++;
+            changed = false;
+            for (int i = 0; i < n; i++) {
+                int nearest = nearest(x[i], y[i], cx, cy);
+                if (nearest != assignment[i]) {
+                    assignment[i] = nearest;
+                    changed = true;
+                }
+            }
+            Arrays.fill(counts, 0);
+            Arrays.fill(sumX, 0);
+            Arrays.fill(sumY, 0);
+            for (int i = 0; i < n; i++) {
+                counts[assignment[i]]++;
+                sumX[assignment[i]] += x[i];
+                sumY[assignment[i]] += y[i];
+            }
+            for (int c = 0; c < k; c++) {
+                if (counts[c] > 0) {
+                    cx[c] = sumX[c] / counts[c];
+                    cy[c] = sumY[c] / counts[c];
+                }
+            }
+        }
+        return new KMeansClustering(assignment, cx, cy, iteration);
+    }
+
+    // k-means++: every further centre is drawn with probability proportional to its squared distance.
+    private static void seed(double[] x, double[] y, double[] cx, double[] cy, Random random) {
+        int n = x.length;
+        double[] minDist = new double[n];
+        int first = random.nextInt(n);
+        cx[0] = x[first];
+        cy[0] = y[first];
+        for (int i = 0; i < n; i++) {
+            minDist[i] = squaredDistance(x[i], y[i], cx[0], cy[0]);
+        }
+        for (int c = 1; c < cx.length; c++) {
+            double total = 0;
+            for (int i = 0; i < n; i++) {
+                total += minDist[i];
+            }
+            int chosen = n - 1;
+            double target = random.nextDouble() * total;
+            for (int i = 0; i < n; i++) {
+                target -= minDist[i];
+                if (target <= 0) {
+                    chosen = i;
+                    break;
+                }
+            }
+            cx[c] = x[chosen];
+            cy[c] = y[chosen];
+            for (int i = 0; i < n; i++) {
+                minDist[i] = Math.min(minDist[i], squaredDistance(x[i], y[i], cx[c], cy[c]));
+            }
+        }
+    }
+
+    private static int nearest(double x, double y, double[] cx, double[] cy) {
+        int best = 0;
+        double bestDist = Double.MAX_VALUE;
+        for (int c = 0; c < cx.length; c++) {
+            double d = squaredDistance(x, y, cx[c], cy[c]);
+            if (d < bestDist) {
+                bestDist = d;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    private static double squaredDistance(double x1, double y1, double x2, double y2) {
+        double dx = x1 - x2;
+        double dy = y1 - y2;
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * @return the number of clusters; some may be empty if points coincide.
+     */
+    public int getNoClusters() {
+        return centroidX.length;
+    }
+
+    /**
+     * @return the cluster of point {@code i}.
+     */
+    public int getCluster(int i) {
+        return assignment[i];
+    }
+
+    public double getCentroidX(int cluster) {
+        return centroidX[cluster];
+    }
+
+    public double getCentroidY(int cluster) {
+        return centroidY[cluster];
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+}
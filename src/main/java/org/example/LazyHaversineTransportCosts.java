@@ -0,0 +1,73 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.problem.Location;
+
+import java.util.Collection;
+
+/**
+ * Transport costs that compute {@link GeodesicKernel} distances on first request and keep them in a bounded
+ * {@link LongDoubleLruCache}.
+ * <p>
+ * Heap usage is fixed by the cache capacity instead of growing with {@code N * N}, so this works for instances
+ * far beyond what a full matrix can hold. Distances are symmetric, so both directions share one cache entry.
+ * Use {@link #getCache()} to read hit and miss counts when sizing the cache.
+ */
+public class LazyHaversineTransportCosts extends IndexedTransportCosts {
+
+    private final GeodesicKernel kernel;
+
+    private final LongDoubleLruCache cache;
+
+    /**
+     * @param locations     indexed locations.
+     * @param cacheCapacity the maximum number of cached distances.
+     */
+    public LazyHaversineTransportCosts(Collection<Location> locations, int cacheCapacity) {
+        this(GeodesicKernel.of(locations, GeodesicKernel.Mode.HAVERSINE), cacheCapacity);
+    }
+
+    /**
+     * @param kernel        the points, one per location index, and the distance mode.
+     * @param cacheCapacity the maximum number of cached distances.
+     */
+    public LazyHaversineTransportCosts(GeodesicKernel kernel, int cacheCapacity) {
+        this.kernel = kernel;
+        this.cache = new LongDoubleLruCache(cacheCapacity, Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    public LongDoubleLruCache getCache() {
+        return cache;
+    }
+
+    @Override
+    public int getNoLocations() {
+        return kernel.size();
+    }
+
+    @Override
+    public double getDistance(int fromIndex, int toIndex) {
+        if (fromIndex == toIndex) {
+            return 0.0;
+        }
+        int low = Math.min(fromIndex, toIndex);
+        int high = Math.max(fromIndex, toIndex);
+        long key = ((long) low << 32) | high;
+        double distance = cache.get(key);
+        if (Double.isNaN(distance)) {
+            distance = kernel.distance(low, high);
+            cache.put(key, distance);
+        }
+        return distance;
+    }
+
+    @Override
+    public double getTransportTime(int fromIndex, int toIndex) {
+        return 0.0;
+    }
+
+    @Override
+    public String toString() {
+        return "[name=lazyHaversineCosts][locations=" + kernel.size() + "][cacheCapacity=" + cache.capacity()
+                + "][hits=" + cache.getHits() + "][misses=" + cache.getMisses() + "]";
+    }
+}
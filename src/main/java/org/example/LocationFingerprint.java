@@ -0,0 +1,86 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.util.Coordinate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+
+/**
+ * SHA-256 fingerprint of an ordered location set: the location ids and coordinates in index order.
+ * Two location sets with the same fingerprint produce the same distance matrix.
+ */
+public final class LocationFingerprint {
+
+    /**
+     * Length of a fingerprint in bytes.
+     */
+    public static final int LENGTH = 32;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private LocationFingerprint() {
+    }
+
+    /**
+     * @param locations indexed locations; they are hashed in index order, whatever the collection's order.
+     * @return the 32-byte fingerprint.
+     */
+    public static byte[] of(Collection<Location> locations) {
+        Location[] byIndex = new Location[locations.size()];
+        for (Location location : locations) {
+            int index = IndexedTransportCosts.indexOf(location);
+            if (index >= byIndex.length || byIndex[index] != null) {
+                throw new IllegalArgumentException("location indices must be unique and dense, but found "
+                        + location.getId() + " at index " + index);
+            }
+            byIndex[index] = location;
+        }
+        MessageDigest digest = newDigest();
+        updateInt(digest, byIndex.length);
+        for (Location location : byIndex) {
+            byte[] id = location.getId().getBytes(StandardCharsets.UTF_8);
+            updateInt(digest, id.length);
+            digest.update(id);
+            Coordinate coord = location.getCoordinate();
+            updateLong(digest, coord == null ? 0L : Double.doubleToLongBits(coord.getX()));
+            updateLong(digest, coord == null ? 0L : Double.doubleToLongBits(coord.getY()));
+        }
+        return digest.digest();
+    }
+
+    /**
+     * @return the lower-case hex representation of a fingerprint, e.g. for file names.
+     */
+    public static String toHex(byte[] fingerprint) {
+        char[] chars = new char[fingerprint.length * 2];
+        for (int i = 0; i < fingerprint.length; i++) {
+            chars[2 * i] = HEX[(fingerprint[i] >> 4) & 0xF];
+            chars[2 * i + 1] = HEX[fingerprint[i] & 0xF];
+        }
+        return new String(chars);
+    }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static void updateInt(MessageDigest digest, int value) {
+        digest.update((byte) (value >>> 24));
+        digest.update((byte) (value >>> 16));
+        digest.update((byte) (value >>> 8));
+        digest.update((byte) value);
+    }
+
+    static void updateLong(MessageDigest digest, long value) {
+        updateInt(digest, (int) (value >>> 32));
+        updateInt(digest, (int) value);
+    }
+}
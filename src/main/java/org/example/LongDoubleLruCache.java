@@ -0,0 +1,255 @@
+package org.example;
+
+/**
+ * Bounded least-recently-used cache from primitive {@code long} keys to {@code double} values.
+ * <p>
+ * Nothing is boxed: each segment keeps its entries in parallel primitive arrays, finds them through an
+ * open-addressing hash table and orders them in an intrusive doubly linked list by recency. The cache is split
+ * into independently locked segments so concurrent solver threads rarely contend.
+ */
+public class LongDoubleLruCache {
+
+    /**
+     * Value returned by {@link #get(long)} on a miss.
+     */
+    public static final double MISSING = Double.NaN;
+
+    private final Segment[] segments;
+
+    private final int segmentShift;
+
+    /**
+     * @param capacity    the maximum number of entries, split evenly across the segments.
+     * @param noSegments  the number of independently locked segments, rounded up to a power of two.
+     */
+    public LongDoubleLruCache(int capacity, int noSegments) {
+        if (capacity < 1 || noSegments < 1) {
+            throw new IllegalArgumentException("capacity and number of segments must be positive");
+        }
+        int segmentBits = 32 - Integer.numberOfLeadingZeros(noSegments - 1);
+        int count = 1 << segmentBits;
+        int segmentCapacity = Math.max(1, (capacity + count - 1) / count);
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+        this.segmentShift = 64 - segmentBits;
+    }
+
+    /**
+     * @return the cached value for {@code key}, or {@link #MISSING} if it is not cached.
+     */
+    public double get(long key) {
+        long hash = mix(key);
+        return segmentFor(hash).get(key, (int) hash);
+    }
+
+    /**
+     * Caches {@code value} for {@code key}, evicting the least recently used entry of its segment if it is full.
+     */
+    public void put(long key, double value) {
+        long hash = mix(key);
+        segmentFor(hash).put(key, (int) hash, value);
+    }
+
+    public long getHits() {
+        long hits = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                hits += segment.hits;
+            }
+        }
+        return hits;
+    }
+
+    public long getMisses() {
+        long misses = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                misses += segment.misses;
+            }
+        }
+        return misses;
+    }
+
+    public long getEvictions() {
+        long evictions = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                evictions += segment.evictions;
+            }
+        }
+        return evictions;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size;
+            }
+        }
+        return size;
+    }
+
+    public int capacity() {
+        return segments.length * segments[0].keys.length;
+    }
+
+    private Segment segmentFor(long hash) {
+        return segments.length == 1 ? segments[0] : segments[(int) (hash >>> segmentShift)];
+    }
+
+    // Finalizer of MurmurHash3; spreads neighbouring index pairs over the whole table.
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    private static final class Segment {
+
+        private static final int NONE = -1;
+
+        final long[] keys;
+
+        private final double[] values;
+
+        private final int[] prev;
+
+        private final int[] next;
+
+        // slot + 1 per bucket, 0 marks an empty bucket
+        private final int[] table;
+
+        private final int tableMask;
+
+        private int head = NONE;
+
+        private int tail = NONE;
+
+        int size;
+
+        long hits;
+
+        long misses;
+
+        long evictions;
+
+        Segment(int capacity) {
+            keys = new long[capacity];
+            values = new double[capacity];
+            prev = new int[capacity];
+            next = new int[capacity];
+            int tableSize = Integer.highestOneBit(Math.max(2, capacity * 2 - 1)) << 1;
+            table = new int[tableSize];
+            tableMask = tableSize - 1;
+        }
+
+        synchronized double get(long key, int hash) {
+            int slot = find(key, hash);
+            if (slot == NONE) {
+                misses++;
+                return MISSING;
+            }
+            hits++;
+            moveToHead(slot);
+            return values[slot];
+        }
+
+        synchronized void put(long key, int hash, double value) {
+            int slot = find(key, hash);
+            if (slot != NONE) {
+                values[slot] = value;
+                moveToHead(slot);
+                return;
+            }
+            if (size < keys.length) {
+                slot = size++;
+            } else {
+                slot = tail;
+                removeFromTable(keys[slot]);
+                unlink(slot);
+                evictions++;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+            int bucket = hash & tableMask;
+            while (table[bucket] != 0) {
+                bucket = (bucket + 1) & tableMask;
+            }
+            table[bucket] = slot + 1;
+            linkAtHead(slot);
+        }
+
+        private int find(long key, int hash) {
+            int bucket = hash & tableMask;
+            int entry;
+            while ((entry = table[bucket]) != 0) {
+                if (keys[entry - 1] == key) {
+                    return entry - 1;
+                }
+                bucket = (bucket + 1) & tableMask;
+            }
+            return NONE;
+        }
+
+        // Backward-shift deletion keeps linear probing correct without tombstones.
+        private void removeFromTable(long key) {
+            int bucket = (int) mix(key) & tableMask;
+            while (keys[table[bucket] - 1] != key) {
+                bucket = (bucket + 1) & tableMask;
+            }
+            int hole = bucket;
+            int probe = (hole + 1) & tableMask;
+            while (table[probe] != 0) {
+                int home = (int) mix(keys[table[probe] - 1]) & tableMask;
+                // Move the entry into the hole unless its home lies cyclically in (hole, probe].
+                boolean stays = hole <= probe ? (hole < home && home <= probe) : (hole < home || home <= probe);
+                if (!stays) {
+                    table[hole] = table[probe];
+                    hole = probe;
+                }
+                probe = (probe + 1) & tableMask;
+            }
+            table[hole] = 0;
+        }
+
+        private void moveToHead(int slot) {
+            if (slot != head) {
+                unlink(slot);
+                linkAtHead(slot);
+            }
+        }
+
+        private void unlink(int slot) {
+            int p = prev[slot];
+            int n = next[slot];
+            if (p != NONE) {
+                next[p] = n;
+            } else {
+                head = n;
+            }
+            if (n != NONE) {
+                prev[n] = p;
+            } else {
+                tail = p;
+            }
+        }
+
+        private void linkAtHead(int slot) {
+            prev[slot] = NONE;
+            next[slot] = head;
+            if (head != NONE) {
+                prev[head] = slot;
+            }
+            head = slot;
+            if (tail == NONE) {
+                tail = slot;
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.problem.Location;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Distance matrix that lives in a binary file and is read through read-only memory mappings.
+ * <p>
+ * The file starts with a header carrying the {@link LocationFingerprint} of the location set it was built for,
+ * followed by the full row-major matrix as little-endian doubles. {@link #loadOrBuild(Path, Collection)} reuses
+ * the file when the fingerprint matches and rebuilds it otherwise. Lookups read straight from the mapped pages,
+ * so nothing is copied onto the heap and several JVMs on one host share the same page-cached matrix.
+ */
+public class MappedTransportCostsMatrix extends IndexedTransportCosts {
+
+    private static final int MAGIC = 0x4D56524D; // "MVRM"
+
+    private static final int VERSION = 1;
+
+    // magic, version, number of locations, reserved, fingerprint
+    private static final int HEADER_SIZE = 4 * 4 + LocationFingerprint.LENGTH;
+
+    // Each mapping covers 1 GiB; a multiple of 8, so no double ever straddles two mappings.
+    private static final int REGION_SHIFT = 30;
+
+    private static final long REGION_MASK = (1L << REGION_SHIFT) - 1;
+
+    /**
+     * Maps the matrix stored in {@code file} if it was built for exactly these locations, otherwise computes the
+     * haversine matrix for them, writes it to {@code file} and maps the result.
+     *
+     * @param file      the cache file.
+     * @param locations the locations, indexed {@code 0..n-1}.
+     * @return the mapped matrix.
+     */
+    public static MappedTransportCostsMatrix loadOrBuild(Path file, Collection<Location> locations) {
+        byte[] fingerprint = LocationFingerprint.of(locations);
+        int noLocations = locations.size();
+        try {
+            if (!matches(file, noLocations, fingerprint)) {
+                write(file, fingerprint, GeodesicKernel.of(locations, GeodesicKernel.Mode.HAVERSINE));
+            }
+            return map(file, noLocations);
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot use matrix cache " + file, e);
+        }
+    }
+
+    private static boolean matches(Path file, int noLocations, byte[] fingerprint) throws IOException {
+        if (!Files.isRegularFile(file) || Files.size(file) != HEADER_SIZE + 8L * noLocations * noLocations) {
+            return false;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // keep reading until the header is complete
+            }
+        }
+        header.flip();
+        if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION
+                || header.getInt() != noLocations) {
+            return false;
+        }
+        header.getInt();
+        byte[] stored = new byte[LocationFingerprint.LENGTH];
+        header.get(stored);
+        return Arrays.equals(stored, fingerprint);
+    }
+
+    private static void write(Path file, byte[] fingerprint, GeodesicKernel kernel) throws IOException {
+        final int n = kernel.size();
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        // Write next to the target and move it into place, so concurrent readers never map a half-written file.
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(0).put(fingerprint);
+                header.flip();
+                while (header.hasRemaining()) {
+                    channel.write(header);
+                }
+                // The matrix never exists on the heap: rows are computed into per-task buffers and stored
+                // straight into writable mappings of the file, so n is not limited by the maximum array length.
+                final MappedByteBuffer[] regions = mapRegions(channel, n, FileChannel.MapMode.READ_WRITE);
+                ParallelDistanceMatrix.fill(kernel, new ParallelDistanceMatrix.RowSink() {
+                    @Override
+                    public void putRow(int i, double[] row, int fromColumn) {
+                        for (int j = fromColumn; j < n; j++) {
+                            put(regions, ((long) i * n + j) << 3, row[j]);
+                            put(regions, ((long) j * n + i) << 3, row[j]);
+                        }
+                    }
+                }, ForkJoinPool.commonPool());
+                for (MappedByteBuffer region : regions) {
+                    region.force();
+                }
+                channel.force(false);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static void put(MappedByteBuffer[] regions, long position, double value) {
+        // Absolute puts do not touch the buffer's position, so rows can be stored concurrently.
+        regions[(int) (position >>> REGION_SHIFT)].putDouble((int) (position & REGION_MASK), value);
+    }
+
+    private static MappedTransportCostsMatrix map(Path file, int noLocations) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mappings stay valid after the channel is closed.
+            return new MappedTransportCostsMatrix(noLocations,
+                    mapRegions(channel, noLocations, FileChannel.MapMode.READ_ONLY));
+        }
+    }
+
+    private static MappedByteBuffer[] mapRegions(FileChannel channel, int noLocations, FileChannel.MapMode mode)
+            throws IOException {
+        long dataSize = 8L * noLocations * noLocations;
+        int noRegions = (int) ((dataSize + REGION_MASK) >>> REGION_SHIFT);
+        MappedByteBuffer[] regions = new MappedByteBuffer[noRegions];
+        for (int r = 0; r < noRegions; r++) {
+            long offset = (long) r << REGION_SHIFT;
+            long size = Math.min(1L << REGION_SHIFT, dataSize - offset);
+            regions[r] = channel.map(mode, HEADER_SIZE + offset, size);
+            regions[r].order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return regions;
+    }
+
+    private final int noLocations;
+
+    private final MappedByteBuffer[] regions;
+
+    private MappedTransportCostsMatrix(int noLocations, MappedByteBuffer[] regions) {
+        this.noLocations = noLocations;
+        this.regions = regions;
+    }
+
+    @Override
+    public int getNoLocations() {
+        return noLocations;
+    }
+
+    @Override
+    public double getDistance(int fromIndex, int toIndex) {
+        long position = ((long) fromIndex * noLocations + toIndex) << 3;
+        // Absolute gets do not touch the buffer's position, so concurrent readers are safe.
+        return regions[(int) (position >>> REGION_SHIFT)].getDouble((int) (position & REGION_MASK));
+    }
+
+    @Override
+    public double getTransportTime(int fromIndex, int toIndex) {
+        return 0.0;
+    }
+}
@@ -0,0 +1,257 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.algorithm.VehicleRoutingAlgorithm;
+import com.graphhopper.jsprit.core.algorithm.box.Jsprit;
+import com.graphhopper.jsprit.core.algorithm.listener.IterationEndsListener;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.util.Solutions;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Races several independently seeded jsprit runs on one shared, immutable {@link VehicleRoutingProblem}
+ * and returns the best solution any of them found.
+ * <p>
+ * Run 0 uses jsprit's default strategy weights; every other run draws its own random weights, so the runs explore
+ * differently rather than repeating the same search. All runs stop when the global wall-clock budget is spent or,
+ * if a convergence window is set, as soon as one run has gone that many iterations without improvement.
+ * The problem's transport costs are shared by all runs and must be thread-safe; every cost model in this package is.
+ */
+public class MultiStartSolver {
+
+    /**
+     * Builder for {@link MultiStartSolver}.
+     */
+    public static class Builder {
+
+        public static Builder newInstance(VehicleRoutingProblem problem) {
+            return new Builder(problem);
+        }
+
+        private final VehicleRoutingProblem problem;
+
+        private int noRuns = Runtime.getRuntime().availableProcessors();
+
+        private long baseSeed = 42;
+
+        private int maxIterations = -1;
+
+        private long timeBudgetMillis = -1;
+
+        private int convergenceWindow = -1;
+
+        private Builder(VehicleRoutingProblem problem) {
+            this.problem = problem;
+        }
+
+        /**
+         * Sets the number of concurrent runs. Defaults to the number of available processors.
+         */
+        public Builder setNoRuns(int noRuns) {
+            if (noRuns < 1) {
+                throw new IllegalArgumentException("number of runs must be positive");
+            }
+            this.noRuns = noRuns;
+            return this;
+        }
+
+        /**
+         * Sets the seed of run 0; run {@code k} uses {@code baseSeed + k}.
+         */
+        public Builder setBaseSeed(long baseSeed) {
+            this.baseSeed = baseSeed;
+            return this;
+        }
+
+        /**
+         * Sets the iteration limit of each run. Defaults to jsprit's own limit.
+         */
+        public Builder setMaxIterations(int maxIterations) {
+            this.maxIterations = maxIterations;
+            return this;
+        }
+
+        /**
+         * Sets the wall-clock budget shared by all runs.
+         */
+        public Builder setTimeBudget(long timeBudget, TimeUnit unit) {
+            this.timeBudgetMillis = unit.toMillis(timeBudget);
+            return this;
+        }
+
+        /**
+         * Declares a run converged after this many iterations without improvement; the first run to converge
+         * stops all others.
+         */
+        public Builder setConvergenceWindow(int iterations) {
+            this.convergenceWindow = iterations;
+            return this;
+        }
+
+        public MultiStartSolver build() {
+            return new MultiStartSolver(this);
+        }
+    }
+
+    /**
+     * Outcome of a single run.
+     */
+    public static class Run {
+
+        private final long seed;
+
+        private final VehicleRoutingProblemSolution bestSolution;
+
+        private final int iterations;
+
+        private final long millis;
+
+        Run(long seed, VehicleRoutingProblemSolution bestSolution, int iterations, long millis) {
+            this.seed = seed;
+            this.bestSolution = bestSolution;
+            this.iterations = iterations;
+            this.millis = millis;
+        }
+
+        public long getSeed() {
+            return seed;
+        }
+
+        public VehicleRoutingProblemSolution getBestSolution() {
+            return bestSolution;
+        }
+
+        public int getIterations() {
+            return iterations;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+
+        @Override
+        public String toString() {
+            return "[seed=" + seed + "][cost=" + bestSolution.getCost() + "][iterations=" + iterations
+                    + "][millis=" + millis + "]";
+        }
+    }
+
+    private final VehicleRoutingProblem problem;
+
+    private final int noRuns;
+
+    private final long baseSeed;
+
+    private final int maxIterations;
+
+    private final long timeBudgetMillis;
+
+    private final int convergenceWindow;
+
+    private final List<Run> runs = new ArrayList<>();
+
+    private MultiStartSolver(Builder builder) {
+        this.problem = builder.problem;
+        this.noRuns = builder.noRuns;
+        this.baseSeed = builder.baseSeed;
+        this.maxIterations = builder.maxIterations;
+        this.timeBudgetMillis = builder.timeBudgetMillis;
+        this.convergenceWindow = builder.convergenceWindow;
+    }
+
+    /**
+     * Runs all searches concurrently and blocks until every run has stopped.
+     *
+     * @return the best solution over all runs.
+     */
+    public VehicleRoutingProblemSolution solve() {
+        final AtomicBoolean stop = new AtomicBoolean();
+        final long deadline = System.nanoTime() + timeBudgetMillis * 1_000_000L;
+        ExecutorService executor = Executors.newFixedThreadPool(noRuns);
+        try {
+            List<Future<Run>> futures = new ArrayList<>();
+            for (int k = 0; k < noRuns; k++) {
+                final int runIndex = k;
+                futures.add(executor.submit(new Callable<Run>() {
+                    @Override
+                    public Run call() {
+                        return run(runIndex, stop, deadline);
+                    }
+                }));
+            }
+            List<Run> finished = new ArrayList<>();
+            for (Future<Run> future : futures) {
+                finished.add(future.get());
+            }
+            synchronized (runs) {
+                runs.clear();
+                runs.addAll(finished);
+            }
+            VehicleRoutingProblemSolution best = null;
+            for (Run run : finished) {
+                if (best == null || run.getBestSolution().getCost() < best.getCost()) {
+                    best = run.getBestSolution();
+                }
+            }
+            return best;
+        } catch (InterruptedException e) {
+            stop.set(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for solver runs", e);
+        } catch (ExecutionException e) {
+            stop.set(true);
+            throw new IllegalStateException("solver run failed", e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * @return the outcome of every run of the last {@link #solve()}, in run order.
+     */
+    public List<Run> getRuns() {
+        synchronized (runs) {
+            return Collections.unmodifiableList(new ArrayList<>(runs));
+        }
+    }
+
+    private Run run(int runIndex, AtomicBoolean stop, long deadline) {
+        long seed = baseSeed + runIndex;
+        Jsprit.Builder jsprit = Jsprit.Builder.newInstance(problem).setRandom(new Random(seed));
+        if (runIndex > 0) {
+            Random weights = new Random(seed);
+            for (Jsprit.Strategy strategy : Jsprit.Strategy.values()) {
+                jsprit.setProperty(strategy, String.valueOf(0.1 + 0.9 * weights.nextDouble()));
+            }
+        }
+        VehicleRoutingAlgorithm algorithm = jsprit.buildAlgorithm();
+        if (maxIterations > 0) {
+            algorithm.setMaxIterations(maxIterations);
+        }
+        algorithm.addTerminationCriterion(new ConvergenceTermination(stop, timeBudgetMillis >= 0, deadline,
+                convergenceWindow));
+        final int[] iterations = new int[1];
+        algorithm.addListener(new IterationEndsListener() {
+            @Override
+            public void informIterationEnds(int i, VehicleRoutingProblem problem,
+                                            Collection<VehicleRoutingProblemSolution> solutions) {
+                iterations[0] = i;
+            }
+        });
+        long start = System.nanoTime();
+        VehicleRoutingProblemSolution best = Solutions.bestOf(algorithm.searchSolutions());
+        return new Run(seed, best, iterations[0], (System.nanoTime() - start) / 1_000_000L);
+    }
+}
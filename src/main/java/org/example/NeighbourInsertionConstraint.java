@@ -0,0 +1,48 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.problem.constraint.HardActivityConstraint;
+import com.graphhopper.jsprit.core.problem.misc.JobInsertionContext;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.End;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.Start;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+
+/**
+ * Prunes insertion positions to geographic neighbours: an activity may only be inserted next to an activity whose
+ * location is among its {@code k} nearest neighbours, or that has it among its own.
+ * <p>
+ * This skips the cost calculation for most positions of large instances, whose cheapest insertion is almost always
+ * next to a neighbour anyway, at the price of a narrower search: on clustered instances of a few hundred stops it
+ * found solutions a few percent more expensive in the same number of iterations, so measure before enabling it.
+ * Insertions right after the route start or before its end are always allowed. Register it with:
+ * <pre>
+ * StateManager states = new StateManager(problem);
+ * ConstraintManager constraints = new ConstraintManager(problem, states);
+ * constraints.addConstraint(new NeighbourInsertionConstraint(costs), ConstraintManager.Priority.HIGH);
+ * Jsprit.Builder.newInstance(problem).setStateAndConstraintManager(states, constraints).buildAlgorithm();
+ * </pre>
+ */
+public class NeighbourInsertionConstraint implements HardActivityConstraint {
+
+    private final SparseTransportCosts costs;
+
+    public NeighbourInsertionConstraint(SparseTransportCosts costs) {
+        this.costs = costs;
+    }
+
+    @Override
+    public ConstraintsStatus fulfilled(JobInsertionContext iFacts, TourActivity prevAct, TourActivity newAct,
+                                      TourActivity nextAct, double prevActDepTime) {
+        if (prevAct instanceof Start || nextAct instanceof End) {
+            return ConstraintsStatus.FULFILLED;
+        }
+        int location = newAct.getLocation().getIndex();
+        if (isClose(location, prevAct.getLocation().getIndex()) || isClose(location, nextAct.getLocation().getIndex())) {
+            return ConstraintsStatus.FULFILLED;
+        }
+        return ConstraintsStatus.NOT_FULFILLED;
+    }
+
+    private boolean isClose(int a, int b) {
+        return a == b || costs.isNeighbour(a, b) || costs.isNeighbour(b, a);
+    }
+}
@@ -0,0 +1,153 @@
+package org.example;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fills a dense, row-major distance matrix from a {@link GeodesicKernel} on a {@link ForkJoinPool}.
+ * <p>
+ * Only the upper triangle is computed, one row slice at a time through {@link GeodesicKernel#fillRow}; every
+ * value is mirrored into the lower triangle and the diagonal is left at zero. Rows are handed out in folded pairs
+ * (row {@code i} together with row {@code n - 2 - i}) so every unit of work covers the same number of cells,
+ * which keeps the split balanced even though upper-triangle rows shrink.
+ * <p>
+ * Matrices too large for one array ({@code n > 46340}) are filled through a {@link RowSink} instead, which
+ * receives every upper-triangle row slice in a per-task buffer and stores it wherever the matrix lives.
+ */
+public final class ParallelDistanceMatrix {
+
+    // Number of matrix cells below which a task is computed directly instead of being split further.
+    private static final int SEQUENTIAL_THRESHOLD = 16 * 1024;
+
+    private ParallelDistanceMatrix() {
+    }
+
+    /**
+     * Computes the distance between every pair of kernel points into {@code out}.
+     *
+     * @param kernel the points and distance mode.
+     * @param out    the row-major target of length {@code n * n}.
+     * @param pool   the pool to run on.
+     */
+    public static void fill(GeodesicKernel kernel, double[] out, ForkJoinPool pool) {
+        int n = kernel.size();
+        if (out.length != (long) n * n) {
+            throw new IllegalArgumentException("matrix of length " + out.length + " does not fit " + n + " points");
+        }
+        // n - 1 rows carry upper-triangle cells; fold them into ceil((n - 1) / 2) equally sized pairs.
+        pool.invoke(new ArrayTask(kernel, out, 0, n / 2));
+    }
+
+    /**
+     * Computes the upper triangle of the matrix row slice by row slice and hands each slice to {@code sink}.
+     * Slices of different rows may be delivered concurrently.
+     *
+     * @param kernel the points and distance mode.
+     * @param sink   the receiver of the row slices.
+     * @param pool   the pool to run on.
+     */
+    public static void fill(GeodesicKernel kernel, RowSink sink, ForkJoinPool pool) {
+        pool.invoke(new SinkTask(kernel, sink, 0, kernel.size() / 2));
+    }
+
+    /**
+     * Receives the upper triangle of a distance matrix one row slice at a time.
+     */
+    public interface RowSink {
+
+        /**
+         * Stores the distances {@code row[j]} from point {@code i} to every point {@code j} in
+         * {@code [fromColumn, n)}, and usually their mirror at {@code (j, i)}. The buffer is reused once this
+         * returns.
+         */
+        void putRow(int i, double[] row, int fromColumn);
+    }
+
+    private abstract static class RowPairTask extends RecursiveAction {
+
+        final GeodesicKernel kernel;
+
+        private final int fromPair;
+
+        private final int toPair;
+
+        RowPairTask(GeodesicKernel kernel, int fromPair, int toPair) {
+            this.kernel = kernel;
+            this.fromPair = fromPair;
+            this.toPair = toPair;
+        }
+
+        @Override
+        protected void compute() {
+            int n = kernel.size();
+            if ((long) (toPair - fromPair) * n <= SEQUENTIAL_THRESHOLD || toPair - fromPair == 1) {
+                for (int pair = fromPair; pair < toPair; pair++) {
+                    computeRow(pair);
+                    int mirrored = n - 2 - pair;
+                    if (mirrored != pair) {
+                        computeRow(mirrored);
+                    }
+                }
+                return;
+            }
+            int mid = (fromPair + toPair) >>> 1;
+            invokeAll(split(fromPair, mid), split(mid, toPair));
+        }
+
+        abstract RowPairTask split(int fromPair, int toPair);
+
+        abstract void computeRow(int i);
+    }
+
+    private static final class ArrayTask extends RowPairTask {
+
+        private final double[] out;
+
+        ArrayTask(GeodesicKernel kernel, double[] out, int fromPair, int toPair) {
+            super(kernel, fromPair, toPair);
+            this.out = out;
+        }
+
+        @Override
+        RowPairTask split(int fromPair, int toPair) {
+            return new ArrayTask(kernel, out, fromPair, toPair);
+        }
+
+        @Override
+        void computeRow(int i) {
+            int n = kernel.size();
+            int rowOffset = i * n;
+            kernel.fillRow(i, out, rowOffset, i + 1, n);
+            for (int j = i + 1; j < n; j++) {
+                out[j * n + i] = out[rowOffset + j];
+            }
+        }
+    }
+
+    private static final class SinkTask extends RowPairTask {
+
+        private final RowSink sink;
+
+        // Allocated by the leaf task that computes rows, so each thread writes its own buffer.
+        private double[] row;
+
+        SinkTask(GeodesicKernel kernel, RowSink sink, int fromPair, int toPair) {
+            super(kernel, fromPair, toPair);
+            this.sink = sink;
+        }
+
+        @Override
+        RowPairTask split(int fromPair, int toPair) {
+            return new SinkTask(kernel, sink, fromPair, toPair);
+        }
+
+        @Override
+        void computeRow(int i) {
+            if (row == null) {
+                row = new double[kernel.size()];
+            }
+            kernel.fillRow(i, row, 0, i + 1, kernel.size());
+            sink.putRow(i, row, i + 1);
+        }
+    }
+}
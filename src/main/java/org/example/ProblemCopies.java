@@ -0,0 +1,100 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.job.Delivery;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Pickup;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+
+/**
+ * Copies of jsprit problem objects for building derived problems.
+ * <p>
+ * {@code VehicleRoutingProblem.Builder} assigns indices to the jobs and vehicles it is given, so a job or vehicle
+ * must never be added to two problems that are alive at the same time. Derived problems (sub-problems, variants)
+ * therefore work on copies and are mapped back to the originals by id.
+ */
+public final class ProblemCopies {
+
+    private ProblemCopies() {
+    }
+
+    /**
+     * @return a copy of {@code location} carrying {@code index}.
+     */
+    public static Location withIndex(Location location, int index) {
+        return Location.Builder.newInstance()
+                .setId(location.getId())
+                .setIndex(index)
+                .setCoordinate(location.getCoordinate())
+                .setName(location.getName())
+                .setUserData(location.getUserData())
+                .build();
+    }
+
+    /**
+     * @return a copy of {@code service} (or {@link Pickup}/{@link Delivery}) served at {@code location}.
+     */
+    public static Service copyOf(Service service, Location location) {
+        Service.Builder<?> builder;
+        if (service instanceof Pickup) {
+            builder = Pickup.Builder.newInstance(service.getId());
+        } else if (service instanceof Delivery) {
+            builder = Delivery.Builder.newInstance(service.getId());
+        } else {
+            builder = Service.Builder.newInstance(service.getId());
+        }
+        builder.setLocation(location)
+                .setServiceTime(service.getServiceDuration())
+                .addAllSizeDimensions(service.getSize())
+                .addAllTimeWindows(service.getTimeWindows())
+                .addAllRequiredSkills(service.getRequiredSkills())
+                .setName(service.getName())
+                .setPriority(service.getPriority());
+        // jsprit only accepts a maximum time in vehicle for deliveries.
+        if (service instanceof Delivery && service.getMaxTimeInVehicle() < Double.MAX_VALUE) {
+            builder.setMaxTimeInVehicle(service.getMaxTimeInVehicle());
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return a copy of {@code vehicle} starting at {@code start} and, if it returns to a depot, ending at
+     * {@code end}.
+     */
+    public static Vehicle copyOf(Vehicle vehicle, Location start, Location end) {
+        VehicleImpl.Builder builder = VehicleImpl.Builder.newInstance(vehicle).setStartLocation(start);
+        if (vehicle.isReturnToDepot()) {
+            builder.setEndLocation(end);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Appends the job of a service activity to a route under construction, using the matching builder method.
+     */
+    static void addJob(VehicleRoute.Builder builder, Job job) {
+        if (job instanceof Pickup) {
+            builder.addPickup((Pickup) job);
+        } else if (job instanceof Delivery) {
+            builder.addDelivery((Delivery) job);
+        } else if (job instanceof Service) {
+            builder.addService((Service) job);
+        } else {
+            throw new IllegalArgumentException("job " + job.getId() + " is not a service");
+        }
+    }
+
+    /**
+     * @return the job served by {@code activity}, or null for activities without a job.
+     */
+    static Job jobOf(TourActivity activity) {
+        if (activity instanceof TourActivity.JobActivity) {
+            return ((TourActivity.JobActivity) activity).getJob();
+        }
+        return null;
+    }
+}
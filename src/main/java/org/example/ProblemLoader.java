@@ -0,0 +1,775 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleType;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import com.graphhopper.jsprit.core.util.Coordinate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Loads depots, vehicle types, vehicles and services from a CSV or binary file into primitive arrays, from which
+ * any number of {@link VehicleRoutingProblem.Builder}s can be created.
+ * <p>
+ * CSV files have one record per line; the first field names the record, {@code #} starts a comment line and fields
+ * are not quoted. Coordinates follow jsprit's convention, x is the longitude and y the latitude:
+ * <pre>
+ * depot,&lt;id&gt;,&lt;x&gt;,&lt;y&gt;
+ * type,&lt;id&gt;,&lt;capacity 0&gt;[,&lt;capacity 1&gt;...]
+ * vehicle,&lt;id&gt;,&lt;type id&gt;,&lt;depot id&gt;
+ * service,&lt;id&gt;,&lt;x&gt;,&lt;y&gt;,&lt;size 0&gt;[,&lt;size 1&gt;...]
+ * </pre>
+ * The binary format, written by {@link #writeBinary(Path)}, holds the same arrays little-endian behind a small
+ * header. Both formats are parsed from bytes, of a memory-mapped file or of a buffer already in memory; only ids
+ * become Strings.
+ * <p>
+ * {@link #getLocations()} lists the depots followed by the services, indexed by position, so the list can be handed
+ * to {@link DenseTransportCostsMatrix} or {@link MappedTransportCostsMatrix} as is.
+ */
+public final class ProblemLoader {
+
+    private static final int MAGIC = 0x4D565250; // "MVRP"
+
+    private static final int VERSION = 1;
+
+    private static final byte[] DEPOT = ascii("depot");
+
+    private static final byte[] TYPE = ascii("type");
+
+    private static final byte[] VEHICLE = ascii("vehicle");
+
+    private static final byte[] SERVICE = ascii("service");
+
+    private final int noDimensions;
+
+    private final String[] typeIds;
+
+    // noTypes x noDimensions, row-major
+    private final int[] typeCapacities;
+
+    private final String[] depotIds;
+
+    private final double[] depotX;
+
+    private final double[] depotY;
+
+    private final String[] vehicleIds;
+
+    private final int[] vehicleTypes;
+
+    private final int[] vehicleDepots;
+
+    private final String[] serviceIds;
+
+    private final double[] serviceX;
+
+    private final double[] serviceY;
+
+    // noServices x noDimensions, row-major
+    private final int[] serviceSizes;
+
+    private final long noBytes;
+
+    private final long parseNanos;
+
+    private List<Location> locations;
+
+    private ProblemLoader(Columns columns, long noBytes, long parseNanos) {
+        this.noDimensions = columns.noDimensions;
+        this.typeIds = Arrays.copyOf(columns.typeIds, columns.noTypes);
+        this.typeCapacities = Arrays.copyOf(columns.typeCapacities, columns.noTypes * noDimensions);
+        this.depotIds = Arrays.copyOf(columns.depotIds, columns.noDepots);
+        this.depotX = Arrays.copyOf(columns.depotX, columns.noDepots);
+        this.depotY = Arrays.copyOf(columns.depotY, columns.noDepots);
+        this.vehicleIds = Arrays.copyOf(columns.vehicleIds, columns.noVehicles);
+        this.vehicleTypes = Arrays.copyOf(columns.vehicleTypes, columns.noVehicles);
+        this.vehicleDepots = Arrays.copyOf(columns.vehicleDepots, columns.noVehicles);
+        this.serviceIds = Arrays.copyOf(columns.serviceIds, columns.noServices);
+        this.serviceX = Arrays.copyOf(columns.serviceX, columns.noServices);
+        this.serviceY = Arrays.copyOf(columns.serviceY, columns.noServices);
+        this.serviceSizes = Arrays.copyOf(columns.serviceSizes, columns.noServices * noDimensions);
+        this.noBytes = noBytes;
+        this.parseNanos = parseNanos;
+    }
+
+    /**
+     * Loads a binary file if its name ends in {@code .bin} and a CSV file otherwise.
+     */
+    public static ProblemLoader load(Path file) {
+        return file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".bin") ? loadBinary(file) : loadCsv(file);
+    }
+
+    public static ProblemLoader loadCsv(Path file) {
+        long start = System.nanoTime();
+        try {
+            ByteBuffer buffer = map(file);
+            Columns columns = new CsvParser(buffer, file.toString()).parse();
+            return new ProblemLoader(columns, buffer.capacity(), System.nanoTime() - start);
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot read problem " + file, e);
+        }
+    }
+
+    public static ProblemLoader loadBinary(Path file) {
+        long start = System.nanoTime();
+        try {
+            ByteBuffer buffer = map(file).order(ByteOrder.LITTLE_ENDIAN);
+            Columns columns = readBinary(buffer, file.toString());
+            return new ProblemLoader(columns, buffer.capacity(), System.nanoTime() - start);
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot read problem " + file, e);
+        }
+    }
+
+    /**
+     * Parses CSV content that is already in memory, e.g. a request body.
+     *
+     * @param in     the content, from its position to its limit.
+     * @param source names the content in error messages.
+     */
+    public static ProblemLoader loadCsv(ByteBuffer in, String source) {
+        long start = System.nanoTime();
+        int noBytes = in.remaining();
+        return new ProblemLoader(new CsvParser(in.slice(), source).parse(), noBytes, System.nanoTime() - start);
+    }
+
+    /**
+     * Reads binary content that is already in memory, e.g. a request body.
+     *
+     * @param in     the content, from its position to its limit.
+     * @param source names the content in error messages.
+     */
+    public static ProblemLoader loadBinary(ByteBuffer in, String source) {
+        long start = System.nanoTime();
+        int noBytes = in.remaining();
+        return new ProblemLoader(readBinary(in.slice().order(ByteOrder.LITTLE_ENDIAN), source), noBytes,
+                System.nanoTime() - start);
+    }
+
+    /**
+     * @return the depots followed by the service locations, each indexed by its position in the list.
+     */
+    public synchronized List<Location> getLocations() {
+        if (locations == null) {
+            List<Location> list = new ArrayList<>(depotIds.length + serviceIds.length);
+            for (int i = 0; i < depotIds.length; i++) {
+                list.add(location(depotIds[i], list.size(), depotX[i], depotY[i]));
+            }
+            for (int i = 0; i < serviceIds.length; i++) {
+                list.add(location(serviceIds[i], list.size(), serviceX[i], serviceY[i]));
+            }
+            locations = Collections.unmodifiableList(list);
+        }
+        return locations;
+    }
+
+    /**
+     * Creates a problem builder holding new vehicles and services; the caller adds transport costs and may change
+     * the fleet size before building.
+     */
+    public VehicleRoutingProblem.Builder newProblemBuilder() {
+        List<Location> all = getLocations();
+        VehicleType[] types = new VehicleType[typeIds.length];
+        for (int t = 0; t < types.length; t++) {
+            VehicleTypeImpl.Builder type = VehicleTypeImpl.Builder.newInstance(typeIds[t]);
+            for (int d = 0; d < noDimensions; d++) {
+                type.addCapacityDimension(d, typeCapacities[t * noDimensions + d]);
+            }
+            types[t] = type.build();
+        }
+        VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance();
+        for (int v = 0; v < vehicleIds.length; v++) {
+            builder.addVehicle(VehicleImpl.Builder.newInstance(vehicleIds[v])
+                    .setStartLocation(all.get(vehicleDepots[v]))
+                    .setType(types[vehicleTypes[v]])
+                    .build());
+        }
+        for (int s = 0; s < serviceIds.length; s++) {
+            Service.Builder<?> service = Service.Builder.newInstance(serviceIds[s])
+                    .setLocation(all.get(depotIds.length + s));
+            for (int d = 0; d < noDimensions; d++) {
+                service.addSizeDimension(d, serviceSizes[s * noDimensions + d]);
+            }
+            builder.addJob(service.build());
+        }
+        return builder;
+    }
+
+    /**
+     * Writes the loaded problem in the binary format, e.g. to convert a CSV manifest once for faster loading.
+     */
+    public void writeBinary(Path file) {
+        int size = 4 * 8;
+        for (String id : typeIds) {
+            size += stringSize(id) + 4 * noDimensions;
+        }
+        for (String id : depotIds) {
+            size += stringSize(id) + 16;
+        }
+        for (String id : vehicleIds) {
+            size += stringSize(id) + 8;
+        }
+        for (String id : serviceIds) {
+            size += stringSize(id) + 16 + 4 * noDimensions;
+        }
+        ByteBuffer out = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(MAGIC).putInt(VERSION).putInt(noDimensions).putInt(typeIds.length).putInt(depotIds.length)
+                .putInt(vehicleIds.length).putInt(serviceIds.length).putInt(0);
+        for (int t = 0; t < typeIds.length; t++) {
+            putString(out, typeIds[t]);
+            for (int d = 0; d < noDimensions; d++) {
+                out.putInt(typeCapacities[t * noDimensions + d]);
+            }
+        }
+        for (int i = 0; i < depotIds.length; i++) {
+            putString(out, depotIds[i]);
+            out.putDouble(depotX[i]).putDouble(depotY[i]);
+        }
+        for (int v = 0; v < vehicleIds.length; v++) {
+            putString(out, vehicleIds[v]);
+            out.putInt(vehicleTypes[v]).putInt(vehicleDepots[v]);
+        }
+        for (int s = 0; s < serviceIds.length; s++) {
+            putString(out, serviceIds[s]);
+            out.putDouble(serviceX[s]).putDouble(serviceY[s]);
+            for (int d = 0; d < noDimensions; d++) {
+                out.putInt(serviceSizes[s * noDimensions + d]);
+            }
+        }
+        out.flip();
+        try {
+            Path tmp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+            try {
+                try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                    while (out.hasRemaining()) {
+                        channel.write(out);
+                    }
+                }
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException | RuntimeException e) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot write problem " + file, e);
+        }
+    }
+
+    public int getNoDepots() {
+        return depotIds.length;
+    }
+
+    public int getNoVehicles() {
+        return vehicleIds.length;
+    }
+
+    public int getNoServices() {
+        return serviceIds.length;
+    }
+
+    public int getNoDimensions() {
+        return noDimensions;
+    }
+
+    /**
+     * @return the size of the file that was parsed.
+     */
+    public long getNoBytes() {
+        return noBytes;
+    }
+
+    /**
+     * @return the time it took to map and parse the file.
+     */
+    public long getParseNanos() {
+        return parseNanos;
+    }
+
+    @Override
+    public String toString() {
+        int records = typeIds.length + depotIds.length + vehicleIds.length + serviceIds.length;
+        double seconds = parseNanos / 1e9;
+        return String.format(Locale.ROOT, "[records=%d][bytes=%d][millis=%.1f][MB/s=%.1f][records/s=%.0f]",
+                records, noBytes, parseNanos / 1e6, noBytes / 1e6 / seconds, records / seconds);
+    }
+
+    private static Location location(String id, int index, double x, double y) {
+        return Location.Builder.newInstance()
+                .setId(id)
+                .setIndex(index)
+                .setCoordinate(Coordinate.newInstance(x, y))
+                .build();
+    }
+
+    private static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(file + " is larger than 2 GiB");
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static Columns readBinary(ByteBuffer in, String source) {
+        try {
+            return readColumns(in, source);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException(source + " is truncated or corrupt");
+        }
+    }
+
+    private static Columns readColumns(ByteBuffer in, String source) {
+        if (in.remaining() < 32 || in.getInt() != MAGIC || in.getInt() != VERSION) {
+            throw new IllegalArgumentException(source + " is not a problem file of version " + VERSION);
+        }
+        Columns columns = new Columns();
+        columns.noDimensions = in.getInt();
+        int noTypes = in.getInt();
+        int noDepots = in.getInt();
+        int noVehicles = in.getInt();
+        int noServices = in.getInt();
+        in.getInt();
+        if (columns.noDimensions < 0 || noTypes < 0 || noDepots < 0 || noVehicles < 0 || noServices < 0) {
+            throw new IllegalArgumentException(source + " has a negative record count");
+        }
+        byte[] scratch = new byte[256];
+        for (int t = 0; t < noTypes; t++) {
+            String id = getString(in, scratch);
+            columns.startType(id);
+            for (int d = 0; d < columns.noDimensions; d++) {
+                columns.addCapacity(d, in.getInt());
+            }
+        }
+        for (int i = 0; i < noDepots; i++) {
+            String id = getString(in, scratch);
+            double x = in.getDouble();
+            columns.addDepot(id, x, in.getDouble());
+        }
+        for (int v = 0; v < noVehicles; v++) {
+            String id = getString(in, scratch);
+            int type = in.getInt();
+            int depot = in.getInt();
+            if (type < 0 || type >= noTypes) {
+                throw new IllegalArgumentException(source + ": vehicle " + id + " has undefined type " + type);
+            }
+            if (depot < 0 || depot >= noDepots) {
+                throw new IllegalArgumentException(source + ": vehicle " + id + " has undefined depot " + depot);
+            }
+            columns.addVehicle(id, type, depot);
+        }
+        for (int s = 0; s < noServices; s++) {
+            String id = getString(in, scratch);
+            double x = in.getDouble();
+            columns.startService(id, x, in.getDouble());
+            for (int d = 0; d < columns.noDimensions; d++) {
+                columns.addSize(d, in.getInt());
+            }
+        }
+        return columns;
+    }
+
+    private static int stringSize(String s) {
+        return 4 + s.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static void putString(ByteBuffer out, String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.putInt(bytes.length).put(bytes);
+    }
+
+    private static String getString(ByteBuffer in, byte[] scratch) {
+        int length = in.getInt();
+        if (length < 0 || length > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = length <= scratch.length ? scratch : new byte[length];
+        in.get(bytes, 0, length);
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Growable primitive columns the parsers append to. Records are appended field by field; capacity and size
+     * dimensions past the current number of dimensions widen all rows.
+     */
+    private static final class Columns {
+
+        int noDimensions;
+
+        int noTypes;
+
+        String[] typeIds = new String[4];
+
+        int[] typeCapacities = new int[4];
+
+        int noDepots;
+
+        String[] depotIds = new String[4];
+
+        double[] depotX = new double[4];
+
+        double[] depotY = new double[4];
+
+        int noVehicles;
+
+        String[] vehicleIds = new String[16];
+
+        int[] vehicleTypes = new int[16];
+
+        int[] vehicleDepots = new int[16];
+
+        int noServices;
+
+        String[] serviceIds = new String[1024];
+
+        double[] serviceX = new double[1024];
+
+        double[] serviceY = new double[1024];
+
+        int[] serviceSizes = new int[1024];
+
+        void startType(String id) {
+            if (noTypes == typeIds.length) {
+                typeIds = Arrays.copyOf(typeIds, 2 * noTypes);
+            }
+            typeIds[noTypes++] = id;
+            typeCapacities = ensure(typeCapacities, noTypes * Math.max(1, noDimensions));
+        }
+
+        void addCapacity(int dimension, int capacity) {
+            widen(dimension + 1);
+            typeCapacities[(noTypes - 1) * noDimensions + dimension] = capacity;
+        }
+
+        void addDepot(String id, double x, double y) {
+            if (noDepots == depotIds.length) {
+                depotIds = Arrays.copyOf(depotIds, 2 * noDepots);
+                depotX = Arrays.copyOf(depotX, 2 * noDepots);
+                depotY = Arrays.copyOf(depotY, 2 * noDepots);
+            }
+            depotIds[noDepots] = id;
+            depotX[noDepots] = x;
+            depotY[noDepots] = y;
+            noDepots++;
+        }
+
+        void addVehicle(String id, int type, int depot) {
+            if (noVehicles == vehicleIds.length) {
+                vehicleIds = Arrays.copyOf(vehicleIds, 2 * noVehicles);
+                vehicleTypes = Arrays.copyOf(vehicleTypes, 2 * noVehicles);
+                vehicleDepots = Arrays.copyOf(vehicleDepots, 2 * noVehicles);
+            }
+            vehicleIds[noVehicles] = id;
+            vehicleTypes[noVehicles] = type;
+            vehicleDepots[noVehicles] = depot;
+            noVehicles++;
+        }
+
+        void startService(String id, double x, double y) {
+            if (noServices == serviceIds.length) {
+                serviceIds = Arrays.copyOf(serviceIds, 2 * noServices);
+                serviceX = Arrays.copyOf(serviceX, 2 * noServices);
+                serviceY = Arrays.copyOf(serviceY, 2 * noServices);
+            }
+            serviceIds[noServices] = id;
+            serviceX[noServices] = x;
+            serviceY[noServices] = y;
+            noServices++;
+            serviceSizes = ensure(serviceSizes, noServices * Math.max(1, noDimensions));
+        }
+
+        void addSize(int dimension, int size) {
+            widen(dimension + 1);
+            serviceSizes[(noServices - 1) * noDimensions + dimension] = size;
+        }
+
+        // Re-lays out both row-major tables for more dimensions; rare, as all rows normally have the same width.
+        private void widen(int dimensions) {
+            if (dimensions <= noDimensions) {
+                return;
+            }
+            typeCapacities = relayout(typeCapacities, noTypes, noDimensions, dimensions);
+            serviceSizes = relayout(serviceSizes, noServices, noDimensions, dimensions);
+            noDimensions = dimensions;
+        }
+
+        private static int[] relayout(int[] table, int rows, int oldWidth, int newWidth) {
+            int[] wider = new int[Math.max(table.length, rows * newWidth) * 2];
+            for (int r = 0; r < rows; r++) {
+                System.arraycopy(table, r * oldWidth, wider, r * newWidth, oldWidth);
+            }
+            return wider;
+        }
+
+        private static int[] ensure(int[] table, int size) {
+            return size <= table.length ? table : Arrays.copyOf(table, Math.max(size, 2 * table.length));
+        }
+    }
+
+    /**
+     * Parses the CSV format straight from the mapped bytes.
+     */
+    private static final class CsvParser {
+
+        private static final double[] POWERS_OF_TEN = {
+                1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+                1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+        private final ByteBuffer in;
+
+        private final String source;
+
+        private final int limit;
+
+        private int position;
+
+        private int line = 1;
+
+        private byte[] scratch = new byte[64];
+
+        private final Map<String, Integer> typeIndex = new HashMap<>();
+
+        private final Map<String, Integer> depotIndex = new HashMap<>();
+
+        CsvParser(ByteBuffer in, String source) {
+            this.in = in;
+            this.source = source;
+            this.limit = in.limit();
+        }
+
+        Columns parse() {
+            Columns columns = new Columns();
+            while (position < limit) {
+                byte first = in.get(position);
+                if (first == '\n' || first == '\r' || first == '#') {
+                    skipLine();
+                    continue;
+                }
+                if (fieldIs(SERVICE)) {
+                    String id = nextString();
+                    double x = nextDouble();
+                    columns.startService(id, x, nextDouble());
+                    for (int d = 0; hasField(); d++) {
+                        columns.addSize(d, nextInt());
+                    }
+                } else if (fieldIs(DEPOT)) {
+                    String id = nextString();
+                    double x = nextDouble();
+                    depotIndex.put(id, columns.noDepots);
+                    columns.addDepot(id, x, nextDouble());
+                } else if (fieldIs(VEHICLE)) {
+                    String id = nextString();
+                    int type = lookup(typeIndex, nextString(), "type");
+                    columns.addVehicle(id, type, lookup(depotIndex, nextString(), "depot"));
+                } else if (fieldIs(TYPE)) {
+                    String id = nextString();
+                    typeIndex.put(id, columns.noTypes);
+                    columns.startType(id);
+                    for (int d = 0; hasField(); d++) {
+                        columns.addCapacity(d, nextInt());
+                    }
+                } else {
+                    throw error("unknown record " + nextString());
+                }
+                endLine();
+            }
+            return columns;
+        }
+
+        private int lookup(Map<String, Integer> index, String id, String what) {
+            Integer i = index.get(id);
+            if (i == null) {
+                throw error(what + " " + id + " must be declared before it is used");
+            }
+            return i;
+        }
+
+        // Consumes the first field if it equals the given name.
+        private boolean fieldIs(byte[] name) {
+            int end = position + name.length;
+            if (end >= limit || in.get(end) != ',') {
+                return false;
+            }
+            for (int i = 0; i < name.length; i++) {
+                if (in.get(position + i) != name[i]) {
+                    return false;
+                }
+            }
+            position = end + 1;
+            return true;
+        }
+
+        private boolean hasField() {
+            return position < limit && in.get(position) != '\n' && in.get(position) != '\r';
+        }
+
+        private int fieldEnd() {
+            int end = position;
+            while (end < limit) {
+                byte b = in.get(end);
+                if (b == ',' || b == '\n' || b == '\r') {
+                    break;
+                }
+                end++;
+            }
+            return end;
+        }
+
+        // Moves past the field ending at end and its separator, if it is a comma.
+        private void finishField(int end) {
+            position = end < limit && in.get(end) == ',' ? end + 1 : end;
+        }
+
+        private String nextString() {
+            int end = fieldEnd();
+            int length = end - position;
+            if (length > scratch.length) {
+                scratch = new byte[Math.max(length, 2 * scratch.length)];
+            }
+            boolean ascii = true;
+            for (int i = 0; i < length; i++) {
+                byte b = in.get(position + i);
+                scratch[i] = b;
+                ascii &= b >= 0;
+            }
+            finishField(end);
+            return new String(scratch, 0, length, ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+        }
+
+        private int nextInt() {
+            int end = fieldEnd();
+            int i = position;
+            boolean negative = i < end && in.get(i) == '-';
+            if (negative || (i < end && in.get(i) == '+')) {
+                i++;
+            }
+            if (i == end) {
+                throw error("expected an integer");
+            }
+            long value = 0;
+            for (; i < end; i++) {
+                int digit = in.get(i) - '0';
+                if (digit < 0 || digit > 9) {
+                    throw error("expected an integer");
+                }
+                value = value * 10 + digit;
+                if (value > Integer.MAX_VALUE + 1L) {
+                    throw error("integer out of range");
+                }
+            }
+            value = negative ? -value : value;
+            if (value > Integer.MAX_VALUE) {
+                throw error("integer out of range");
+            }
+            finishField(end);
+            return (int) value;
+        }
+
+        // Exact for up to 15 significant digits and exponents up to 22, which covers coordinates; everything else
+        // goes through Double.parseDouble.
+        private double nextDouble() {
+            int end = fieldEnd();
+            int i = position;
+            boolean negative = i < end && in.get(i) == '-';
+            if (negative || (i < end && in.get(i) == '+')) {
+                i++;
+            }
+            long mantissa = 0;
+            int digits = 0;
+            int scale = 0;
+            boolean dot = false;
+            boolean sawDigit = false;
+            boolean fast = true;
+            for (; i < end; i++) {
+                byte b = in.get(i);
+                if (b >= '0' && b <= '9') {
+                    sawDigit = true;
+                    if (mantissa != 0 || b != '0') {
+                        digits++;
+                    }
+                    mantissa = mantissa * 10 + (b - '0');
+                    if (dot) {
+                        scale--;
+                    }
+                    if (digits > 15) {
+                        fast = false;
+                        break;
+                    }
+                } else if (b == '.' && !dot) {
+                    dot = true;
+                } else {
+                    fast = false;
+                    break;
+                }
+            }
+            double value;
+            if (fast && sawDigit && scale >= -22) {
+                value = scale < 0 ? mantissa / POWERS_OF_TEN[-scale] : mantissa * POWERS_OF_TEN[scale];
+                value = negative ? -value : value;
+            } else {
+                String text = new String(bytes(position, end), StandardCharsets.ISO_8859_1);
+                try {
+                    value = Double.parseDouble(text);
+                } catch (NumberFormatException e) {
+                    throw error("expected a number but got " + text);
+                }
+            }
+            finishField(end);
+            return value;
+        }
+
+        private byte[] bytes(int from, int to) {
+            byte[] bytes = new byte[to - from];
+            for (int i = from; i < to; i++) {
+                bytes[i - from] = in.get(i);
+            }
+            return bytes;
+        }
+
+        private void endLine() {
+            if (hasField()) {
+                throw error("unexpected field " + nextString());
+            }
+            skipLine();
+        }
+
+        private void skipLine() {
+            while (position < limit && in.get(position) != '\n') {
+                position++;
+            }
+            position++;
+            line++;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(source + ":" + line + ": " + message);
+        }
+    }
+}
@@ -0,0 +1,515 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.util.Coordinate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Road network in compressed sparse row form, for stop-to-stop distances along roads instead of great circles.
+ * <p>
+ * The edge-list file has one record per line, {@code #} starts a comment line, and coordinates follow jsprit's
+ * convention, x is the longitude and y the latitude:
+ * <pre>
+ * node,&lt;id&gt;,&lt;x&gt;,&lt;y&gt;
+ * edge,&lt;from id&gt;,&lt;to id&gt;,&lt;distance&gt;[,&lt;time&gt;]   (both directions)
+ * arc,&lt;from id&gt;,&lt;to id&gt;,&lt;distance&gt;[,&lt;time&gt;]    (one-way)
+ * </pre>
+ * Node ids are any {@code long}s and are only used while loading; distances are in kilometers like
+ * {@link multiple100locations#haversine(double, double, double, double)}. In memory the graph is five primitive
+ * arrays: arc offsets per node, arc heads, distances and times, plus the node coordinates, about 24 bytes per arc
+ * and 20 per node.
+ * <p>
+ * {@link #buildMatrix(List, ForkJoinPool)} snaps every stop to the nearest node of the largest connected component
+ * with a {@link SpatialIndex}, then runs one Dijkstra per stop in parallel on a primitive binary heap, stopping as
+ * soon as all stop nodes are settled. Paths minimize distance; the time of a leg is the time along that path. The
+ * great-circle distance from a stop to its node is added at both ends of its legs, and so is the time to cover it at
+ * the {@link #getAccessSpeed() access speed}. The Dijkstra scratch arrays belong to the call and are dropped with
+ * it, so pool threads keep nothing sized to the graph afterwards.
+ */
+public final class RoadGraph {
+
+    /**
+     * Builder for {@link RoadGraph}.
+     */
+    public static class Builder {
+
+        public static Builder newInstance() {
+            return new Builder();
+        }
+
+        private final Map<Long, Integer> nodeIndices = new HashMap<>();
+
+        private double[] x = new double[1024];
+
+        private double[] y = new double[1024];
+
+        private int noNodes;
+
+        private int[] tails = new int[1024];
+
+        private int[] heads = new int[1024];
+
+        private double[] distances = new double[1024];
+
+        private double[] times = new double[1024];
+
+        private int noArcs;
+
+        private Builder() {
+        }
+
+        public Builder addNode(long id, double x, double y) {
+            if (nodeIndices.put(id, noNodes) != null) {
+                throw new IllegalArgumentException("node " + id + " is defined twice");
+            }
+            if (noNodes == this.x.length) {
+                this.x = Arrays.copyOf(this.x, 2 * noNodes);
+                this.y = Arrays.copyOf(this.y, 2 * noNodes);
+            }
+            this.x[noNodes] = x;
+            this.y[noNodes] = y;
+            noNodes++;
+            return this;
+        }
+
+        /**
+         * Adds a road that can be travelled in both directions. Its nodes must have been added before.
+         */
+        public Builder addEdge(long fromId, long toId, double distance, double time) {
+            addArc(fromId, toId, distance, time);
+            return addArc(toId, fromId, distance, time);
+        }
+
+        /**
+         * Adds a one-way road. Its nodes must have been added before.
+         */
+        public Builder addArc(long fromId, long toId, double distance, double time) {
+            if (distance < 0 || time < 0) {
+                throw new IllegalArgumentException("arc " + fromId + "->" + toId + " has a negative weight");
+            }
+            if (noArcs == tails.length) {
+                tails = Arrays.copyOf(tails, 2 * noArcs);
+                heads = Arrays.copyOf(heads, 2 * noArcs);
+                distances = Arrays.copyOf(distances, 2 * noArcs);
+                times = Arrays.copyOf(times, 2 * noArcs);
+            }
+            tails[noArcs] = indexOf(fromId);
+            heads[noArcs] = indexOf(toId);
+            distances[noArcs] = distance;
+            times[noArcs] = time;
+            noArcs++;
+            return this;
+        }
+
+        private int indexOf(long id) {
+            Integer index = nodeIndices.get(id);
+            if (index == null) {
+                throw new IllegalArgumentException("node " + id + " is not defined");
+            }
+            return index;
+        }
+
+        public RoadGraph build() {
+            return new RoadGraph(this);
+        }
+    }
+
+    private final double[] x;
+
+    private final double[] y;
+
+    // Arcs leaving node v are [offsets[v], offsets[v + 1]).
+    private final int[] offsets;
+
+    private final int[] heads;
+
+    private final double[] distances;
+
+    private final double[] times;
+
+    // Nodes of the largest weakly connected component, and the index stops are snapped with.
+    private final int[] snapNodes;
+
+    private final SpatialIndex snapIndex;
+
+    private final double accessSpeed;
+
+    private RoadGraph(Builder builder) {
+        int n = builder.noNodes;
+        int m = builder.noArcs;
+        this.x = Arrays.copyOf(builder.x, n);
+        this.y = Arrays.copyOf(builder.y, n);
+        // Counting sort of the arcs by tail.
+        this.offsets = new int[n + 1];
+        for (int a = 0; a < m; a++) {
+            offsets[builder.tails[a] + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        int[] next = Arrays.copyOf(offsets, n);
+        this.heads = new int[m];
+        this.distances = new double[m];
+        this.times = new double[m];
+        for (int a = 0; a < m; a++) {
+            int slot = next[builder.tails[a]]++;
+            heads[slot] = builder.heads[a];
+            distances[slot] = builder.distances[a];
+            times[slot] = builder.times[a];
+        }
+        this.snapNodes = largestComponent(builder.tails, builder.heads, n, m);
+        double[] latitudes = new double[snapNodes.length];
+        double[] longitudes = new double[snapNodes.length];
+        for (int i = 0; i < snapNodes.length; i++) {
+            latitudes[i] = y[snapNodes[i]];
+            longitudes[i] = x[snapNodes[i]];
+        }
+        this.snapIndex = SpatialIndex.of(new GeodesicKernel(latitudes, longitudes, GeodesicKernel.Mode.HAVERSINE));
+        double timedDistance = 0;
+        double totalTime = 0;
+        for (int a = 0; a < m; a++) {
+            if (times[a] > 0) {
+                timedDistance += distances[a];
+                totalTime += times[a];
+            }
+        }
+        this.accessSpeed = totalTime > 0 ? timedDistance / totalTime : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Loads a graph from an edge-list file in the format described above.
+     */
+    public static RoadGraph load(Path file) {
+        Builder builder = Builder.newInstance();
+        int line = 0;
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String record;
+            while ((record = in.readLine()) != null) {
+                line++;
+                record = record.trim();
+                if (record.isEmpty() || record.charAt(0) == '#') {
+                    continue;
+                }
+                String[] fields = record.split(",");
+                try {
+                    if (fields[0].equals("node") && fields.length == 4) {
+                        builder.addNode(Long.parseLong(fields[1]), Double.parseDouble(fields[2]),
+                                Double.parseDouble(fields[3]));
+                    } else if ((fields[0].equals("edge") || fields[0].equals("arc"))
+                            && (fields.length == 4 || fields.length == 5)) {
+                        long from = Long.parseLong(fields[1]);
+                        long to = Long.parseLong(fields[2]);
+                        double distance = Double.parseDouble(fields[3]);
+                        double time = fields.length == 5 ? Double.parseDouble(fields[4]) : 0.0;
+                        if (fields[0].equals("edge")) {
+                            builder.addEdge(from, to, distance, time);
+                        } else {
+                            builder.addArc(from, to, distance, time);
+                        }
+                    } else {
+                        throw new IllegalArgumentException("unknown record " + fields[0] + " with " + fields.length
+                                + " fields");
+                    }
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException(file + ":" + line + ": " + e.getMessage(), e);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot read road graph " + file, e);
+        }
+        return builder.build();
+    }
+
+    public int getNoNodes() {
+        return x.length;
+    }
+
+    public int getNoArcs() {
+        return heads.length;
+    }
+
+    /**
+     * @return the speed at which the way between a stop and its snapped node is covered, in kilometers per time
+     * unit of the arcs: the average speed over all arcs with a time, or infinity, i.e. no access time, if no arc
+     * has one.
+     */
+    public double getAccessSpeed() {
+        return accessSpeed;
+    }
+
+    /**
+     * @return the node of the largest connected component closest to {@code location}.
+     */
+    public int snap(Location location) {
+        Coordinate coord = location.getCoordinate();
+        return snapNodes[snapIndex.nearest(coord.getY(), coord.getX())];
+    }
+
+    /**
+     * Computes the road distances and times between all stops, one Dijkstra per stop on {@code pool}.
+     *
+     * @param stops indexed locations; row and column {@code i} of the matrix belong to the stop with index {@code i}.
+     * @return an asymmetric matrix; stops that cannot reach each other over one-way roads get infinite costs.
+     */
+    public DenseTransportCostsMatrix buildMatrix(List<Location> stops, ForkJoinPool pool) {
+        int noStops = 0;
+        for (Location stop : stops) {
+            noStops = Math.max(noStops, IndexedTransportCosts.indexOf(stop) + 1);
+        }
+        int[] stopNodes = new int[noStops];
+        double[] offsets = new double[noStops];
+        Arrays.fill(stopNodes, -1);
+        for (Location stop : stops) {
+            int node = snap(stop);
+            Coordinate coord = stop.getCoordinate();
+            stopNodes[stop.getIndex()] = node;
+            offsets[stop.getIndex()] = multiple100locations.haversine(coord.getY(), coord.getX(), y[node], x[node]);
+        }
+        DenseTransportCostsMatrix.Builder matrix = DenseTransportCostsMatrix.Builder.newInstance(noStops, false);
+        // Allocates the time table up front, so that the tasks only write cells.
+        matrix.addTransportTime(0, 0, 0.0);
+        pool.invoke(new RowTask(stopNodes, offsets, matrix, new ConcurrentLinkedQueue<Search>(), 0, noStops));
+        return matrix.build();
+    }
+
+    // Nodes of the largest component when arcs are taken as undirected, by union-find.
+    private static int[] largestComponent(int[] tails, int[] heads, int n, int m) {
+        int[] parent = new int[n];
+        for (int v = 0; v < n; v++) {
+            parent[v] = v;
+        }
+        for (int a = 0; a < m; a++) {
+            int r = root(parent, tails[a]);
+            int s = root(parent, heads[a]);
+            if (r != s) {
+                parent[r] = s;
+            }
+        }
+        int[] size = new int[n];
+        int largest = -1;
+        for (int v = 0; v < n; v++) {
+            int r = root(parent, v);
+            if (++size[r] > (largest < 0 ? 0 : size[largest])) {
+                largest = r;
+            }
+        }
+        int[] nodes = new int[largest < 0 ? 0 : size[largest]];
+        int count = 0;
+        for (int v = 0; v < n; v++) {
+            if (root(parent, v) == largest) {
+                nodes[count++] = v;
+            }
+        }
+        return nodes;
+    }
+
+    private static int root(int[] parent, int v) {
+        while (parent[v] != v) {
+            parent[v] = parent[parent[v]];
+            v = parent[v];
+        }
+        return v;
+    }
+
+    private final class RowTask extends RecursiveAction {
+
+        private final int[] stopNodes;
+
+        private final double[] offsets;
+
+        private final DenseTransportCostsMatrix.Builder matrix;
+
+        // Idle searches of this build; at most one per thread that ran a row at the same time.
+        private final Queue<Search> searches;
+
+        private final int from;
+
+        private final int to;
+
+        RowTask(int[] stopNodes, double[] offsets, DenseTransportCostsMatrix.Builder matrix, Queue<Search> searches,
+                int from, int to) {
+            this.stopNodes = stopNodes;
+            this.offsets = offsets;
+            this.matrix = matrix;
+            this.searches = searches;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                if (stopNodes[from] >= 0) {
+                    Search search = searches.poll();
+                    if (search == null) {
+                        search = new Search(x.length);
+                    }
+                    search.run(RoadGraph.this, from, stopNodes, offsets, matrix);
+                    searches.offer(search);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RowTask(stopNodes, offsets, matrix, searches, from, mid),
+                    new RowTask(stopNodes, offsets, matrix, searches, mid, to));
+        }
+    }
+
+    /**
+     * One-to-many Dijkstra with a binary heap keyed by distance. Node state is valid only where {@code stamp}
+     * equals the current run, so nothing is cleared between runs.
+     */
+    private static final class Search {
+
+        private int run;
+
+        private final int[] stamp;
+
+        private final double[] distance;
+
+        private final double[] time;
+
+        private final boolean[] settled;
+
+        // Heap of nodes; position[v] is v's slot in the heap.
+        private final int[] heap;
+
+        private final int[] position;
+
+        private int size;
+
+        private final int[] targetStamp;
+
+        Search(int noNodes) {
+            stamp = new int[noNodes];
+            distance = new double[noNodes];
+            time = new double[noNodes];
+            settled = new boolean[noNodes];
+            heap = new int[noNodes];
+            position = new int[noNodes];
+            targetStamp = new int[noNodes];
+        }
+
+        void run(RoadGraph graph, int source, int[] stopNodes, double[] offsets,
+                 DenseTransportCostsMatrix.Builder matrix) {
+            run++;
+            int noTargets = 0;
+            for (int node : stopNodes) {
+                if (node >= 0 && targetStamp[node] != run) {
+                    targetStamp[node] = run;
+                    noTargets++;
+                }
+            }
+            size = 0;
+            reach(stopNodes[source], 0.0, 0.0);
+            while (size > 0 && noTargets > 0) {
+                int v = pop();
+                settled[v] = true;
+                if (targetStamp[v] == run) {
+                    noTargets--;
+                }
+                for (int a = graph.offsets[v]; a < graph.offsets[v + 1]; a++) {
+                    int w = graph.heads[a];
+                    double d = distance[v] + graph.distances[a];
+                    if (stamp[w] != run) {
+                        reach(w, d, time[v] + graph.times[a]);
+                    } else if (!settled[w] && d < distance[w]) {
+                        distance[w] = d;
+                        time[w] = time[v] + graph.times[a];
+                        up(position[w]);
+                    }
+                }
+            }
+            for (int target = 0; target < stopNodes.length; target++) {
+                int node = stopNodes[target];
+                if (node < 0) {
+                    continue;
+                }
+                if (target == source) {
+                    matrix.addTransportDistance(source, target, 0.0);
+                } else if (stamp[node] == run && settled[node]) {
+                    matrix.addTransportDistance(source, target, offsets[source] + distance[node] + offsets[target]);
+                    matrix.addTransportTime(source, target,
+                            (offsets[source] + offsets[target]) / graph.accessSpeed + time[node]);
+                } else {
+                    matrix.addTransportDistance(source, target, Double.POSITIVE_INFINITY);
+                    matrix.addTransportTime(source, target, Double.POSITIVE_INFINITY);
+                }
+            }
+        }
+
+        private void reach(int v, double d, double t) {
+            stamp[v] = run;
+            distance[v] = d;
+            time[v] = t;
+            settled[v] = false;
+            heap[size] = v;
+            position[v] = size;
+            up(size++);
+        }
+
+        private int pop() {
+            int top = heap[0];
+            int last = heap[--size];
+            if (size > 0) {
+                heap[0] = last;
+                position[last] = 0;
+                down(0);
+            }
+            return top;
+        }
+
+        private void up(int i) {
+            int v = heap[i];
+            double d = distance[v];
+            while (i > 0) {
+                int parent = (i - 1) >> 1;
+                int p = heap[parent];
+                if (distance[p] <= d) {
+                    break;
+                }
+                heap[i] = p;
+                position[p] = i;
+                i = parent;
+            }
+            heap[i] = v;
+            position[v] = i;
+        }
+
+        private void down(int i) {
+            int v = heap[i];
+            double d = distance[v];
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && distance[heap[child + 1]] < distance[heap[child]]) {
+                    child++;
+                }
+                if (distance[heap[child]] >= d) {
+                    break;
+                }
+                heap[i] = heap[child];
+                position[heap[i]] = i;
+                i = child;
+            }
+            heap[i] = v;
+            position[v] = i;
+        }
+    }
+}
@@ -0,0 +1,420 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.algorithm.state.UpdateActivityTimes;
+import com.graphhopper.jsprit.core.problem.Capacity;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
+import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.job.Delivery;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.RouteActivityVisitor;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TimeWindow;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Post-optimizes a finished solution by improving the visiting order of every route on its own, all routes in
+ * parallel on a {@link ForkJoinPool}.
+ * <p>
+ * Each route is copied into primitive arrays once: the visiting order as indices into the route's stops, the
+ * transport costs between all its stops (including start and end) as a small dense matrix, and the stops' capacity
+ * changes. 2-opt (reversing a segment) and Or-opt (moving a segment of up to three stops elsewhere) then run on
+ * these arrays without allocating, taking the first improving move until none is left. Segment costs are summed
+ * with prefix sums in both directions, so asymmetric costs are handled exactly. Before a move is kept, the new order
+ * is re-checked against the vehicle's capacity in every dimension and, if the route has any, against time windows
+ * and the vehicle's latest arrival.
+ * <p>
+ * Costs are taken at departure time 0, so time-dependent costs are approximated; the reported cost of the polished
+ * solution is the original cost minus the transport cost saved. Routes with activities other than services, pickups
+ * and deliveries are left unchanged.
+ */
+public class RoutePolisher {
+
+    /**
+     * Builder for {@link RoutePolisher}.
+     */
+    public static class Builder {
+
+        public static Builder newInstance(VehicleRoutingProblem problem) {
+            return new Builder(problem);
+        }
+
+        private final VehicleRoutingProblem problem;
+
+        private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+        private Builder(VehicleRoutingProblem problem) {
+            this.problem = problem;
+        }
+
+        /**
+         * Sets the pool the routes are polished on. Defaults to the common pool.
+         */
+        public Builder setPool(ForkJoinPool pool) {
+            this.pool = pool;
+            return this;
+        }
+
+        public RoutePolisher build() {
+            return new RoutePolisher(this);
+        }
+    }
+
+    // Moves must save more than this to count as an improvement, so rounding cannot make the search cycle.
+    private static final double EPSILON = 1e-9;
+
+    // Longest segment Or-opt moves.
+    private static final int MAX_SEGMENT = 3;
+
+    private final VehicleRoutingProblem problem;
+
+    private final ForkJoinPool pool;
+
+    private RoutePolisher(Builder builder) {
+        this.problem = builder.problem;
+        this.pool = builder.pool;
+    }
+
+    /**
+     * @return a solution with the same routes as {@code solution}, each visiting its jobs in an order that is no
+     * more expensive; {@code solution} itself is not changed.
+     */
+    public VehicleRoutingProblemSolution polish(VehicleRoutingProblemSolution solution) {
+        List<VehicleRoute> routes = new ArrayList<>(solution.getRoutes());
+        VehicleRoute[] polished = new VehicleRoute[routes.size()];
+        double[] savings = new double[routes.size()];
+        pool.invoke(new PolishTask(routes, polished, savings, 0, routes.size()));
+        double saved = 0.0;
+        for (double saving : savings) {
+            saved += saving;
+        }
+        List<VehicleRoute> result = new ArrayList<>(polished.length);
+        for (VehicleRoute route : polished) {
+            result.add(route);
+        }
+        return new VehicleRoutingProblemSolution(result, solution.getUnassignedJobs(), solution.getCost() - saved);
+    }
+
+    private VehicleRoute polish(VehicleRoute route, double[] savings, int r) {
+        RouteArrays arrays = RouteArrays.of(problem, route);
+        if (arrays == null) {
+            return route;
+        }
+        double saved = arrays.improve();
+        if (saved <= 0.0) {
+            return route;
+        }
+        savings[r] = saved;
+        VehicleRoute.Builder builder = VehicleRoute.Builder.newInstance(route.getVehicle(), route.getDriver())
+                .setJobActivityFactory(problem.getJobActivityFactory());
+        for (int i = 1; i < arrays.order.length - 1; i++) {
+            ProblemCopies.addJob(builder, arrays.jobs[arrays.order[i]]);
+        }
+        VehicleRoute polished = builder.build();
+        new RouteActivityVisitor()
+                .addActivityVisitor(new UpdateActivityTimes(problem.getTransportCosts(), problem.getActivityCosts()))
+                .visit(polished);
+        return polished;
+    }
+
+    /**
+     * One route as arrays. Stop 0 is the start, stop n + 1 the end, stops 1 ... n the jobs in their original order;
+     * {@code order} lists the stops in visiting order.
+     */
+    private static final class RouteArrays {
+
+        final VehicleRoutingTransportCosts transportCosts;
+
+        final Vehicle vehicle;
+
+        final Driver driver;
+
+        final int size;
+
+        final Service[] jobs;
+
+        final Location[] locations;
+
+        final double[] costs;
+
+        final int[] order;
+
+        final int[] candidate;
+
+        final double[] forward;
+
+        final double[] backward;
+
+        // Capacity change per stop and dimension, row-major, and the load when leaving the start.
+        final int[] loadChanges;
+
+        final int[] startLoad;
+
+        final int[] capacity;
+
+        final int[] load;
+
+        final boolean timed;
+
+        private RouteArrays(VehicleRoutingProblem problem, VehicleRoute route, Service[] services) {
+            this.transportCosts = problem.getTransportCosts();
+            this.vehicle = route.getVehicle();
+            this.driver = route.getDriver();
+            this.size = services.length + 2;
+            this.jobs = new Service[size];
+            this.locations = new Location[size];
+            System.arraycopy(services, 0, jobs, 1, services.length);
+            locations[0] = route.getStart().getLocation();
+            locations[size - 1] = route.getEnd().getLocation();
+            Capacity vehicleCapacity = vehicle.getType().getCapacityDimensions();
+            int dimensions = vehicleCapacity.getNuOfDimensions();
+            this.capacity = new int[dimensions];
+            this.startLoad = new int[dimensions];
+            this.load = new int[dimensions];
+            this.loadChanges = new int[size * dimensions];
+            for (int d = 0; d < dimensions; d++) {
+                capacity[d] = vehicleCapacity.get(d);
+            }
+            boolean hasWindows = vehicle.getLatestArrival() < Double.MAX_VALUE;
+            for (int i = 1; i < size - 1; i++) {
+                Service job = jobs[i];
+                locations[i] = job.getLocation();
+                Capacity demand = job.getSize();
+                int sign = job instanceof Delivery ? -1 : 1;
+                for (int d = 0; d < Math.min(dimensions, demand.getNuOfDimensions()); d++) {
+                    loadChanges[i * dimensions + d] = sign * demand.get(d);
+                    if (sign < 0) {
+                        startLoad[d] += demand.get(d);
+                    }
+                }
+                for (TimeWindow window : job.getTimeWindows()) {
+                    hasWindows |= window.getStart() > 0 || window.getEnd() < Double.MAX_VALUE;
+                }
+            }
+            this.timed = hasWindows;
+            this.costs = new double[size * size];
+            for (int a = 0; a < size; a++) {
+                for (int b = 0; b < size; b++) {
+                    boolean free = a == b || (b == size - 1 && !vehicle.isReturnToDepot());
+                    costs[a * size + b] = free ? 0.0
+                            : transportCosts.getTransportCost(locations[a], locations[b], 0.0, driver, vehicle);
+                }
+            }
+            this.order = new int[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            this.candidate = new int[size];
+            this.forward = new double[size];
+            this.backward = new double[size];
+        }
+
+        /**
+         * @return the route as arrays, or null if it has activities this polisher does not handle.
+         */
+        static RouteArrays of(VehicleRoutingProblem problem, VehicleRoute route) {
+            List<TourActivity> activities = route.getActivities();
+            Service[] services = new Service[activities.size()];
+            for (int i = 0; i < services.length; i++) {
+                Job job = ProblemCopies.jobOf(activities.get(i));
+                if (!(job instanceof Service)) {
+                    return null;
+                }
+                services[i] = (Service) job;
+            }
+            return services.length < 2 ? null : new RouteArrays(problem, route, services);
+        }
+
+        /**
+         * Applies improving moves until there are none left.
+         *
+         * @return the cost saved.
+         */
+        double improve() {
+            double saved = 0.0;
+            boolean improved = true;
+            while (improved) {
+                prefixSums();
+                double saving = twoOpt();
+                if (saving <= 0.0) {
+                    saving = orOpt();
+                }
+                improved = saving > 0.0;
+                saved += saving;
+            }
+            return saved;
+        }
+
+        private double cost(int a, int b) {
+            return costs[a * size + b];
+        }
+
+        // forward[k]: cost of order[0] ... order[k]; backward[k]: the same legs travelled in reverse.
+        private void prefixSums() {
+            for (int k = 1; k < size; k++) {
+                forward[k] = forward[k - 1] + cost(order[k - 1], order[k]);
+                backward[k] = backward[k - 1] + cost(order[k], order[k - 1]);
+            }
+        }
+
+        // Reverses order[i ... j].
+        private double twoOpt() {
+            for (int i = 1; i < size - 2; i++) {
+                for (int j = i + 1; j < size - 1; j++) {
+                    double before = cost(order[i - 1], order[i]) + forward[j] - forward[i]
+                            + cost(order[j], order[j + 1]);
+                    double after = cost(order[i - 1], order[j]) + backward[j] - backward[i]
+                            + cost(order[i], order[j + 1]);
+                    if (before - after > EPSILON) {
+                        System.arraycopy(order, 0, candidate, 0, size);
+                        for (int a = i, b = j; a < b; a++, b--) {
+                            int t = candidate[a];
+                            candidate[a] = candidate[b];
+                            candidate[b] = t;
+                        }
+                        if (accept()) {
+                            return before - after;
+                        }
+                    }
+                }
+            }
+            return 0.0;
+        }
+
+        // Moves order[i ... i + length - 1] between order[k] and order[k + 1].
+        private double orOpt() {
+            for (int length = 1; length <= MAX_SEGMENT; length++) {
+                for (int i = 1; i + length < size; i++) {
+                    int first = order[i];
+                    int last = order[i + length - 1];
+                    int prev = order[i - 1];
+                    int next = order[i + length];
+                    double removed = cost(prev, first) + cost(last, next) - cost(prev, next);
+                    for (int k = 0; k < size - 1; k++) {
+                        if (k >= i - 1 && k < i + length) {
+                            continue;
+                        }
+                        double inserted = cost(order[k], first) + cost(last, order[k + 1])
+                                - cost(order[k], order[k + 1]);
+                        if (removed - inserted > EPSILON) {
+                            move(i, length, k);
+                            if (accept()) {
+                                return removed - inserted;
+                            }
+                        }
+                    }
+                }
+            }
+            return 0.0;
+        }
+
+        // Writes order with the segment moved into candidate.
+        private void move(int i, int length, int k) {
+            int n = 0;
+            for (int p = 0; p < size; p++) {
+                if (p >= i && p < i + length) {
+                    continue;
+                }
+                candidate[n++] = order[p];
+                if (p == k) {
+                    for (int s = i; s < i + length; s++) {
+                        candidate[n++] = order[s];
+                    }
+                }
+            }
+        }
+
+        // Adopts candidate as the order if it is feasible.
+        private boolean accept() {
+            if (!fitsCapacity() || (timed && !fitsTimeWindows())) {
+                return false;
+            }
+            System.arraycopy(candidate, 0, order, 0, size);
+            return true;
+        }
+
+        private boolean fitsCapacity() {
+            int dimensions = capacity.length;
+            System.arraycopy(startLoad, 0, load, 0, dimensions);
+            for (int p = 1; p < size - 1; p++) {
+                int offset = candidate[p] * dimensions;
+                for (int d = 0; d < dimensions; d++) {
+                    load[d] += loadChanges[offset + d];
+                    if (load[d] > capacity[d]) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        private boolean fitsTimeWindows() {
+            double time = vehicle.getEarliestDeparture();
+            Location at = locations[0];
+            for (int p = 1; p < size; p++) {
+                int stop = candidate[p];
+                Location to = locations[stop];
+                double arrival = time + transportCosts.getTransportTime(at, to, time, driver, vehicle);
+                if (p == size - 1) {
+                    return !vehicle.isReturnToDepot() || arrival <= vehicle.getLatestArrival();
+                }
+                double start = Double.NaN;
+                for (TimeWindow window : jobs[stop].getTimeWindows()) {
+                    if (arrival <= window.getEnd()) {
+                        start = Math.max(arrival, window.getStart());
+                        break;
+                    }
+                }
+                if (Double.isNaN(start)) {
+                    return false;
+                }
+                time = start + jobs[stop].getServiceDuration();
+                at = to;
+            }
+            return true;
+        }
+    }
+
+    private final class PolishTask extends RecursiveAction {
+
+        private final List<VehicleRoute> routes;
+
+        private final VehicleRoute[] polished;
+
+        private final double[] savings;
+
+        private final int from;
+
+        private final int to;
+
+        PolishTask(List<VehicleRoute> routes, VehicleRoute[] polished, double[] savings, int from, int to) {
+            this.routes = routes;
+            this.polished = polished;
+            this.savings = savings;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                for (int r = from; r < to; r++) {
+                    polished[r] = polish(routes.get(r), savings, r);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new PolishTask(routes, polished, savings, from, mid),
+                    new PolishTask(routes, polished, savings, mid, to));
+        }
+    }
+}
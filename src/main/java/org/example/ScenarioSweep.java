@@ -0,0 +1,353 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.algorithm.VehicleRoutingAlgorithm;
+import com.graphhopper.jsprit.core.algorithm.box.Jsprit;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.util.Solutions;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Solves every combination of vehicle count, vehicle capacity and service demand of the example problem, for fleet
+ * sizing and capacity planning.
+ * <p>
+ * All variants share one location list and one cost model, which must be thread-safe like every cost model in this
+ * package; only the services and vehicles are built per variant. Variants are solved concurrently, one single-threaded
+ * jsprit run each, with the fleet size set to finite so that jobs the fleet cannot serve show up as unassigned.
+ * <p>
+ * Run with {@code -Dsweep.vehicles=3,5,8 -Dsweep.capacities=40,50 -Dsweep.demands=2,3}, optionally
+ * {@code -Dsweep.services=<n>}, {@code -Dsweep.iterations=<n>} and {@code -Dsweep.out=<file>} (default
+ * {@code sweep.csv}).
+ */
+public class ScenarioSweep {
+
+    /**
+     * Builder for {@link ScenarioSweep}.
+     */
+    public static class Builder {
+
+        /**
+         * @param locations the depot followed by the service locations, indexed as the cost model expects.
+         * @param costs     the transport costs between the locations, shared by all variants.
+         */
+        public static Builder newInstance(List<Location> locations, VehicleRoutingTransportCosts costs) {
+            return new Builder(locations, costs);
+        }
+
+        private final List<Location> locations;
+
+        private final VehicleRoutingTransportCosts costs;
+
+        private final List<Integer> vehicleCounts = new ArrayList<>();
+
+        private final List<Integer> capacities = new ArrayList<>();
+
+        private final List<Integer> demands = new ArrayList<>();
+
+        private int noThreads = Runtime.getRuntime().availableProcessors();
+
+        private int maxIterations = -1;
+
+        private long seed = 42;
+
+        private Builder(List<Location> locations, VehicleRoutingTransportCosts costs) {
+            this.locations = locations;
+            this.costs = costs;
+        }
+
+        /**
+         * Adds fleet sizes to the grid. Defaults to the example's 5 vehicles.
+         */
+        public Builder addVehicleCounts(int... counts) {
+            return addAll(vehicleCounts, counts, "vehicle count");
+        }
+
+        /**
+         * Adds vehicle capacities to the grid. Defaults to the example's 50.
+         */
+        public Builder addCapacities(int... values) {
+            return addAll(capacities, values, "capacity");
+        }
+
+        /**
+         * Adds per-service demands to the grid. Defaults to the example's 2.
+         */
+        public Builder addDemands(int... values) {
+            return addAll(demands, values, "demand");
+        }
+
+        /**
+         * Sets the number of variants solved at a time. Defaults to the number of available processors.
+         */
+        public Builder setNoThreads(int noThreads) {
+            if (noThreads < 1) {
+                throw new IllegalArgumentException("number of threads must be positive");
+            }
+            this.noThreads = noThreads;
+            return this;
+        }
+
+        /**
+         * Sets the iteration limit of each variant. Defaults to jsprit's own limit.
+         */
+        public Builder setMaxIterations(int maxIterations) {
+            this.maxIterations = maxIterations;
+            return this;
+        }
+
+        /**
+         * Sets the seed every variant is solved with, so that results differ by parameters only.
+         */
+        public Builder setSeed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public ScenarioSweep build() {
+            return new ScenarioSweep(this);
+        }
+
+        private Builder addAll(List<Integer> target, int[] values, String name) {
+            for (int value : values) {
+                if (value < 1) {
+                    throw new IllegalArgumentException(name + " must be positive, got " + value);
+                }
+                target.add(value);
+            }
+            return this;
+        }
+    }
+
+    /**
+     * One point of the parameter grid.
+     */
+    public static class Scenario {
+
+        private final int noVehicles;
+
+        private final int capacity;
+
+        private final int demand;
+
+        Scenario(int noVehicles, int capacity, int demand) {
+            this.noVehicles = noVehicles;
+            this.capacity = capacity;
+            this.demand = demand;
+        }
+
+        public int getNoVehicles() {
+            return noVehicles;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public int getDemand() {
+            return demand;
+        }
+
+        @Override
+        public String toString() {
+            return "[vehicles=" + noVehicles + "][capacity=" + capacity + "][demand=" + demand + "]";
+        }
+    }
+
+    /**
+     * Outcome of one variant.
+     */
+    public static class Result {
+
+        private final Scenario scenario;
+
+        private final VehicleRoutingProblemSolution solution;
+
+        private final long millis;
+
+        Result(Scenario scenario, VehicleRoutingProblemSolution solution, long millis) {
+            this.scenario = scenario;
+            this.solution = solution;
+            this.millis = millis;
+        }
+
+        public Scenario getScenario() {
+            return scenario;
+        }
+
+        public VehicleRoutingProblemSolution getSolution() {
+            return solution;
+        }
+
+        public double getCost() {
+            return solution.getCost();
+        }
+
+        public int getVehiclesUsed() {
+            return solution.getRoutes().size();
+        }
+
+        public int getUnassignedJobs() {
+            return solution.getUnassignedJobs().size();
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+
+        @Override
+        public String toString() {
+            return scenario + "[cost=" + getCost() + "][vehiclesUsed=" + getVehiclesUsed() + "][unassignedJobs="
+                    + getUnassignedJobs() + "][millis=" + millis + "]";
+        }
+    }
+
+    private final List<Location> locations;
+
+    private final VehicleRoutingTransportCosts costs;
+
+    private final List<Scenario> scenarios = new ArrayList<>();
+
+    private final int noThreads;
+
+    private final int maxIterations;
+
+    private final long seed;
+
+    private ScenarioSweep(Builder builder) {
+        this.locations = builder.locations;
+        this.costs = builder.costs;
+        this.noThreads = builder.noThreads;
+        this.maxIterations = builder.maxIterations;
+        this.seed = builder.seed;
+        for (int noVehicles : orDefault(builder.vehicleCounts, 5)) {
+            for (int capacity : orDefault(builder.capacities, 50)) {
+                for (int demand : orDefault(builder.demands, 2)) {
+                    scenarios.add(new Scenario(noVehicles, capacity, demand));
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        List<Location> locations = multiple100locations.createLocations(Integer.getInteger("sweep.services", 100), 42);
+        DenseTransportCostsMatrix costs = DenseTransportCostsMatrix.Builder.newInstance(locations).build();
+        ScenarioSweep sweep = Builder.newInstance(locations, costs)
+                .addVehicleCounts(parseInts(System.getProperty("sweep.vehicles", "5")))
+                .addCapacities(parseInts(System.getProperty("sweep.capacities", "50")))
+                .addDemands(parseInts(System.getProperty("sweep.demands", "2")))
+                .setMaxIterations(Integer.getInteger("sweep.iterations", -1))
+                .build();
+        List<Result> results = sweep.solve();
+        Path file = Paths.get(System.getProperty("sweep.out", "sweep.csv"));
+        writeCsv(results, file);
+        for (Result result : results) {
+            System.out.println(result);
+        }
+        System.out.println(results.size() + " scenarios written to " + file);
+    }
+
+    /**
+     * @return the variants in grid order: vehicle counts outermost, demands innermost.
+     */
+    public List<Scenario> getScenarios() {
+        return Collections.unmodifiableList(scenarios);
+    }
+
+    /**
+     * Solves all variants and blocks until every one has finished.
+     *
+     * @return one result per variant, in the order of {@link #getScenarios()}.
+     */
+    public List<Result> solve() {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(noThreads, Math.max(1, scenarios.size())));
+        try {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (final Scenario scenario : scenarios) {
+                futures.add(executor.submit(new Callable<Result>() {
+                    @Override
+                    public Result call() {
+                        return solve(scenario);
+                    }
+                }));
+            }
+            List<Result> results = new ArrayList<>();
+            for (Future<Result> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for scenarios", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("scenario failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Writes one CSV row per result: the scenario's parameters, cost, vehicles used, unassigned jobs and solve time.
+     */
+    public static void writeCsv(List<Result> results, Path file) {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("vehicles,capacity,demand,cost,vehicles_used,unassigned_jobs,millis\n");
+            for (Result result : results) {
+                Scenario scenario = result.getScenario();
+                writer.write(scenario.getNoVehicles() + "," + scenario.getCapacity() + "," + scenario.getDemand()
+                        + "," + result.getCost() + "," + result.getVehiclesUsed() + "," + result.getUnassignedJobs()
+                        + "," + result.getMillis() + "\n");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot write sweep results to " + file, e);
+        }
+    }
+
+    private Result solve(Scenario scenario) {
+        long start = System.nanoTime();
+        VehicleRoutingAlgorithm algorithm = Jsprit.Builder.newInstance(createProblem(scenario))
+                .setRandom(new Random(seed))
+                .buildAlgorithm();
+        if (maxIterations > 0) {
+            algorithm.setMaxIterations(maxIterations);
+        }
+        VehicleRoutingProblemSolution best = Solutions.bestOf(algorithm.searchSolutions());
+        return new Result(scenario, best, (System.nanoTime() - start) / 1_000_000L);
+    }
+
+    // The example problem of multiple100locations with the scenario's parameters and a finite fleet.
+    private VehicleRoutingProblem createProblem(Scenario scenario) {
+        return multiple100locations.createProblem(locations, costs, scenario.getNoVehicles(), scenario.getCapacity(),
+                scenario.getDemand(), VehicleRoutingProblem.FleetSize.FINITE);
+    }
+
+    private static List<Integer> orDefault(List<Integer> values, int fallback) {
+        return values.isEmpty() ? Collections.singletonList(fallback) : values;
+    }
+
+    private static int[] parseInts(String csv) {
+        String[] fields = csv.split(",");
+        int[] values = new int[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            values[i] = Integer.parseInt(fields[i].trim());
+        }
+        return values;
+    }
+}
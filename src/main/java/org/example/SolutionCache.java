@@ -0,0 +1,724 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.algorithm.state.UpdateActivityTimes;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.Skills;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.RouteActivityVisitor;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TimeWindow;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import com.graphhopper.jsprit.core.util.Coordinate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Remembers solutions by a canonical fingerprint of their problem, so that resubmitted problems are answered at
+ * once and slightly changed ones start from the remembered routes.
+ * <p>
+ * The fingerprint covers the fleet size, the vehicles (type, capacities, cost parameters, depots, operating times,
+ * skills), every job (location, sizes, service time, time windows, skills, priority) and the distances and travel
+ * times between all locations of the problem. Vehicles and jobs are hashed sorted by id, locations by id, so the
+ * fingerprint does not depend on the order they were added in or on location indices. Every cell of the costs is
+ * hashed, which is quadratic in the number of locations like building the matrix, so two problems share a
+ * fingerprint only if all their costs are equal.
+ * <p>
+ * Entries hold routes as vehicle and job ids only, and are turned into solutions of the problem they are looked up
+ * for. The memory tier keeps the most recently used entries; with {@link Builder#setDirectory(Path)} every entry is
+ * also written to one file per fingerprint, in one subdirectory per fleet hash, and survives restarts. Unreadable
+ * files are deleted and treated as absent. A <em>near hit</em> is an entry for the same fleet
+ * whose jobs differ in at most {@link Builder#setMaxDelta(int)} jobs (added, removed or changed): its routes minus the
+ * missing jobs, with the new jobs inserted, seed a short {@link AnytimeSolver} run. Like
+ * {@link IncrementalReoptimizer}, this handles service jobs only.
+ * <p>
+ * Thread-safe.
+ */
+public class SolutionCache {
+
+    /**
+     * Kinds of cache lookups.
+     */
+    public enum HitType {
+        EXACT, NEAR, MISS
+    }
+
+    /**
+     * Result of {@link SolutionCache#lookup(VehicleRoutingProblem)}.
+     */
+    public static class Lookup {
+
+        private final HitType type;
+
+        private final VehicleRoutingProblemSolution solution;
+
+        private final int delta;
+
+        Lookup(HitType type, VehicleRoutingProblemSolution solution, int delta) {
+            this.type = type;
+            this.solution = solution;
+            this.delta = delta;
+        }
+
+        public HitType getType() {
+            return type;
+        }
+
+        /**
+         * @return for an exact hit the remembered solution, for a near hit the initial solution to start from, and
+         * null for a miss. Both are built on the problem that was looked up.
+         */
+        public VehicleRoutingProblemSolution getSolution() {
+            return solution;
+        }
+
+        /**
+         * @return the number of jobs that differ from the entry, 0 for exact hits and misses.
+         */
+        public int getDelta() {
+            return delta;
+        }
+    }
+
+    /**
+     * Builder for {@link SolutionCache}.
+     */
+    public static class Builder {
+
+        public static Builder newInstance() {
+            return new Builder();
+        }
+
+        private int maxEntries = 64;
+
+        private Path directory;
+
+        private int maxDelta = 5;
+
+        private int nearHitIterations = 100;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the number of entries kept in memory. Defaults to 64.
+         */
+        public Builder setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+            return this;
+        }
+
+        /**
+         * Also keeps entries as files in {@code directory}, which is created if needed. Near hits only read the
+         * files of the looked-up fleet's subdirectory.
+         */
+        public Builder setDirectory(Path directory) {
+            this.directory = directory;
+            return this;
+        }
+
+        /**
+         * Sets the number of differing jobs up to which an entry counts as a near hit; 0 disables near hits.
+         * Defaults to 5.
+         */
+        public Builder setMaxDelta(int maxDelta) {
+            this.maxDelta = maxDelta;
+            return this;
+        }
+
+        /**
+         * Sets the number of iterations {@link SolutionCache#solve(VehicleRoutingProblem, int)} runs from a near hit.
+         * Defaults to 100.
+         */
+        public Builder setNearHitIterations(int nearHitIterations) {
+            this.nearHitIterations = nearHitIterations;
+            return this;
+        }
+
+        public SolutionCache build() {
+            return new SolutionCache(this);
+        }
+    }
+
+    private static final int MAGIC = 0x4D565243; // "MVRC"
+
+    private static final int VERSION = 1;
+
+    private static final String SUFFIX = ".solution";
+
+    private final Map<String, Entry> entries;
+
+    private final Path directory;
+
+    private final int maxDelta;
+
+    private final int nearHitIterations;
+
+    private long exactHits;
+
+    private long nearHits;
+
+    private long misses;
+
+    private SolutionCache(Builder builder) {
+        final int maxEntries = builder.maxEntries;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.directory = builder.directory;
+        this.maxDelta = builder.maxDelta;
+        this.nearHitIterations = builder.nearHitIterations;
+        if (directory != null) {
+            try {
+                Files.createDirectories(directory);
+            } catch (IOException e) {
+                throw new UncheckedIOException("cannot create cache directory " + directory, e);
+            }
+        }
+    }
+
+    /**
+     * @return the canonical 32-byte fingerprint of {@code problem}.
+     */
+    public static byte[] fingerprint(VehicleRoutingProblem problem) {
+        return new Key(problem).fingerprint;
+    }
+
+    /**
+     * Returns the remembered solution for {@code problem}, or a solution to start from if a near hit exists.
+     */
+    public Lookup lookup(VehicleRoutingProblem problem) {
+        Key key = new Key(problem);
+        Entry exact = find(key);
+        if (exact != null) {
+            synchronized (this) {
+                exactHits++;
+            }
+            return new Lookup(HitType.EXACT, exact.toSolution(problem), 0);
+        }
+        Entry near = null;
+        int bestDelta = maxDelta + 1;
+        for (Entry candidate : candidates(key)) {
+            int delta = candidate.delta(key.jobs);
+            if (delta < bestDelta) {
+                near = candidate;
+                bestDelta = delta;
+            }
+        }
+        synchronized (this) {
+            if (near == null) {
+                misses++;
+            } else {
+                nearHits++;
+            }
+        }
+        if (near == null) {
+            return new Lookup(HitType.MISS, null, 0);
+        }
+        return new Lookup(HitType.NEAR, near.toInitialSolution(problem, key.jobs), bestDelta);
+    }
+
+    /**
+     * Remembers {@code solution} for {@code problem}, replacing any earlier entry.
+     */
+    public void put(VehicleRoutingProblem problem, VehicleRoutingProblemSolution solution) {
+        Key key = new Key(problem);
+        Entry entry = new Entry(key.hex, key.fleet, key.jobs, solution);
+        synchronized (this) {
+            entries.put(key.hex, entry);
+        }
+        if (directory != null) {
+            entry.write(fileOf(key));
+        }
+    }
+
+    /**
+     * Answers exact hits from the cache, improves near hits for the configured number of iterations and solves
+     * misses from scratch; the result is remembered.
+     *
+     * @param maxIterations the iteration limit for misses.
+     * @return the best solution found, or the remembered one.
+     */
+    public VehicleRoutingProblemSolution solve(VehicleRoutingProblem problem, int maxIterations) {
+        Lookup lookup = lookup(problem);
+        if (lookup.getType() == HitType.EXACT) {
+            return lookup.getSolution();
+        }
+        AnytimeSolver.Builder solver = AnytimeSolver.Builder.newInstance(problem);
+        if (lookup.getType() == HitType.NEAR) {
+            solver.addInitialSolution(lookup.getSolution()).setMaxIterations(nearHitIterations);
+        } else {
+            solver.setMaxIterations(maxIterations);
+        }
+        VehicleRoutingProblemSolution solution = solver.build().solve();
+        put(problem, solution);
+        return solution;
+    }
+
+    public synchronized long getExactHits() {
+        return exactHits;
+    }
+
+    public synchronized long getNearHits() {
+        return nearHits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private Path fleetDirectory(Key key) {
+        return directory.resolve(LocationFingerprint.toHex(key.fleet));
+    }
+
+    private Path fileOf(Key key) {
+        return fleetDirectory(key).resolve(key.hex + SUFFIX);
+    }
+
+    private Entry find(Key key) {
+        synchronized (this) {
+            Entry entry = entries.get(key.hex);
+            if (entry != null || directory == null) {
+                return entry;
+            }
+        }
+        Entry entry = Entry.read(fileOf(key), key.fleet);
+        if (entry != null) {
+            synchronized (this) {
+                entries.put(key.hex, entry);
+            }
+        }
+        return entry;
+    }
+
+    // Entries for the same fleet: those in memory, and in the fleet's subdirectory those not in memory.
+    private List<Entry> candidates(Key key) {
+        if (maxDelta <= 0) {
+            return Collections.emptyList();
+        }
+        List<Entry> candidates = new ArrayList<>();
+        synchronized (this) {
+            for (Entry entry : entries.values()) {
+                if (Arrays.equals(entry.fleet, key.fleet)) {
+                    candidates.add(entry);
+                }
+            }
+        }
+        Path fleetDirectory = directory == null ? null : fleetDirectory(key);
+        if (fleetDirectory == null || !Files.isDirectory(fleetDirectory)) {
+            return candidates;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(fleetDirectory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String hex = name.substring(0, name.length() - SUFFIX.length());
+                synchronized (this) {
+                    if (entries.containsKey(hex)) {
+                        continue;
+                    }
+                }
+                Entry entry = Entry.read(file, key.fleet);
+                if (entry != null) {
+                    candidates.add(entry);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot list cache directory " + fleetDirectory, e);
+        }
+        return candidates;
+    }
+
+    /**
+     * The canonical hashes of one problem.
+     */
+    private static final class Key {
+
+        final byte[] fleet;
+
+        // job id -> hash of the job's content, sorted by id
+        final Map<String, Long> jobs = new TreeMap<>();
+
+        final byte[] fingerprint;
+
+        final String hex;
+
+        Key(VehicleRoutingProblem problem) {
+            List<Vehicle> vehicles = new ArrayList<>(problem.getVehicles());
+            Collections.sort(vehicles, new Comparator<Vehicle>() {
+                @Override
+                public int compare(Vehicle a, Vehicle b) {
+                    return a.getId().compareTo(b.getId());
+                }
+            });
+            Map<String, Location> locations = new TreeMap<>();
+            MessageDigest digest = LocationFingerprint.newDigest();
+            update(digest, problem.getFleetSize().name());
+            LocationFingerprint.updateInt(digest, vehicles.size());
+            for (Vehicle vehicle : vehicles) {
+                update(digest, vehicle.getId());
+                update(digest, vehicle.getType().getTypeId());
+                LocationFingerprint.updateInt(digest, vehicle.getType().getCapacityDimensions().getNuOfDimensions());
+                for (int d = 0; d < vehicle.getType().getCapacityDimensions().getNuOfDimensions(); d++) {
+                    LocationFingerprint.updateInt(digest, vehicle.getType().getCapacityDimensions().get(d));
+                }
+                VehicleTypeImpl.VehicleCostParams costs = vehicle.getType().getVehicleCostParams();
+                update(digest, costs.fix);
+                update(digest, costs.perDistanceUnit);
+                update(digest, costs.perTransportTimeUnit);
+                update(digest, costs.perServiceTimeUnit);
+                update(digest, costs.perWaitingTimeUnit);
+                update(digest, vehicle.getStartLocation());
+                digest.update((byte) (vehicle.isReturnToDepot() ? 1 : 0));
+                update(digest, vehicle.getEndLocation());
+                update(digest, vehicle.getEarliestDeparture());
+                update(digest, vehicle.getLatestArrival());
+                update(digest, vehicle.getSkills());
+                locations.put(vehicle.getStartLocation().getId(), vehicle.getStartLocation());
+                locations.put(vehicle.getEndLocation().getId(), vehicle.getEndLocation());
+            }
+            this.fleet = digest.digest();
+
+            for (Job job : problem.getJobs().values()) {
+                Service service = asService(job);
+                jobs.put(service.getId(), jobHash(service));
+                locations.put(service.getLocation().getId(), service.getLocation());
+            }
+
+            digest.update(fleet);
+            LocationFingerprint.updateInt(digest, jobs.size());
+            for (Map.Entry<String, Long> job : jobs.entrySet()) {
+                update(digest, job.getKey());
+                LocationFingerprint.updateLong(digest, job.getValue());
+            }
+            updateCosts(digest, problem.getTransportCosts(), new ArrayList<>(locations.values()));
+            this.fingerprint = digest.digest();
+            this.hex = LocationFingerprint.toHex(fingerprint);
+        }
+
+        private static long jobHash(Service service) {
+            MessageDigest digest = LocationFingerprint.newDigest();
+            update(digest, service.getClass().getName());
+            update(digest, service.getLocation());
+            LocationFingerprint.updateInt(digest, service.getSize().getNuOfDimensions());
+            for (int d = 0; d < service.getSize().getNuOfDimensions(); d++) {
+                LocationFingerprint.updateInt(digest, service.getSize().get(d));
+            }
+            update(digest, service.getServiceDuration());
+            LocationFingerprint.updateInt(digest, service.getTimeWindows().size());
+            for (TimeWindow timeWindow : service.getTimeWindows()) {
+                update(digest, timeWindow.getStart());
+                update(digest, timeWindow.getEnd());
+            }
+            update(digest, service.getRequiredSkills());
+            LocationFingerprint.updateInt(digest, service.getPriority());
+            byte[] hash = digest.digest();
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = value << 8 | (hash[i] & 0xFF);
+            }
+            return value;
+        }
+
+        private static void updateCosts(MessageDigest digest, VehicleRoutingTransportCosts costs,
+                                        List<Location> locations) {
+            int n = locations.size();
+            LocationFingerprint.updateInt(digest, n);
+            // One digest update per row; the bytes are the same as hashing cell by cell.
+            ByteBuffer row = ByteBuffer.allocate(16 * n);
+            for (int i = 0; i < n; i++) {
+                Location from = locations.get(i);
+                row.clear();
+                for (int j = 0; j < n; j++) {
+                    Location to = locations.get(j);
+                    row.putLong(Double.doubleToLongBits(costs.getDistance(from, to, 0, null)));
+                    row.putLong(Double.doubleToLongBits(costs.getTransportTime(from, to, 0, null, null)));
+                }
+                digest.update(row.array(), 0, row.position());
+            }
+        }
+
+        private static void update(MessageDigest digest, String value) {
+            byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+            LocationFingerprint.updateInt(digest, bytes.length);
+            digest.update(bytes);
+        }
+
+        private static void update(MessageDigest digest, double value) {
+            LocationFingerprint.updateLong(digest, Double.doubleToLongBits(value));
+        }
+
+        private static void update(MessageDigest digest, Location location) {
+            update(digest, location.getId());
+            Coordinate coord = location.getCoordinate();
+            update(digest, coord == null ? 0 : coord.getX());
+            update(digest, coord == null ? 0 : coord.getY());
+        }
+
+        private static void update(MessageDigest digest, Skills skills) {
+            List<String> sorted = new ArrayList<>(skills.values());
+            Collections.sort(sorted);
+            LocationFingerprint.updateInt(digest, sorted.size());
+            for (String skill : sorted) {
+                update(digest, skill);
+            }
+        }
+    }
+
+    private static Service asService(Job job) {
+        if (!(job instanceof Service)) {
+            throw new IllegalArgumentException("job " + job.getId() + " is not a service");
+        }
+        return (Service) job;
+    }
+
+    /**
+     * A remembered solution as ids, independent of the problem objects it was found for.
+     */
+    private static final class Entry {
+
+        final String hex;
+
+        final byte[] fleet;
+
+        final Map<String, Long> jobs;
+
+        final double cost;
+
+        final String[] vehicleIds;
+
+        final String[][] routeJobIds;
+
+        Entry(String hex, byte[] fleet, Map<String, Long> jobs, VehicleRoutingProblemSolution solution) {
+            this.hex = hex;
+            this.fleet = fleet;
+            this.jobs = jobs;
+            this.cost = solution.getCost();
+            List<VehicleRoute> routes = new ArrayList<>(solution.getRoutes());
+            this.vehicleIds = new String[routes.size()];
+            this.routeJobIds = new String[routes.size()][];
+            for (int r = 0; r < routes.size(); r++) {
+                vehicleIds[r] = routes.get(r).getVehicle().getId();
+                List<String> ids = new ArrayList<>();
+                for (TourActivity activity : routes.get(r).getActivities()) {
+                    Job job = ProblemCopies.jobOf(activity);
+                    if (job != null) {
+                        ids.add(job.getId());
+                    }
+                }
+                routeJobIds[r] = ids.toArray(new String[0]);
+            }
+        }
+
+        private Entry(String hex, byte[] fleet, Map<String, Long> jobs, double cost, String[] vehicleIds,
+                      String[][] routeJobIds) {
+            this.hex = hex;
+            this.fleet = fleet;
+            this.jobs = jobs;
+            this.cost = cost;
+            this.vehicleIds = vehicleIds;
+            this.routeJobIds = routeJobIds;
+        }
+
+        /**
+         * @return the number of jobs added, removed or changed between this entry and {@code other}.
+         */
+        int delta(Map<String, Long> other) {
+            int common = 0;
+            int changed = 0;
+            for (Map.Entry<String, Long> job : other.entrySet()) {
+                Long hash = jobs.get(job.getKey());
+                if (hash != null) {
+                    common++;
+                    if (!hash.equals(job.getValue())) {
+                        changed++;
+                    }
+                }
+            }
+            return other.size() - common + jobs.size() - common + changed;
+        }
+
+        VehicleRoutingProblemSolution toSolution(VehicleRoutingProblem problem) {
+            List<VehicleRoute> routes = routes(problem, null);
+            RouteActivityVisitor times = new RouteActivityVisitor()
+                    .addActivityVisitor(new UpdateActivityTimes(problem.getTransportCosts(), problem.getActivityCosts()));
+            for (VehicleRoute route : routes) {
+                times.visit(route);
+            }
+            return new VehicleRoutingProblemSolution(routes, unrouted(problem, routes), cost);
+        }
+
+        // Routes with the unchanged jobs; the others are inserted into them.
+        VehicleRoutingProblemSolution toInitialSolution(VehicleRoutingProblem problem, Map<String, Long> jobHashes) {
+            List<VehicleRoute> routes = routes(problem, jobHashes);
+            return IncrementalReoptimizer.insertJobs(problem, routes, unrouted(problem, routes));
+        }
+
+        private static List<Job> unrouted(VehicleRoutingProblem problem, List<VehicleRoute> routes) {
+            Map<String, Job> unrouted = new LinkedHashMap<>(problem.getJobs());
+            for (VehicleRoute route : routes) {
+                for (Job job : route.getTourActivities().getJobs()) {
+                    unrouted.remove(job.getId());
+                }
+            }
+            return new ArrayList<>(unrouted.values());
+        }
+
+        // With jobHashes, skips jobs whose content differs; without, every job must exist unchanged.
+        private List<VehicleRoute> routes(VehicleRoutingProblem problem, Map<String, Long> jobHashes) {
+            Map<String, Vehicle> vehicles = new HashMap<>();
+            for (Vehicle vehicle : problem.getVehicles()) {
+                vehicles.put(vehicle.getId(), vehicle);
+            }
+            Map<String, Job> problemJobs = problem.getJobs();
+            List<VehicleRoute> routes = new ArrayList<>();
+            for (int r = 0; r < vehicleIds.length; r++) {
+                Vehicle vehicle = vehicles.get(vehicleIds[r]);
+                if (vehicle == null) {
+                    throw new IllegalStateException("vehicle " + vehicleIds[r] + " of cache entry " + hex
+                            + " is not in the problem");
+                }
+                VehicleRoute.Builder route = VehicleRoute.Builder.newInstance(vehicle)
+                        .setJobActivityFactory(problem.getJobActivityFactory());
+                boolean empty = true;
+                for (String jobId : routeJobIds[r]) {
+                    Job job = problemJobs.get(jobId);
+                    if (jobHashes != null && (job == null || !jobHashes.get(jobId).equals(jobs.get(jobId)))) {
+                        continue;
+                    }
+                    ProblemCopies.addJob(route, job);
+                    empty = false;
+                }
+                if (!empty) {
+                    routes.add(route.build());
+                }
+            }
+            return routes;
+        }
+
+        void write(Path file) {
+            try {
+                Files.createDirectories(file.toAbsolutePath().getParent());
+                Path tmp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(),
+                        ".tmp");
+                try {
+                    try (DataOutputStream out = new DataOutputStream(
+                            new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                        out.writeInt(MAGIC);
+                        out.writeInt(VERSION);
+                        out.write(fleet);
+                        out.writeDouble(cost);
+                        out.writeInt(jobs.size());
+                        for (Map.Entry<String, Long> job : jobs.entrySet()) {
+                            out.writeUTF(job.getKey());
+                            out.writeLong(job.getValue());
+                        }
+                        out.writeInt(vehicleIds.length);
+                        for (int r = 0; r < vehicleIds.length; r++) {
+                            out.writeUTF(vehicleIds[r]);
+                            out.writeInt(routeJobIds[r].length);
+                            for (String jobId : routeJobIds[r]) {
+                                out.writeUTF(jobId);
+                            }
+                        }
+                    }
+                    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    // Only left if writing or moving failed.
+                    Files.deleteIfExists(tmp);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("cannot write cache entry " + file, e);
+            }
+        }
+
+        /**
+         * @return the entry in {@code file}, or null if there is none, it belongs to another fleet than
+         * {@code fleet}, or it cannot be read; unreadable files are deleted.
+         */
+        static Entry read(Path file, byte[] fleet) {
+            String name = file.getFileName().toString();
+            String hex = name.substring(0, name.length() - SUFFIX.length());
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    throw new IOException("not a cache entry of version " + VERSION);
+                }
+                byte[] entryFleet = new byte[LocationFingerprint.LENGTH];
+                in.readFully(entryFleet);
+                if (!Arrays.equals(fleet, entryFleet)) {
+                    return null;
+                }
+                double cost = in.readDouble();
+                long size = Files.size(file);
+                int noJobs = checkCount(in.readInt(), size);
+                Map<String, Long> jobs = new TreeMap<>();
+                for (int i = 0; i < noJobs; i++) {
+                    jobs.put(in.readUTF(), in.readLong());
+                }
+                int noRoutes = checkCount(in.readInt(), size);
+                String[] vehicleIds = new String[noRoutes];
+                String[][] routeJobIds = new String[noRoutes][];
+                for (int r = 0; r < noRoutes; r++) {
+                    vehicleIds[r] = in.readUTF();
+                    routeJobIds[r] = new String[checkCount(in.readInt(), size)];
+                    for (int i = 0; i < routeJobIds[r].length; i++) {
+                        routeJobIds[r][i] = in.readUTF();
+                    }
+                }
+                return new Entry(hex, entryFleet, jobs, cost, vehicleIds, routeJobIds);
+            } catch (NoSuchFileException e) {
+                return null;
+            } catch (IOException e) {
+                // Entries are moved into place complete, so this one is corrupt or of another version and would
+                // fail every lookup again. At worst a concurrent put is deleted, which costs a miss.
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException ignored) {
+                    // skipped either way
+                }
+                return null;
+            }
+        }
+
+        // Every counted item takes at least two bytes, so a count beyond the file size is corrupt.
+        private static int checkCount(int count, long size) throws IOException {
+            if (count < 0 || count > size) {
+                throw new IOException("invalid count " + count);
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.algorithm.VehicleRoutingAlgorithm;
+import com.graphhopper.jsprit.core.algorithm.listener.IterationEndsListener;
+import com.graphhopper.jsprit.core.algorithm.state.UpdateActivityTimes;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.RouteActivityVisitor;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Periodically saves the best solution of a running search to a compact binary file, so that a search that is
+ * interrupted, e.g. by a rescheduled container, can resume from it instead of starting over.
+ * <p>
+ * Register it with {@link #attachTo(VehicleRoutingAlgorithm)}. Whenever an iteration ends with a solution better than
+ * any before, it is captured as plain arrays on the search thread; the best capture not written yet is written at
+ * the end of the first iteration at least {@link Builder#setInterval(long, TimeUnit)} after the last checkpoint, or
+ * on {@link #close()}, so an improvement found within the interval is deferred rather than lost. Writes happen on a
+ * background thread and replace the file atomically; if the previous write is still running, only the newest
+ * capture is written after it. The file holds the problem's {@link SolutionCache#fingerprint(VehicleRoutingProblem)}
+ * and every route as the id of its vehicle and the ids of its jobs in visiting order. Like the fingerprint, ids do
+ * not depend on the order vehicles and jobs were added in, whereas jsprit's indices do.
+ * <p>
+ * {@link #read(VehicleRoutingProblem, Path)} turns a checkpoint back into a solution of the same problem, to be
+ * passed to {@link VehicleRoutingAlgorithm#addInitialSolution(VehicleRoutingProblemSolution)}. Like
+ * {@link SolutionCache}, this handles service jobs only.
+ */
+public class SolutionCheckpoint implements IterationEndsListener, Closeable {
+
+    /**
+     * Builder for {@link SolutionCheckpoint}.
+     */
+    public static class Builder {
+
+        /**
+         * @param problem the problem being solved.
+         * @param file    the checkpoint file, replaced on every checkpoint.
+         */
+        public static Builder newInstance(VehicleRoutingProblem problem, Path file) {
+            return new Builder(problem, file);
+        }
+
+        private final VehicleRoutingProblem problem;
+
+        private final Path file;
+
+        private long intervalMillis = 30_000;
+
+        private Builder(VehicleRoutingProblem problem, Path file) {
+            this.problem = problem;
+            this.file = file;
+        }
+
+        /**
+         * Sets the minimum time between two checkpoints. Defaults to 30 seconds.
+         */
+        public Builder setInterval(long interval, TimeUnit unit) {
+            this.intervalMillis = unit.toMillis(interval);
+            return this;
+        }
+
+        public SolutionCheckpoint build() {
+            return new SolutionCheckpoint(this);
+        }
+    }
+
+    private static final int MAGIC = 0x4D564350; // "MVCP"
+
+    private static final int VERSION = 2;
+
+    private final Path file;
+
+    private final long intervalMillis;
+
+    private final byte[] fingerprint;
+
+    private final ExecutorService writer;
+
+    private final AtomicReference<Snapshot> pending = new AtomicReference<>();
+
+    private double bestCost = Double.MAX_VALUE;
+
+    // The best capture not written yet, if any.
+    private Snapshot unwritten;
+
+    private long lastMillis;
+
+    private volatile int noWritten;
+
+    private volatile RuntimeException failure;
+
+    private SolutionCheckpoint(Builder builder) {
+        this.file = builder.file;
+        this.intervalMillis = builder.intervalMillis;
+        this.fingerprint = SolutionCache.fingerprint(builder.problem);
+        this.lastMillis = System.nanoTime() / 1_000_000L - intervalMillis;
+        this.writer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "solution-checkpoint");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Registers this checkpoint with {@code algorithm}.
+     *
+     * @return this checkpoint.
+     */
+    public SolutionCheckpoint attachTo(VehicleRoutingAlgorithm algorithm) {
+        algorithm.addListener(this);
+        return this;
+    }
+
+    @Override
+    public void informIterationEnds(int i, VehicleRoutingProblem problem,
+                                    Collection<VehicleRoutingProblemSolution> solutions) {
+        VehicleRoutingProblemSolution best = null;
+        for (VehicleRoutingProblemSolution solution : solutions) {
+            if (best == null || solution.getCost() < best.getCost()) {
+                best = solution;
+            }
+        }
+        if (best != null && best.getCost() < bestCost) {
+            bestCost = best.getCost();
+            unwritten = new Snapshot(best, i);
+        }
+        long now = System.nanoTime() / 1_000_000L;
+        if (unwritten != null && now - lastMillis >= intervalMillis) {
+            lastMillis = now;
+            submit(unwritten);
+            unwritten = null;
+        }
+    }
+
+    /**
+     * Captures {@code solution} now and writes it in the background, regardless of the interval.
+     *
+     * @param iteration the iteration the solution was found in, stored for information.
+     */
+    public void checkpoint(VehicleRoutingProblemSolution solution, int iteration) {
+        if (solution.getCost() <= bestCost) {
+            bestCost = solution.getCost();
+            unwritten = null;
+        }
+        submit(new Snapshot(solution, iteration));
+    }
+
+    private void submit(Snapshot snapshot) {
+        if (failure != null) {
+            throw failure;
+        }
+        if (pending.getAndSet(snapshot) == null) {
+            writer.execute(new Runnable() {
+                @Override
+                public void run() {
+                    writePending();
+                }
+            });
+        }
+    }
+
+    /**
+     * @return the number of checkpoints written so far.
+     */
+    public int getNoWritten() {
+        return noWritten;
+    }
+
+    /**
+     * Writes the best capture deferred by the interval, if any, waits for the last checkpoint to be written and
+     * stops the background thread.
+     *
+     * @throws UncheckedIOException if a checkpoint could not be written.
+     */
+    @Override
+    public void close() {
+        if (unwritten != null && failure == null) {
+            submit(unwritten);
+            unwritten = null;
+        }
+        writer.shutdown();
+        try {
+            writer.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Rebuilds the solution saved in {@code file} for {@code problem}.
+     *
+     * @return the solution with activity times set, or null if there is no checkpoint.
+     * @throws IllegalStateException if the checkpoint belongs to another problem.
+     */
+    public static VehicleRoutingProblemSolution read(VehicleRoutingProblem problem, Path file) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IllegalStateException(file + " is not a solution checkpoint");
+            }
+            byte[] saved = new byte[LocationFingerprint.LENGTH];
+            in.readFully(saved);
+            if (!Arrays.equals(saved, SolutionCache.fingerprint(problem))) {
+                throw new IllegalStateException("checkpoint " + file + " was written for another problem");
+            }
+            double cost = in.readDouble();
+            in.readInt(); // iteration
+            Map<String, Vehicle> vehicles = new HashMap<>();
+            for (Vehicle vehicle : problem.getVehicles()) {
+                vehicles.put(vehicle.getId(), vehicle);
+            }
+            List<VehicleRoute> routes = new ArrayList<>();
+            int noRoutes = in.readInt();
+            for (int r = 0; r < noRoutes; r++) {
+                VehicleRoute.Builder route = VehicleRoute.Builder.newInstance(lookup(vehicles, in.readUTF(), file))
+                        .setJobActivityFactory(problem.getJobActivityFactory());
+                int noJobs = in.readInt();
+                for (int j = 0; j < noJobs; j++) {
+                    ProblemCopies.addJob(route, lookup(problem.getJobs(), in.readUTF(), file));
+                }
+                routes.add(route.build());
+            }
+            RouteActivityVisitor times = new RouteActivityVisitor()
+                    .addActivityVisitor(new UpdateActivityTimes(problem.getTransportCosts(), problem.getActivityCosts()));
+            Map<String, Job> unassigned = new LinkedHashMap<>(problem.getJobs());
+            for (VehicleRoute route : routes) {
+                times.visit(route);
+                for (Job job : route.getTourActivities().getJobs()) {
+                    unassigned.remove(job.getId());
+                }
+            }
+            return new VehicleRoutingProblemSolution(routes, new ArrayList<>(unassigned.values()), cost);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot read checkpoint " + file, e);
+        }
+    }
+
+    private void writePending() {
+        Snapshot snapshot = pending.getAndSet(null);
+        if (snapshot == null) {
+            return;
+        }
+        try {
+            snapshot.write(file, fingerprint);
+            noWritten++;
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+    }
+
+    private static <T> T lookup(Map<String, T> byId, String id, Path file) {
+        T value = byId.get(id);
+        if (value == null) {
+            throw new IllegalStateException("checkpoint " + file + " refers to unknown id " + id);
+        }
+        return value;
+    }
+
+    /**
+     * A solution as vehicle and job ids, captured on the search thread.
+     */
+    private static final class Snapshot {
+
+        final double cost;
+
+        final int iteration;
+
+        final String[] vehicles;
+
+        final String[][] jobs;
+
+        Snapshot(VehicleRoutingProblemSolution solution, int iteration) {
+            this.cost = solution.getCost();
+            this.iteration = iteration;
+            List<VehicleRoute> routes = new ArrayList<>(solution.getRoutes());
+            this.vehicles = new String[routes.size()];
+            this.jobs = new String[routes.size()][];
+            for (int r = 0; r < routes.size(); r++) {
+                vehicles[r] = routes.get(r).getVehicle().getId();
+                List<TourActivity> activities = routes.get(r).getActivities();
+                String[] route = new String[activities.size()];
+                int n = 0;
+                for (TourActivity activity : activities) {
+                    Job job = ProblemCopies.jobOf(activity);
+                    if (job != null) {
+                        route[n++] = job.getId();
+                    }
+                }
+                jobs[r] = n == route.length ? route : Arrays.copyOf(route, n);
+            }
+        }
+
+        void write(Path file, byte[] fingerprint) {
+            try {
+                Path tmp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(),
+                        ".tmp");
+                try {
+                    try (DataOutputStream out = new DataOutputStream(
+                            new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                        out.writeInt(MAGIC);
+                        out.writeInt(VERSION);
+                        out.write(fingerprint);
+                        out.writeDouble(cost);
+                        out.writeInt(iteration);
+                        out.writeInt(vehicles.length);
+                        for (int r = 0; r < vehicles.length; r++) {
+                            out.writeUTF(vehicles[r]);
+                            out.writeInt(jobs[r].length);
+                            for (String job : jobs[r]) {
+                                out.writeUTF(job);
+                            }
+                        }
+                    }
+                    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    // Only left if writing or moving failed.
+                    Files.deleteIfExists(tmp);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("cannot write checkpoint " + file, e);
+            }
+        }
+    }
+}
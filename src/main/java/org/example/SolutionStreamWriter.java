@@ -0,0 +1,361 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Writes solutions route by route to an {@link OutputStream}, as JSON lines or in a compact binary format.
+ * <p>
+ * JSON lines: per solution one {@code {"type":"solution",...}} line with the cost, number of routes and unassigned
+ * job ids, followed by one {@code {"type":"route",...}} line per route with the vehicle, start and end location and
+ * times, and the activities (name, job, location, arrival and end time).
+ * <p>
+ * Binary: the int {@code 0x4D565253} ("MVRS") and a version byte, then per solution the cost, the number of routes,
+ * the number and ids of unassigned jobs, and per route the vehicle id, start location and departure time, end
+ * location and arrival time, the number of activities and per activity its name, job id (empty if none), location
+ * id, arrival and end time. Numbers are big-endian doubles and unsigned LEB128 varints. Strings are deduplicated:
+ * a varint {@code k} with the low bit clear refers to the {@code (k >> 1)}-th distinct string written so far, with
+ * the low bit set it is followed by {@code k >> 1} bytes of a new UTF-8 string.
+ * <p>
+ * Output is encoded straight into an internal buffer, without intermediate strings per activity.
+ * Not thread-safe.
+ */
+public class SolutionStreamWriter implements Closeable, Flushable {
+
+    /**
+     * Output formats.
+     */
+    public enum Format {
+        JSON_LINES, BINARY;
+
+        /**
+         * @return BINARY for files ending in {@code .bin}, JSON lines otherwise.
+         */
+        public static Format of(Path file) {
+            return file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".bin") ? BINARY : JSON_LINES;
+        }
+    }
+
+    static final int MAGIC = 0x4D565253;
+
+    static final byte VERSION = 1;
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private final OutputStream out;
+
+    private final Format format;
+
+    private final byte[] buffer = new byte[1 << 16];
+
+    private int position;
+
+    // Formats doubles without allocating a String per number.
+    private final StringBuilder number = new StringBuilder(32);
+
+    private final Map<String, Integer> strings = new HashMap<>();
+
+    private int noSolutions;
+
+    public SolutionStreamWriter(OutputStream out, Format format) {
+        this.out = out;
+        this.format = format;
+        if (format == Format.BINARY) {
+            writeInt(MAGIC);
+            writeByte(VERSION);
+        }
+    }
+
+    /**
+     * Writes all solutions in iteration order.
+     */
+    public void writeAll(Collection<VehicleRoutingProblemSolution> solutions) {
+        for (VehicleRoutingProblemSolution solution : solutions) {
+            write(solution);
+        }
+    }
+
+    /**
+     * Writes one solution and its routes.
+     */
+    public void write(VehicleRoutingProblemSolution solution) {
+        if (format == Format.BINARY) {
+            writeBinary(solution);
+        } else {
+            writeJson(solution);
+        }
+        noSolutions++;
+    }
+
+    /**
+     * @return the number of solutions written so far.
+     */
+    public int getNoSolutions() {
+        return noSolutions;
+    }
+
+    @Override
+    public void flush() {
+        try {
+            drain();
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot write solutions", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            drain();
+            out.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot write solutions", e);
+        }
+    }
+
+    private void writeJson(VehicleRoutingProblemSolution solution) {
+        ascii("{\"type\":\"solution\",\"index\":");
+        writeLong(noSolutions);
+        ascii(",\"cost\":");
+        jsonDouble(solution.getCost());
+        ascii(",\"noRoutes\":");
+        writeLong(solution.getRoutes().size());
+        ascii(",\"unassigned\":[");
+        boolean first = true;
+        for (Job job : solution.getUnassignedJobs()) {
+            if (!first) {
+                writeByte(',');
+            }
+            first = false;
+            jsonString(job.getId());
+        }
+        ascii("]}\n");
+
+        for (VehicleRoute route : solution.getRoutes()) {
+            ascii("{\"type\":\"route\",\"solution\":");
+            writeLong(noSolutions);
+            ascii(",\"vehicle\":");
+            jsonString(route.getVehicle().getId());
+            ascii(",\"start\":");
+            jsonString(route.getStart().getLocation().getId());
+            ascii(",\"departure\":");
+            jsonDouble(route.getStart().getEndTime());
+            ascii(",\"end\":");
+            jsonString(route.getEnd().getLocation().getId());
+            ascii(",\"arrival\":");
+            jsonDouble(route.getEnd().getArrTime());
+            ascii(",\"activities\":[");
+            first = true;
+            for (TourActivity activity : route.getActivities()) {
+                ascii(first ? "{\"name\":" : ",{\"name\":");
+                first = false;
+                jsonString(activity.getName());
+                Job job = ProblemCopies.jobOf(activity);
+                if (job != null) {
+                    ascii(",\"job\":");
+                    jsonString(job.getId());
+                }
+                ascii(",\"location\":");
+                jsonString(activity.getLocation().getId());
+                ascii(",\"arrival\":");
+                jsonDouble(activity.getArrTime());
+                ascii(",\"end\":");
+                jsonDouble(activity.getEndTime());
+                writeByte('}');
+            }
+            ascii("]}\n");
+        }
+    }
+
+    private void writeBinary(VehicleRoutingProblemSolution solution) {
+        writeDouble(solution.getCost());
+        writeVarint(solution.getRoutes().size());
+        writeVarint(solution.getUnassignedJobs().size());
+        for (Job job : solution.getUnassignedJobs()) {
+            binaryString(job.getId());
+        }
+        for (VehicleRoute route : solution.getRoutes()) {
+            binaryString(route.getVehicle().getId());
+            binaryString(route.getStart().getLocation().getId());
+            writeDouble(route.getStart().getEndTime());
+            binaryString(route.getEnd().getLocation().getId());
+            writeDouble(route.getEnd().getArrTime());
+            writeVarint(route.getActivities().size());
+            for (TourActivity activity : route.getActivities()) {
+                Job job = ProblemCopies.jobOf(activity);
+                binaryString(activity.getName());
+                binaryString(job == null ? "" : job.getId());
+                binaryString(activity.getLocation().getId());
+                writeDouble(activity.getArrTime());
+                writeDouble(activity.getEndTime());
+            }
+        }
+    }
+
+    private void binaryString(String s) {
+        if (s == null) {
+            s = "";
+        }
+        Integer index = strings.get(s);
+        if (index != null) {
+            writeVarint((long) index << 1);
+            return;
+        }
+        strings.put(s, strings.size());
+        writeVarint((long) utf8Length(s) << 1 | 1);
+        utf8(s);
+    }
+
+    private void jsonString(String s) {
+        writeByte('"');
+        if (s != null) {
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c == '"' || c == '\\') {
+                    writeByte('\\');
+                    writeByte(c);
+                } else if (c < 0x20) {
+                    ascii("\\u00");
+                    writeByte(HEX[c >> 4]);
+                    writeByte(HEX[c & 0xF]);
+                } else if (c < 0x80) {
+                    writeByte(c);
+                } else {
+                    i = utf8Char(s, i);
+                }
+            }
+        }
+        writeByte('"');
+    }
+
+    // JSON has no NaN or infinities; jsprit reports unset times as infinite.
+    private void jsonDouble(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            ascii("null");
+            return;
+        }
+        if (value == (long) value && Math.abs(value) < 1e15) {
+            writeLong((long) value);
+            return;
+        }
+        number.setLength(0);
+        number.append(value);
+        for (int i = 0; i < number.length(); i++) {
+            writeByte(number.charAt(i));
+        }
+    }
+
+    private void writeLong(long value) {
+        number.setLength(0);
+        number.append(value);
+        for (int i = 0; i < number.length(); i++) {
+            writeByte(number.charAt(i));
+        }
+    }
+
+    private void ascii(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            writeByte(s.charAt(i));
+        }
+    }
+
+    private void utf8(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                writeByte(c);
+            } else {
+                i = utf8Char(s, i);
+            }
+        }
+    }
+
+    // Encodes the non-ASCII code point at index i and returns the index of its last char.
+    private int utf8Char(String s, int i) {
+        int codePoint = s.codePointAt(i);
+        if (codePoint < 0x800) {
+            writeByte(0xC0 | codePoint >> 6);
+        } else if (codePoint < 0x10000) {
+            writeByte(0xE0 | codePoint >> 12);
+            writeByte(0x80 | (codePoint >> 6 & 0x3F));
+        } else {
+            writeByte(0xF0 | codePoint >> 18);
+            writeByte(0x80 | (codePoint >> 12 & 0x3F));
+            writeByte(0x80 | (codePoint >> 6 & 0x3F));
+        }
+        writeByte(0x80 | (codePoint & 0x3F));
+        return i + Character.charCount(codePoint) - 1;
+    }
+
+    private static int utf8Length(String s) {
+        int length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private void writeVarint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        writeByte((int) value);
+    }
+
+    private void writeDouble(double value) {
+        long bits = Double.doubleToLongBits(value);
+        writeInt((int) (bits >>> 32));
+        writeInt((int) bits);
+    }
+
+    private void writeInt(int value) {
+        writeByte(value >>> 24);
+        writeByte(value >>> 16);
+        writeByte(value >>> 8);
+        writeByte(value);
+    }
+
+    private void writeByte(int b) {
+        if (position == buffer.length) {
+            try {
+                drain();
+            } catch (IOException e) {
+                throw new UncheckedIOException("cannot write solutions", e);
+            }
+        }
+        buffer[position++] = (byte) b;
+    }
+
+    private void drain() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+}
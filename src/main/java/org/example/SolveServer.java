@@ -0,0 +1,548 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Long-running solve service on the JDK's built-in HTTP server, so that class loading, JIT compilation and distance
+ * matrices are paid for once instead of once per solve.
+ * <p>
+ * Endpoints:
+ * <ul>
+ * <li>{@code POST /solve[?iterations=n][&timeout=ms][&seed=n][&fleet=finite]} takes a problem in the CSV format
+ * of {@link ProblemLoader}, or in its binary format with {@code Content-Type: application/octet-stream}, and answers
+ * with the best solution as JSON lines written by {@link SolutionStreamWriter}. Malformed problems and parameters,
+ * such as {@code iterations} below 1 or a negative {@code timeout}, get a 400, and bodies above
+ * {@link Builder#setMaxRequestBytes(int)} a 413.</li>
+ * <li>{@code GET /metrics} answers with the queue depth, request counters, matrix cache hits and the solve latency
+ * as one JSON object.</li>
+ * <li>{@code GET /health} answers {@code ok}.</li>
+ * </ul>
+ * Solves run on a fixed pool of workers, by default one per core, behind a bounded queue. When the queue is full a
+ * request is rejected at once with a 503 and a {@code Retry-After} header instead of piling up. Distance matrices
+ * are kept in an LRU cache keyed by the {@link LocationFingerprint} of the problem's locations; concurrent requests
+ * for the same locations share one build.
+ */
+public class SolveServer implements Closeable {
+
+    /**
+     * Builder for {@link SolveServer}.
+     */
+    public static class Builder {
+
+        public static Builder newInstance() {
+            return new Builder();
+        }
+
+        private int port = 8080;
+
+        private int noWorkers = Runtime.getRuntime().availableProcessors();
+
+        private int queueCapacity = -1;
+
+        private int matrixCacheSize = 16;
+
+        private int maxIterations = 2000;
+
+        private int maxRequestBytes = 64 << 20;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the port to listen on; 0 picks a free one, see {@link SolveServer#getPort()}. Defaults to 8080.
+         */
+        public Builder setPort(int port) {
+            this.port = port;
+            return this;
+        }
+
+        /**
+         * Sets the number of concurrent solves. Defaults to the number of cores.
+         */
+        public Builder setNoWorkers(int noWorkers) {
+            if (noWorkers < 1) {
+                throw new IllegalArgumentException("number of workers must be positive");
+            }
+            this.noWorkers = noWorkers;
+            return this;
+        }
+
+        /**
+         * Sets how many solves may wait for a worker before requests are rejected. Defaults to twice the number of
+         * workers.
+         */
+        public Builder setQueueCapacity(int queueCapacity) {
+            if (queueCapacity < 1) {
+                throw new IllegalArgumentException("queue capacity must be positive");
+            }
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        /**
+         * Sets the number of distance matrices kept between requests. Defaults to 16.
+         */
+        public Builder setMatrixCacheSize(int matrixCacheSize) {
+            this.matrixCacheSize = matrixCacheSize;
+            return this;
+        }
+
+        /**
+         * Sets the iteration limit of requests that do not ask for one, and the upper bound for those that do.
+         * Defaults to 2000.
+         */
+        public Builder setMaxIterations(int maxIterations) {
+            this.maxIterations = maxIterations;
+            return this;
+        }
+
+        /**
+         * Sets the largest problem body accepted; larger requests get a 413 before more than this is read.
+         * Defaults to 64 MiB.
+         */
+        public Builder setMaxRequestBytes(int maxRequestBytes) {
+            if (maxRequestBytes < 1) {
+                throw new IllegalArgumentException("maximum request size must be positive");
+            }
+            this.maxRequestBytes = maxRequestBytes;
+            return this;
+        }
+
+        public SolveServer build() {
+            return new SolveServer(this);
+        }
+    }
+
+    /**
+     * Request counters and latencies at one point in time.
+     */
+    public static class Snapshot {
+
+        private final int queueDepth;
+
+        private final int activeSolves;
+
+        private final long completed;
+
+        private final long rejected;
+
+        private final long failed;
+
+        private final long matrixCacheHits;
+
+        private final long matrixCacheMisses;
+
+        private final long[] latencyMillis;
+
+        Snapshot(int queueDepth, int activeSolves, long completed, long rejected, long failed, long matrixCacheHits,
+                 long matrixCacheMisses, long[] latencyMillis) {
+            this.queueDepth = queueDepth;
+            this.activeSolves = activeSolves;
+            this.completed = completed;
+            this.rejected = rejected;
+            this.failed = failed;
+            this.matrixCacheHits = matrixCacheHits;
+            this.matrixCacheMisses = matrixCacheMisses;
+            this.latencyMillis = latencyMillis;
+            Arrays.sort(this.latencyMillis);
+        }
+
+        /**
+         * @return the number of solves waiting for a worker.
+         */
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        public int getActiveSolves() {
+            return activeSolves;
+        }
+
+        public long getCompleted() {
+            return completed;
+        }
+
+        /**
+         * @return the number of requests turned away because the queue was full.
+         */
+        public long getRejected() {
+            return rejected;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+
+        public long getMatrixCacheHits() {
+            return matrixCacheHits;
+        }
+
+        public long getMatrixCacheMisses() {
+            return matrixCacheMisses;
+        }
+
+        /**
+         * @param quantile between 0 and 1.
+         * @return the latency from receiving a request to finishing its solve, queueing included, over the most
+         * recent {@value SolveServer#LATENCY_WINDOW} solves; 0 before the first.
+         */
+        public long getLatencyMillis(double quantile) {
+            if (latencyMillis.length == 0) {
+                return 0;
+            }
+            int i = (int) Math.ceil(quantile * latencyMillis.length) - 1;
+            return latencyMillis[Math.max(0, Math.min(latencyMillis.length - 1, i))];
+        }
+
+        public String toJson() {
+            return "{\"queueDepth\":" + queueDepth + ",\"activeSolves\":" + activeSolves + ",\"completed\":" + completed
+                    + ",\"rejected\":" + rejected + ",\"failed\":" + failed + ",\"matrixCacheHits\":" + matrixCacheHits
+                    + ",\"matrixCacheMisses\":" + matrixCacheMisses + ",\"latencySamples\":" + latencyMillis.length
+                    + ",\"latencyP50Millis\":" + getLatencyMillis(0.5) + ",\"latencyP95Millis\":"
+                    + getLatencyMillis(0.95) + ",\"latencyMaxMillis\":" + getLatencyMillis(1) + "}";
+        }
+
+        @Override
+        public String toString() {
+            return toJson();
+        }
+    }
+
+    static final int LATENCY_WINDOW = 1024;
+
+    private final HttpServer server;
+
+    private final ExecutorService handlers;
+
+    private final ThreadPoolExecutor workers;
+
+    private final int maxIterations;
+
+    private final int maxRequestBytes;
+
+    private final Map<String, FutureTask<IndexedTransportCosts>> matrices;
+
+    private final AtomicLong completed = new AtomicLong();
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    private final AtomicLong failed = new AtomicLong();
+
+    private final AtomicLong matrixCacheHits = new AtomicLong();
+
+    private final AtomicLong matrixCacheMisses = new AtomicLong();
+
+    // Ring buffer of the most recent latencies; guarded by itself.
+    private final long[] latencyMillis = new long[LATENCY_WINDOW];
+
+    private long noLatencies;
+
+    private SolveServer(Builder builder) {
+        final int matrixCacheSize = builder.matrixCacheSize;
+        this.matrices = new LinkedHashMap<String, FutureTask<IndexedTransportCosts>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, FutureTask<IndexedTransportCosts>> eldest) {
+                return size() > matrixCacheSize;
+            }
+        };
+        this.maxIterations = builder.maxIterations;
+        this.maxRequestBytes = builder.maxRequestBytes;
+        int queueCapacity = builder.queueCapacity > 0 ? builder.queueCapacity : 2 * builder.noWorkers;
+        this.workers = new ThreadPoolExecutor(builder.noWorkers, builder.noWorkers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(queueCapacity), daemonThreads("solve-worker"),
+                new ThreadPoolExecutor.AbortPolicy());
+        // Handler threads only read requests and wait for workers, so they are cheap and not bounded themselves.
+        this.handlers = Executors.newCachedThreadPool(daemonThreads("solve-http"));
+        try {
+            this.server = HttpServer.create(new InetSocketAddress(builder.port), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot listen on port " + builder.port, e);
+        }
+        server.setExecutor(handlers);
+        server.createContext("/solve", new SolveHandler());
+        server.createContext("/metrics", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                respond(exchange, 200, "application/json", getSnapshot().toJson() + "\n");
+            }
+        });
+        server.createContext("/health", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                respond(exchange, 200, "text/plain", "ok\n");
+            }
+        });
+    }
+
+    private static ThreadFactory daemonThreads(final String name) {
+        final AtomicInteger count = new AtomicInteger();
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, name + "-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    /**
+     * Starts a server on the port given by {@code -Dserver.port}, 8080 by default, and serves until the JVM exits.
+     */
+    public static void main(String[] args) {
+        SolveServer server = Builder.newInstance().setPort(Integer.getInteger("server.port", 8080)).build();
+        server.start();
+        System.out.println("Solve server listening on port " + server.getPort());
+    }
+
+    public SolveServer start() {
+        server.start();
+        return this;
+    }
+
+    /**
+     * @return the port the server listens on.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public Snapshot getSnapshot() {
+        long[] latencies;
+        synchronized (latencyMillis) {
+            latencies = Arrays.copyOf(latencyMillis, (int) Math.min(noLatencies, LATENCY_WINDOW));
+        }
+        return new Snapshot(workers.getQueue().size(), workers.getActiveCount(), completed.get(), rejected.get(),
+                failed.get(), matrixCacheHits.get(), matrixCacheMisses.get(), latencies);
+    }
+
+    /**
+     * Stops accepting requests, gives running exchanges a second to finish and stops the workers.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        workers.shutdownNow();
+        handlers.shutdownNow();
+    }
+
+    /**
+     * @return the matrix for these locations, built on the calling thread if it is neither cached nor being built.
+     */
+    IndexedTransportCosts matrixFor(final List<Location> locations) throws InterruptedException {
+        String key = LocationFingerprint.toHex(LocationFingerprint.of(locations));
+        FutureTask<IndexedTransportCosts> task;
+        boolean owner = false;
+        synchronized (matrices) {
+            task = matrices.get(key);
+            if (task == null) {
+                task = new FutureTask<>(new Callable<IndexedTransportCosts>() {
+                    @Override
+                    public IndexedTransportCosts call() {
+                        return DenseTransportCostsMatrix.Builder.newInstance(locations).build();
+                    }
+                });
+                matrices.put(key, task);
+                owner = true;
+            }
+        }
+        if (owner) {
+            matrixCacheMisses.incrementAndGet();
+            task.run();
+        } else {
+            matrixCacheHits.incrementAndGet();
+        }
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            synchronized (matrices) {
+                matrices.remove(key, task);
+            }
+            throw new IllegalStateException("cannot build matrix", e.getCause());
+        }
+    }
+
+    private void recordLatency(long millis) {
+        synchronized (latencyMillis) {
+            latencyMillis[(int) (noLatencies++ % LATENCY_WINDOW)] = millis;
+        }
+    }
+
+    private final class SolveHandler implements HttpHandler {
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            final long received = System.nanoTime();
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                respond(exchange, 405, "text/plain", "use POST\n");
+                return;
+            }
+            final ProblemLoader loader;
+            final Map<String, String> params = queryParams(exchange.getRequestURI().getRawQuery());
+            final int iterations;
+            final long timeoutMillis;
+            final long seed;
+            byte[] bytes = readAll(exchange.getRequestBody(), maxRequestBytes);
+            if (bytes == null) {
+                respond(exchange, 413, "text/plain", "request body exceeds " + maxRequestBytes + " bytes\n");
+                return;
+            }
+            try {
+                ByteBuffer body = ByteBuffer.wrap(bytes);
+                String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+                loader = contentType != null && contentType.startsWith("application/octet-stream")
+                        ? ProblemLoader.loadBinary(body, "request")
+                        : ProblemLoader.loadCsv(body, "request");
+                iterations = Math.min(maxIterations, intParam(params, "iterations", maxIterations, 1));
+                timeoutMillis = intParam(params, "timeout", -1, 0);
+                seed = intParam(params, "seed", 42, Integer.MIN_VALUE);
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                respond(exchange, 400, "text/plain", e.getMessage() + "\n");
+                return;
+            }
+
+            Future<VehicleRoutingProblemSolution> solution;
+            try {
+                solution = workers.submit(new Callable<VehicleRoutingProblemSolution>() {
+                    @Override
+                    public VehicleRoutingProblemSolution call() throws InterruptedException {
+                        VehicleRoutingProblem.Builder problem = loader.newProblemBuilder()
+                                .setRoutingCost(matrixFor(loader.getLocations()));
+                        if ("finite".equalsIgnoreCase(params.get("fleet"))) {
+                            problem.setFleetSize(VehicleRoutingProblem.FleetSize.FINITE);
+                        }
+                        AnytimeSolver.Builder solver = AnytimeSolver.Builder.newInstance(problem.build())
+                                .setMaxIterations(iterations)
+                                .setSeed(seed);
+                        if (timeoutMillis >= 0) {
+                            solver.setTimeBudget(timeoutMillis, TimeUnit.MILLISECONDS);
+                        }
+                        VehicleRoutingProblemSolution best = solver.build().solve();
+                        recordLatency((System.nanoTime() - received) / 1_000_000L);
+                        return best;
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                rejected.incrementAndGet();
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                respond(exchange, 503, "text/plain", "solve queue is full\n");
+                return;
+            }
+
+            VehicleRoutingProblemSolution best;
+            try {
+                best = solution.get();
+            } catch (InterruptedException e) {
+                solution.cancel(true);
+                Thread.currentThread().interrupt();
+                failed.incrementAndGet();
+                respond(exchange, 503, "text/plain", "server is stopping\n");
+                return;
+            } catch (ExecutionException e) {
+                failed.incrementAndGet();
+                respond(exchange, 500, "text/plain", e.getCause() + "\n");
+                return;
+            }
+            completed.incrementAndGet();
+            exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+            exchange.sendResponseHeaders(200, 0);
+            try (SolutionStreamWriter writer = new SolutionStreamWriter(exchange.getResponseBody(),
+                    SolutionStreamWriter.Format.JSON_LINES)) {
+                writer.write(best);
+            }
+        }
+    }
+
+    private static Map<String, String> queryParams(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                int eq = pair.indexOf('=');
+                if (eq > 0) {
+                    params.put(pair.substring(0, eq).toLowerCase(Locale.ROOT), pair.substring(eq + 1));
+                }
+            }
+        }
+        return params;
+    }
+
+    // The default is returned as is; given values below min are rejected.
+    private static int intParam(Map<String, String> params, String name, int defaultValue, int min) {
+        String value = params.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        int parsed;
+        try {
+            parsed = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("parameter " + name + " is not a number: " + value);
+        }
+        if (parsed < min) {
+            throw new IllegalArgumentException("parameter " + name + " must be at least " + min + ": " + value);
+        }
+        return parsed;
+    }
+
+    /**
+     * @return the bytes of {@code in}, or null as soon as there are more than {@code maxBytes}.
+     */
+    private static byte[] readAll(InputStream in, int maxBytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.min(maxBytes, 1 << 16));
+        byte[] buffer = new byte[1 << 16];
+        int n;
+        // Asks for one byte more than still allowed, so an oversized body is noticed without reading it all.
+        while ((n = in.read(buffer, 0, (int) Math.min(buffer.length, maxBytes - out.size() + 1L))) > 0) {
+            if (n > maxBytes - out.size()) {
+                return null;
+            }
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, String body)
+            throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
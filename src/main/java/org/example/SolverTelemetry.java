@@ -0,0 +1,418 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.algorithm.SearchStrategy;
+import com.graphhopper.jsprit.core.algorithm.VehicleRoutingAlgorithm;
+import com.graphhopper.jsprit.core.algorithm.listener.AlgorithmEndsListener;
+import com.graphhopper.jsprit.core.algorithm.listener.AlgorithmStartsListener;
+import com.graphhopper.jsprit.core.algorithm.listener.IterationEndsListener;
+import com.graphhopper.jsprit.core.algorithm.listener.IterationStartsListener;
+import com.graphhopper.jsprit.core.algorithm.listener.StrategySelectedListener;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Records how a {@link VehicleRoutingAlgorithm} spends its time: per iteration the best cost so far, the cost of
+ * the solution the strategy produced and whether it was accepted, the strategy id, the latency and the bytes
+ * allocated; per run the total solve time and any named phases recorded by the caller, e.g. the matrix build.
+ * <p>
+ * Register it with {@link #attachTo(VehicleRoutingAlgorithm)}. Iterations are streamed to an optional CSV or
+ * JSON-lines file as they finish, and {@link #getSnapshot()} may be called from any thread while the search runs.
+ * Every CSV row has the same columns; the first, {@code record}, tells iteration rows from phase rows, which leave
+ * the iteration columns empty.
+ * Allocation is measured for the thread running the search, so it misses work jsprit hands to other threads.
+ */
+public class SolverTelemetry implements AlgorithmStartsListener, IterationStartsListener, StrategySelectedListener,
+        IterationEndsListener, AlgorithmEndsListener, Closeable {
+
+    /**
+     * Output file formats.
+     */
+    public enum Format {
+        CSV, JSON_LINES;
+
+        /**
+         * @return CSV for files ending in {@code .csv}, JSON lines otherwise.
+         */
+        public static Format of(Path file) {
+            return file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv") ? CSV : JSON_LINES;
+        }
+    }
+
+    /**
+     * Metrics of a single iteration.
+     */
+    public static class Iteration {
+
+        private final int iteration;
+
+        private final String strategyId;
+
+        private final double cost;
+
+        private final boolean accepted;
+
+        private final double bestCost;
+
+        private final long nanos;
+
+        private final long allocatedBytes;
+
+        Iteration(int iteration, String strategyId, double cost, boolean accepted, double bestCost, long nanos,
+                  long allocatedBytes) {
+            this.iteration = iteration;
+            this.strategyId = strategyId;
+            this.cost = cost;
+            this.accepted = accepted;
+            this.bestCost = bestCost;
+            this.nanos = nanos;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        public int getIteration() {
+            return iteration;
+        }
+
+        /**
+         * @return the id of the ruin-and-recreate strategy that ran.
+         */
+        public String getStrategyId() {
+            return strategyId;
+        }
+
+        /**
+         * @return the cost of the solution the strategy produced.
+         */
+        public double getCost() {
+            return cost;
+        }
+
+        public boolean isAccepted() {
+            return accepted;
+        }
+
+        /**
+         * @return the best cost found up to and including this iteration.
+         */
+        public double getBestCost() {
+            return bestCost;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * @return the bytes allocated by the search thread during the iteration, or -1 if the JVM cannot tell.
+         */
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        /**
+         * @return the allocation rate in bytes per second, or -1 if the JVM cannot tell.
+         */
+        public double getAllocationRate() {
+            return allocatedBytes < 0 || nanos == 0 ? -1 : allocatedBytes * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return "[iteration=" + iteration + "][strategy=" + strategyId + "][cost=" + cost + "][accepted="
+                    + accepted + "][bestCost=" + bestCost + "][nanos=" + nanos + "]";
+        }
+    }
+
+    /**
+     * Immutable view of the metrics recorded so far.
+     */
+    public static class Snapshot {
+
+        private final List<Iteration> iterations;
+
+        private final Map<String, Long> phaseNanos;
+
+        private final long solveNanos;
+
+        private final boolean finished;
+
+        Snapshot(List<Iteration> iterations, Map<String, Long> phaseNanos, long solveNanos, boolean finished) {
+            this.iterations = iterations;
+            this.phaseNanos = phaseNanos;
+            this.solveNanos = solveNanos;
+            this.finished = finished;
+        }
+
+        public List<Iteration> getIterations() {
+            return iterations;
+        }
+
+        /**
+         * @return the best cost so far, or {@link Double#NaN} before the first iteration.
+         */
+        public double getBestCost() {
+            return iterations.isEmpty() ? Double.NaN : iterations.get(iterations.size() - 1).getBestCost();
+        }
+
+        /**
+         * @return the durations of the phases recorded with {@link SolverTelemetry#recordPhase(String, long)}.
+         */
+        public Map<String, Long> getPhaseNanos() {
+            return phaseNanos;
+        }
+
+        /**
+         * @return the time since the algorithm started, or the total solve time once it has finished.
+         */
+        public long getSolveNanos() {
+            return solveNanos;
+        }
+
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public String toString() {
+            return "[iterations=" + iterations.size() + "][bestCost=" + getBestCost() + "][solveMillis="
+                    + solveNanos / 1_000_000L + "][phaseNanos=" + phaseNanos + "]";
+        }
+    }
+
+    private static final String CSV_HEADER = "record,name,iteration,cost,accepted,bestCost,nanos,allocatedBytes";
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    private final BufferedWriter out;
+
+    private final Format format;
+
+    private final List<Iteration> iterations = new ArrayList<>();
+
+    private final Map<String, Long> phaseNanos = new LinkedHashMap<>();
+
+    private long solveStart;
+
+    private long solveEnd;
+
+    private double bestCost = Double.NaN;
+
+    // State of the running iteration; only touched by the search thread.
+    private long iterationStart;
+
+    private long iterationStartBytes;
+
+    private SearchStrategy.DiscoveredSolution discovered;
+
+    /**
+     * Creates telemetry that is only kept in memory.
+     */
+    public SolverTelemetry() {
+        this.out = null;
+        this.format = null;
+    }
+
+    /**
+     * Creates telemetry that also streams every iteration and phase to {@code file}, replacing its content.
+     */
+    public SolverTelemetry(Path file, Format format) {
+        try {
+            this.out = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+            this.format = format;
+            if (format == Format.CSV) {
+                out.write(CSV_HEADER);
+                out.newLine();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot write telemetry to " + file, e);
+        }
+    }
+
+    /**
+     * Registers this telemetry with all listener hooks of {@code algorithm}.
+     *
+     * @return this telemetry.
+     */
+    public SolverTelemetry attachTo(VehicleRoutingAlgorithm algorithm) {
+        algorithm.addListener(this);
+        return this;
+    }
+
+    /**
+     * Records the duration of a phase outside the search, such as building the cost matrix.
+     */
+    public synchronized void recordPhase(String name, long nanos) {
+        phaseNanos.put(name, nanos);
+        write(format == Format.CSV ? "phase," + csvField(name) + ",,,,," + nanos + ","
+                : "{\"phase\":" + jsonString(name) + ",\"nanos\":" + nanos + "}");
+    }
+
+    /**
+     * @return the metrics recorded so far.
+     */
+    public synchronized Snapshot getSnapshot() {
+        boolean finished = solveEnd != 0;
+        long solveNanos = solveStart == 0 ? 0 : (finished ? solveEnd : System.nanoTime()) - solveStart;
+        return new Snapshot(Collections.unmodifiableList(new ArrayList<>(iterations)),
+                Collections.unmodifiableMap(new LinkedHashMap<>(phaseNanos)), solveNanos, finished);
+    }
+
+    @Override
+    public synchronized void informAlgorithmStarts(VehicleRoutingProblem problem, VehicleRoutingAlgorithm algorithm,
+                                                   Collection<VehicleRoutingProblemSolution> solutions) {
+        iterations.clear();
+        bestCost = Double.NaN;
+        solveStart = System.nanoTime();
+        solveEnd = 0;
+    }
+
+    @Override
+    public void informIterationStarts(int i, VehicleRoutingProblem problem,
+                                      Collection<VehicleRoutingProblemSolution> solutions) {
+        discovered = null;
+        iterationStartBytes = allocatedBytes();
+        iterationStart = System.nanoTime();
+    }
+
+    @Override
+    public void informSelectedStrategy(SearchStrategy.DiscoveredSolution discoveredSolution,
+                                       VehicleRoutingProblem problem,
+                                       Collection<VehicleRoutingProblemSolution> solutions) {
+        discovered = discoveredSolution;
+    }
+
+    @Override
+    public void informIterationEnds(int i, VehicleRoutingProblem problem,
+                                    Collection<VehicleRoutingProblemSolution> solutions) {
+        long nanos = System.nanoTime() - iterationStart;
+        long bytes = allocatedBytes();
+        long allocated = bytes < 0 || iterationStartBytes < 0 ? -1 : bytes - iterationStartBytes;
+        String strategyId = discovered == null ? "" : discovered.getStrategyId();
+        double cost = discovered == null ? Double.NaN : discovered.getSolution().getCost();
+        boolean accepted = discovered != null && discovered.isAccepted();
+        synchronized (this) {
+            if (Double.isNaN(bestCost) || cost < bestCost) {
+                bestCost = cost;
+            }
+            Iteration iteration = new Iteration(i, strategyId, cost, accepted, bestCost, nanos, allocated);
+            iterations.add(iteration);
+            write(format == Format.CSV ? toCsv(iteration) : toJson(iteration));
+        }
+    }
+
+    @Override
+    public synchronized void informAlgorithmEnds(VehicleRoutingProblem problem,
+                                                 Collection<VehicleRoutingProblemSolution> solutions) {
+        solveEnd = System.nanoTime();
+        recordPhase("solve", solveEnd - solveStart);
+        flush();
+    }
+
+    /**
+     * Flushes and closes the output file, if any.
+     */
+    @Override
+    public synchronized void close() {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("cannot close telemetry output", e);
+            }
+        }
+    }
+
+    private long allocatedBytes() {
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+            if (sunThreads.isThreadAllocatedMemorySupported() && sunThreads.isThreadAllocatedMemoryEnabled()) {
+                return sunThreads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    private void write(String line) {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.write(line);
+            out.newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot write telemetry", e);
+        }
+    }
+
+    private void flush() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot write telemetry", e);
+        }
+    }
+
+    private static String toCsv(Iteration it) {
+        return "iteration," + csvField(it.getStrategyId()) + "," + it.getIteration() + "," + it.getCost() + ","
+                + it.isAccepted() + "," + it.getBestCost() + "," + it.getNanos() + "," + it.getAllocatedBytes();
+    }
+
+    private static String toJson(Iteration it) {
+        return "{\"iteration\":" + it.getIteration() + ",\"strategy\":" + jsonString(it.getStrategyId()) + ",\"cost\":"
+                + jsonNumber(it.getCost()) + ",\"accepted\":" + it.isAccepted() + ",\"bestCost\":"
+                + jsonNumber(it.getBestCost()) + ",\"nanos\":" + it.getNanos() + ",\"allocatedBytes\":"
+                + it.getAllocatedBytes() + "}";
+    }
+
+    // Quotes fields holding separators, quotes or line breaks, doubling the quotes (RFC 4180).
+    private static String csvField(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return '"' + value.replace("\"", "\"\"") + '"';
+            }
+        }
+        return value;
+    }
+
+    private static String jsonString(String value) {
+        StringBuilder json = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+            } else {
+                json.append(c);
+            }
+        }
+        return json.append('"').toString();
+    }
+
+    // JSON has no NaN or infinities.
+    private static String jsonNumber(double value) {
+        return Double.isNaN(value) || Double.isInfinite(value) ? "null" : Double.toString(value);
+    }
+}
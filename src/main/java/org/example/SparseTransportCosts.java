@@ -0,0 +1,184 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.problem.Location;
+
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Transport costs that store distances only between every location and its {@code k} nearest neighbours, and
+ * compute all other distances on the fly with a {@link GeodesicKernel}.
+ * <p>
+ * Memory is {@code 12 * N * k} bytes for the neighbour lists and distances plus the kernel's and the spatial
+ * index's tables, instead of {@code 8 * N * N} for {@link DenseTransportCostsMatrix}. A lookup scans the neighbour
+ * list of the origin, then that of the destination, and falls back to {@link SpatialIndex#distance(int, int)} for a
+ * haversine kernel, which takes one arc sine instead of the haversine's trigonometry, or to the kernel otherwise.
+ * Stored distances start as the kernel's distance and can be replaced, e.g. by road distances, through
+ * {@link Builder#addTransportDistance(int, int, double)}. Travel times are 0, as for a
+ * {@link DenseTransportCostsMatrix} without times.
+ * <p>
+ * Lookups are slower than the dense matrix's single array read (about 1.4x the solve time on 400 stops), so this
+ * pays off where the dense matrix does not fit in memory.
+ * <p>
+ * The neighbour lists also serve to prune the search, see {@link NeighbourInsertionConstraint}.
+ */
+public class SparseTransportCosts extends IndexedTransportCosts {
+
+    /**
+     * Builder for {@link SparseTransportCosts}.
+     */
+    public static class Builder {
+
+        /**
+         * Creates a builder over indexed locations with haversine fallback, computing the neighbour lists on the
+         * common {@link ForkJoinPool}.
+         *
+         * @param locations the indexed locations.
+         * @param k         the number of neighbours stored per location.
+         */
+        public static Builder newInstance(Collection<Location> locations, int k) {
+            return newInstance(GeodesicKernel.of(locations, GeodesicKernel.Mode.HAVERSINE), k,
+                    ForkJoinPool.commonPool());
+        }
+
+        /**
+         * @param kernel the points, one per location index, and the fallback distance mode.
+         * @param k      the number of neighbours stored per location.
+         * @param pool   the pool the neighbour lists are computed on.
+         */
+        public static Builder newInstance(GeodesicKernel kernel, int k, ForkJoinPool pool) {
+            return new Builder(kernel, k, pool);
+        }
+
+        private final GeodesicKernel kernel;
+
+        private final SpatialIndex index;
+
+        private final int k;
+
+        private final int[] neighbours;
+
+        private final double[] distances;
+
+        private Builder(GeodesicKernel kernel, int k, ForkJoinPool pool) {
+            if (k < 1) {
+                throw new IllegalArgumentException("k must be positive");
+            }
+            this.kernel = kernel;
+            this.index = SpatialIndex.of(kernel);
+            this.k = k;
+            this.neighbours = index.nearest(k, pool);
+            this.distances = new double[neighbours.length];
+            for (int i = 0; i < neighbours.length; i++) {
+                distances[i] = neighbours[i] < 0 ? Double.NaN : kernel.distance(i / k, neighbours[i]);
+            }
+        }
+
+        /**
+         * Replaces the stored distance of a neighbour pair in both directions.
+         *
+         * @throws IllegalArgumentException if neither location is among the other's neighbours.
+         */
+        public Builder addTransportDistance(int fromIndex, int toIndex, double distance) {
+            int forward = slot(neighbours, k, fromIndex, toIndex);
+            int backward = slot(neighbours, k, toIndex, fromIndex);
+            if (forward < 0 && backward < 0) {
+                throw new IllegalArgumentException(fromIndex + " and " + toIndex + " are not neighbours");
+            }
+            if (forward >= 0) {
+                distances[forward] = distance;
+            }
+            if (backward >= 0) {
+                distances[backward] = distance;
+            }
+            return this;
+        }
+
+        public SparseTransportCosts build() {
+            return new SparseTransportCosts(this);
+        }
+    }
+
+    private final GeodesicKernel kernel;
+
+    private final SpatialIndex index;
+
+    private final int k;
+
+    private final int[] neighbours;
+
+    private final double[] distances;
+
+    private SparseTransportCosts(Builder builder) {
+        this.kernel = builder.kernel;
+        this.index = builder.index;
+        this.k = builder.k;
+        this.neighbours = builder.neighbours;
+        this.distances = builder.distances;
+    }
+
+    @Override
+    public int getNoLocations() {
+        return kernel.size();
+    }
+
+    /**
+     * @return the number of neighbours stored per location.
+     */
+    public int getNoNeighbours() {
+        return k;
+    }
+
+    /**
+     * @return the {@code rank}-th nearest neighbour of location {@code index}, 0 being the nearest, or -1 if there
+     * are fewer locations.
+     */
+    public int getNeighbour(int index, int rank) {
+        return neighbours[index * k + rank];
+    }
+
+    /**
+     * @return true if {@code toIndex} is among the neighbours of {@code fromIndex}.
+     */
+    public boolean isNeighbour(int fromIndex, int toIndex) {
+        return slot(neighbours, k, fromIndex, toIndex) >= 0;
+    }
+
+    /**
+     * @return the spatial index over the locations, e.g. to snap coordinates to the nearest location.
+     */
+    public SpatialIndex getSpatialIndex() {
+        return index;
+    }
+
+    @Override
+    public double getDistance(int fromIndex, int toIndex) {
+        if (fromIndex == toIndex) {
+            return 0.0;
+        }
+        int slot = slot(neighbours, k, fromIndex, toIndex);
+        if (slot < 0) {
+            slot = slot(neighbours, k, toIndex, fromIndex);
+        }
+        if (slot >= 0) {
+            return distances[slot];
+        }
+        return kernel.getMode() == GeodesicKernel.Mode.HAVERSINE ? index.distance(fromIndex, toIndex)
+                : kernel.distance(fromIndex, toIndex);
+    }
+
+    @Override
+    public double getTransportTime(int fromIndex, int toIndex) {
+        return 0.0;
+    }
+
+    private static int slot(int[] neighbours, int k, int fromIndex, int toIndex) {
+        int offset = fromIndex * k;
+        for (int i = offset; i < offset + k; i++) {
+            if (neighbours[i] == toIndex) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,310 @@
+package org.example;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * k-d tree over the points of a {@link GeodesicKernel} for nearest-neighbour queries.
+ * <p>
+ * Points are placed on the unit sphere as 3-d vectors. The straight-line (chord) distance between two such vectors
+ * grows monotonically with their great-circle distance, so neighbours found with plain Euclidean comparisons are
+ * exactly the great-circle neighbours, across the antimeridian and near the poles as well. The tree is implicit:
+ * a permutation of the point indices where the median of every range splits it on one axis, so it costs one
+ * {@code int} and three {@code double}s per point and queries allocate nothing but their result.
+ * <p>
+ * Immutable and thread-safe once built.
+ */
+public final class SpatialIndex {
+
+    // Ranges of at most this many points are scanned instead of split further.
+    private static final int LEAF_SIZE = 8;
+
+    // Number of points below which a kNN batch task is computed directly instead of being split further.
+    private static final int SEQUENTIAL_THRESHOLD = 1024;
+
+    private final double[] x;
+
+    private final double[] y;
+
+    private final double[] z;
+
+    // Tree order: the range [lo, hi) is split at (lo + hi) >>> 1 on axis depth % 3.
+    private final int[] tree;
+
+    private SpatialIndex(double[] x, double[] y, double[] z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.tree = new int[x.length];
+        for (int i = 0; i < tree.length; i++) {
+            tree[i] = i;
+        }
+        build(0, tree.length, 0);
+    }
+
+    /**
+     * Indexes the points of {@code kernel}; point {@code i} of the kernel is point {@code i} of the index.
+     */
+    public static SpatialIndex of(GeodesicKernel kernel) {
+        int n = kernel.size();
+        double[] x = new double[n];
+        double[] y = new double[n];
+        double[] z = new double[n];
+        for (int i = 0; i < n; i++) {
+            double lat = Math.toRadians(kernel.getLatitude(i));
+            double lon = Math.toRadians(kernel.getLongitude(i));
+            x[i] = Math.cos(lat) * Math.cos(lon);
+            y[i] = Math.cos(lat) * Math.sin(lon);
+            z[i] = Math.sin(lat);
+        }
+        return new SpatialIndex(x, y, z);
+    }
+
+    /**
+     * @return the number of points.
+     */
+    public int size() {
+        return x.length;
+    }
+
+    /**
+     * @return the great-circle distance between point {@code i} and point {@code j} in kilometers, from the chord
+     * between their vectors: one square root and one arc sine, and equal to the haversine distance up to rounding.
+     */
+    public double distance(int i, int j) {
+        double dx = x[i] - x[j];
+        double dy = y[i] - y[j];
+        double dz = z[i] - z[j];
+        double halfChord = 0.5 * Math.sqrt(dx * dx + dy * dy + dz * dz);
+        return 2 * multiple100locations.EARTH_RADIUS * Math.asin(Math.min(1.0, halfChord));
+    }
+
+    /**
+     * @return the point closest to the given coordinates, or -1 if the index is empty.
+     */
+    public int nearest(double latitude, double longitude) {
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        Query query = new Query(1, -1, Math.cos(lat) * Math.cos(lon), Math.cos(lat) * Math.sin(lon), Math.sin(lat));
+        query.search(0, tree.length, 0);
+        return query.size == 0 ? -1 : query.indices[0];
+    }
+
+    /**
+     * Writes the up to {@code k} points closest to point {@code i}, without {@code i} itself, nearest first into
+     * {@code out[offset]...}.
+     *
+     * @return the number of points written, {@code min(k, size() - 1)}.
+     */
+    public int nearest(int i, int k, int[] out, int offset) {
+        Query query = new Query(k, i, x[i], y[i], z[i]);
+        query.search(0, tree.length, 0);
+        return query.drainSorted(out, offset);
+    }
+
+    /**
+     * Computes the neighbour lists of all points on {@code pool}.
+     *
+     * @return row-major lists, the {@code k} nearest neighbours of point {@code i} nearest first at
+     * {@code [i * k, (i + 1) * k)}; rows of indexes with at most {@code k} points are padded with -1.
+     */
+    public int[] nearest(int k, ForkJoinPool pool) {
+        int[] out = new int[x.length * k];
+        pool.invoke(new NearestTask(k, out, 0, x.length));
+        return out;
+    }
+
+    private void build(int lo, int hi, int depth) {
+        if (hi - lo <= LEAF_SIZE) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        select(lo, hi - 1, mid, axis(depth));
+        build(lo, mid, depth + 1);
+        build(mid + 1, hi, depth + 1);
+    }
+
+    private double[] axis(int depth) {
+        switch (depth % 3) {
+            case 0:
+                return x;
+            case 1:
+                return y;
+            default:
+                return z;
+        }
+    }
+
+    // Quickselect: moves the point with the k-th smallest coordinate to tree[k], smaller ones before it.
+    private void select(int lo, int hi, int k, double[] coord) {
+        while (hi > lo) {
+            double pivot = coord[tree[(lo + hi) >>> 1]];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (coord[tree[i]] < pivot) {
+                    i++;
+                }
+                while (coord[tree[j]] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    int t = tree[i];
+                    tree[i++] = tree[j];
+                    tree[j--] = t;
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * One k-nearest search: a bounded max-heap on squared chord distance.
+     */
+    private final class Query {
+
+        final int k;
+
+        final int exclude;
+
+        final double qx;
+
+        final double qy;
+
+        final double qz;
+
+        final int[] indices;
+
+        final double[] distances;
+
+        int size;
+
+        Query(int k, int exclude, double qx, double qy, double qz) {
+            this.k = k;
+            this.exclude = exclude;
+            this.qx = qx;
+            this.qy = qy;
+            this.qz = qz;
+            this.indices = new int[k];
+            this.distances = new double[k];
+        }
+
+        void search(int lo, int hi, int depth) {
+            if (hi - lo <= LEAF_SIZE) {
+                for (int p = lo; p < hi; p++) {
+                    offer(tree[p]);
+                }
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            int point = tree[mid];
+            double[] coord = axis(depth);
+            double diff = (depth % 3 == 0 ? qx : depth % 3 == 1 ? qy : qz) - coord[point];
+            offer(point);
+            if (diff < 0) {
+                search(lo, mid, depth + 1);
+                if (size < k || diff * diff < distances[0]) {
+                    search(mid + 1, hi, depth + 1);
+                }
+            } else {
+                search(mid + 1, hi, depth + 1);
+                if (size < k || diff * diff < distances[0]) {
+                    search(lo, mid, depth + 1);
+                }
+            }
+        }
+
+        private void offer(int point) {
+            if (point == exclude) {
+                return;
+            }
+            double dx = x[point] - qx;
+            double dy = y[point] - qy;
+            double dz = z[point] - qz;
+            double d = dx * dx + dy * dy + dz * dz;
+            if (size < k) {
+                int i = size++;
+                while (i > 0 && distances[(i - 1) >> 1] < d) {
+                    indices[i] = indices[(i - 1) >> 1];
+                    distances[i] = distances[(i - 1) >> 1];
+                    i = (i - 1) >> 1;
+                }
+                indices[i] = point;
+                distances[i] = d;
+            } else if (d < distances[0]) {
+                siftDown(point, d, size);
+            }
+        }
+
+        // Places (point, d) at the root and restores the heap over [0, n).
+        private void siftDown(int point, double d, int n) {
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= n) {
+                    break;
+                }
+                if (child + 1 < n && distances[child + 1] > distances[child]) {
+                    child++;
+                }
+                if (distances[child] <= d) {
+                    break;
+                }
+                indices[i] = indices[child];
+                distances[i] = distances[child];
+                i = child;
+            }
+            indices[i] = point;
+            distances[i] = d;
+        }
+
+        // Pops the heap from the farthest to the nearest point, so the output ends up nearest first.
+        int drainSorted(int[] out, int offset) {
+            int count = size;
+            for (int n = size; n > 0; n--) {
+                out[offset + n - 1] = indices[0];
+                siftDown(indices[n - 1], distances[n - 1], n - 1);
+            }
+            for (int i = count; i < k; i++) {
+                out[offset + i] = -1;
+            }
+            return count;
+        }
+    }
+
+    private final class NearestTask extends RecursiveAction {
+
+        private final int k;
+
+        private final int[] out;
+
+        private final int from;
+
+        private final int to;
+
+        NearestTask(int k, int[] out, int from, int to) {
+            this.k = k;
+            this.out = out;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    nearest(i, k, out, i * k);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new NearestTask(k, out, from, mid), new NearestTask(k, out, mid, to));
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Random;
+
+/**
+ * Transport costs whose travel times depend on the time of day, stored as one static cost model plus a small table
+ * of speed factors instead of one matrix per time of day.
+ * <p>
+ * The locations are grouped into regions with {@link KMeansClustering}, and the day is divided into buckets of
+ * equal length. For every pair of origin and destination region and every bucket, the table holds a factor the
+ * base travel time is multiplied with, so it takes {@code 4 * R * R * B} bytes, e.g. 6 KB for 8 regions and 24
+ * hourly buckets, on top of the base model and one {@code int} per location. The day wraps around at its end.
+ * <p>
+ * A factor scales the speed within its bucket rather than the travel time of a trip departing in it (Ichoua,
+ * Gendreau and Potvin): a trip covers its base travel time at {@code 1 / factor} base time units per time unit and
+ * is integrated bucket by bucket until it arrives. Travel times therefore change continuously with the departure
+ * time, and a later departure never arrives earlier (FIFO), whatever the factors. Scaling the travel time by a
+ * factor interpolated at the departure time would break FIFO wherever the factor rises faster than 1 per time unit.
+ * Lookups walk the buckets a trip spans, skipping whole days, and allocate nothing.
+ * <p>
+ * Distances are those of the base model. Base travel times are those of the base model too, or, with
+ * {@link Builder#setBaseSpeed(double)}, its distance divided by the speed, for base models without times such as a
+ * {@link DenseTransportCostsMatrix} built from coordinates. The index-based methods answer for departure time 0.
+ */
+public class TimeDependentTransportCosts extends IndexedTransportCosts {
+
+    /**
+     * Builder for {@link TimeDependentTransportCosts}.
+     */
+    public static class Builder {
+
+        /**
+         * Groups the locations into regions; all factors start at 1.
+         *
+         * @param base         the distances and, unless a base speed is set, the travel times.
+         * @param locations    the indexed locations of the base model, with coordinates.
+         * @param noRegions    the number of regions; reduced to the number of locations if there are fewer.
+         * @param noBuckets    the number of time buckets per day.
+         * @param bucketLength the length of a bucket in time units, e.g. 3600 for hourly buckets in seconds.
+         */
+        public static Builder newInstance(IndexedTransportCosts base, Collection<Location> locations, int noRegions,
+                                          int noBuckets, double bucketLength) {
+            return new Builder(base, locations, noRegions, noBuckets, bucketLength);
+        }
+
+        private final IndexedTransportCosts base;
+
+        private final int[] regions;
+
+        private final int noRegions;
+
+        private final int noBuckets;
+
+        private final double bucketLength;
+
+        private final float[] factors;
+
+        private double baseSpeed;
+
+        private Builder(IndexedTransportCosts base, Collection<Location> locations, int noRegions, int noBuckets,
+                        double bucketLength) {
+            if (noBuckets < 1) {
+                throw new IllegalArgumentException("number of buckets must be positive");
+            }
+            if (!(bucketLength > 0)) {
+                throw new IllegalArgumentException("bucket length must be positive");
+            }
+            GeodesicKernel kernel = GeodesicKernel.of(locations, GeodesicKernel.Mode.HAVERSINE);
+            int n = kernel.size();
+            double meanLat = 0;
+            for (int i = 0; i < n; i++) {
+                meanLat += kernel.getLatitude(i);
+            }
+            double cosLat = Math.cos(Math.toRadians(n == 0 ? 0 : meanLat / n));
+            double[] x = new double[n];
+            double[] y = new double[n];
+            for (int i = 0; i < n; i++) {
+                x[i] = kernel.getLongitude(i) * cosLat;
+                y[i] = kernel.getLatitude(i);
+            }
+            KMeansClustering clustering = KMeansClustering.cluster(x, y, noRegions, new Random(42), 100);
+            this.base = base;
+            this.regions = new int[n];
+            for (int i = 0; i < n; i++) {
+                regions[i] = clustering.getCluster(i);
+            }
+            this.noRegions = clustering.getNoClusters();
+            this.noBuckets = noBuckets;
+            this.bucketLength = bucketLength;
+            this.factors = new float[this.noRegions * this.noRegions * noBuckets];
+            Arrays.fill(factors, 1.0f);
+        }
+
+        /**
+         * Derives base travel times as distance divided by {@code speed} instead of taking them from the base model.
+         */
+        public Builder setBaseSpeed(double speed) {
+            if (!(speed > 0)) {
+                throw new IllegalArgumentException("speed must be positive");
+            }
+            this.baseSpeed = speed;
+            return this;
+        }
+
+        /**
+         * Sets the travel time factor from one region to another in one bucket, e.g. 1.5 for a rush hour in which
+         * traffic moves at two thirds of the base speed.
+         */
+        public Builder setFactor(int fromRegion, int toRegion, int bucket, double factor) {
+            if (!(factor > 0)) {
+                throw new IllegalArgumentException("factor must be positive");
+            }
+            factors[(fromRegion * noRegions + toRegion) * noBuckets + bucket] = (float) factor;
+            return this;
+        }
+
+        /**
+         * Sets the travel time factor between all regions in one bucket.
+         */
+        public Builder setFactor(int bucket, double factor) {
+            for (int from = 0; from < noRegions; from++) {
+                for (int to = 0; to < noRegions; to++) {
+                    setFactor(from, to, bucket, factor);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * @return the region of the location with index {@code index}, to set factors by location.
+         */
+        public int getRegion(int index) {
+            return regions[index];
+        }
+
+        public TimeDependentTransportCosts build() {
+            return new TimeDependentTransportCosts(this);
+        }
+    }
+
+    private final IndexedTransportCosts base;
+
+    private final int[] regions;
+
+    private final int noRegions;
+
+    private final int noBuckets;
+
+    private final double bucketLength;
+
+    private final float[] factors;
+
+    private final double baseSpeed;
+
+    // Per region pair, the base travel time covered in one whole day.
+    private final double[] dayCoverage;
+
+    private TimeDependentTransportCosts(Builder builder) {
+        this.base = builder.base;
+        this.regions = builder.regions;
+        this.noRegions = builder.noRegions;
+        this.noBuckets = builder.noBuckets;
+        this.bucketLength = builder.bucketLength;
+        this.factors = builder.factors.clone();
+        this.baseSpeed = builder.baseSpeed;
+        this.dayCoverage = new double[noRegions * noRegions];
+        for (int pair = 0; pair < dayCoverage.length; pair++) {
+            for (int bucket = 0; bucket < noBuckets; bucket++) {
+                dayCoverage[pair] += bucketLength / factors[pair * noBuckets + bucket];
+            }
+        }
+    }
+
+    @Override
+    public int getNoLocations() {
+        return base.getNoLocations();
+    }
+
+    /**
+     * @return the number of regions the locations were grouped into.
+     */
+    public int getNoRegions() {
+        return noRegions;
+    }
+
+    /**
+     * @return the region of the location with index {@code index}.
+     */
+    public int getRegion(int index) {
+        return regions[index];
+    }
+
+    @Override
+    public double getDistance(int fromIndex, int toIndex) {
+        return base.getDistance(fromIndex, toIndex);
+    }
+
+    @Override
+    public double getTransportTime(int fromIndex, int toIndex) {
+        return getTransportTime(fromIndex, toIndex, 0.0);
+    }
+
+    /**
+     * @return the travel time between two location indices when departing at {@code departureTime}.
+     */
+    public double getTransportTime(int fromIndex, int toIndex, double departureTime) {
+        double baseTime = baseSpeed > 0 ? base.getDistance(fromIndex, toIndex) / baseSpeed
+                : base.getTransportTime(fromIndex, toIndex);
+        if (Double.isInfinite(baseTime) || Double.isNaN(baseTime)) {
+            // Unreachable pairs, e.g. of a RoadGraph matrix, stay unreachable at any time.
+            return baseTime;
+        }
+        int pair = regions[fromIndex] * noRegions + regions[toIndex];
+        int offset = pair * noBuckets;
+        // Every whole day covers the same base time, wherever it starts.
+        double days = Math.floor(baseTime / dayCoverage[pair]);
+        double remaining = baseTime - days * dayCoverage[pair];
+        double time = days * noBuckets * bucketLength;
+        double position = departureTime / bucketLength;
+        double floor = Math.floor(position);
+        int bucket = (int) (floor % noBuckets);
+        if (bucket < 0) {
+            bucket += noBuckets;
+        }
+        double left = (floor + 1 - position) * bucketLength;
+        while (true) {
+            double factor = factors[offset + bucket];
+            if (remaining * factor <= left) {
+                return time + remaining * factor;
+            }
+            time += left;
+            remaining -= left / factor;
+            left = bucketLength;
+            bucket = bucket + 1 == noBuckets ? 0 : bucket + 1;
+        }
+    }
+
+    /**
+     * @return the travel time factor between two regions in the bucket containing {@code time}.
+     */
+    public double getFactor(int fromRegion, int toRegion, double time) {
+        int bucket = (int) (Math.floor(time / bucketLength) % noBuckets);
+        if (bucket < 0) {
+            bucket += noBuckets;
+        }
+        return factors[(fromRegion * noRegions + toRegion) * noBuckets + bucket];
+    }
+
+    @Override
+    public double getTransportTime(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle) {
+        return getTransportTime(indexOf(from), indexOf(to), departureTime);
+    }
+
+    @Override
+    public double getTransportCost(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle) {
+        int fromIndex = indexOf(from);
+        int toIndex = indexOf(to);
+        if (vehicle == null) {
+            return getDistance(fromIndex, toIndex);
+        }
+        VehicleTypeImpl.VehicleCostParams costParams = vehicle.getType().getVehicleCostParams();
+        return costParams.perDistanceUnit * getDistance(fromIndex, toIndex)
+                + costParams.perTransportTimeUnit * getTransportTime(fromIndex, toIndex, departureTime);
+    }
+}
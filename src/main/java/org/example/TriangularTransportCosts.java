@@ -0,0 +1,304 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.problem.Location;
+
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Symmetric transport costs that store only the upper triangle of the distance matrix, as {@code float}s or as
+ * 16-bit multiples of a fixed resolution.
+ * <p>
+ * The diagonal is not stored, so the footprint is {@code 4 * N * (N - 1) / 2} bytes, or half of that quantized,
+ * against {@code 8 * N * N} for {@link DenseTransportCostsMatrix}: 20000 locations take 800 MB as floats and
+ * 400 MB quantized instead of 3.2 GB. Floats keep about seven significant digits; quantized distances are rounded
+ * to the resolution and must not exceed {@code 65535} times it, e.g. 655 km at a 10 m resolution.
+ * <p>
+ * Travel times are not stored but derived from the distance with a {@link SpeedProfile}; without one they are 0,
+ * as for a {@link DenseTransportCostsMatrix} without times.
+ */
+public class TriangularTransportCosts extends IndexedTransportCosts {
+
+    /**
+     * Piecewise constant speed over the length of a leg, e.g. slow for the first kilometers in town and faster
+     * on longer legs that reach the highway.
+     */
+    public static final class SpeedProfile {
+
+        /**
+         * @param speed distance units per time unit on the whole leg.
+         */
+        public static SpeedProfile constant(double speed) {
+            return new SpeedProfile(new double[0], new double[]{speed});
+        }
+
+        private final double[] limits;
+
+        private final double[] speeds;
+
+        // Time to cover the leg up to limits[i].
+        private final double[] times;
+
+        /**
+         * @param limits ascending distances at which the speed changes.
+         * @param speeds {@code limits.length + 1} positive speeds: {@code speeds[0]} up to {@code limits[0]},
+         *               {@code speeds[i]} between {@code limits[i - 1]} and {@code limits[i]}, and the last one
+         *               beyond the last limit.
+         */
+        public SpeedProfile(double[] limits, double[] speeds) {
+            if (speeds.length != limits.length + 1) {
+                throw new IllegalArgumentException("expected " + (limits.length + 1) + " speeds for "
+                        + limits.length + " limits, got " + speeds.length);
+            }
+            for (double speed : speeds) {
+                if (!(speed > 0)) {
+                    throw new IllegalArgumentException("speeds must be positive");
+                }
+            }
+            this.limits = limits.clone();
+            this.speeds = speeds.clone();
+            this.times = new double[limits.length];
+            double previous = 0.0;
+            for (int i = 0; i < limits.length; i++) {
+                if (!(limits[i] > previous)) {
+                    throw new IllegalArgumentException("limits must be positive and ascending");
+                }
+                times[i] = (i == 0 ? 0.0 : times[i - 1]) + (limits[i] - previous) / speeds[i];
+                previous = limits[i];
+            }
+        }
+
+        /**
+         * @return the time to travel {@code distance}.
+         */
+        public double getTime(double distance) {
+            int i = 0;
+            while (i < limits.length && distance > limits[i]) {
+                i++;
+            }
+            if (i == 0) {
+                return distance / speeds[0];
+            }
+            return times[i - 1] + (distance - limits[i - 1]) / speeds[i];
+        }
+    }
+
+    /**
+     * Builder for {@link TriangularTransportCosts}.
+     */
+    public static class Builder {
+
+        /**
+         * Creates a builder that stores distances as floats.
+         *
+         * @param noLocations the number of locations, i.e. the highest location index plus one.
+         */
+        public static Builder newInstance(int noLocations) {
+            return new Builder(noLocations, 0.0);
+        }
+
+        /**
+         * Creates a builder that stores distances as 16-bit multiples of {@code resolution}.
+         *
+         * @param noLocations the number of locations, i.e. the highest location index plus one.
+         * @param resolution  the positive distance step, e.g. 0.01 for 10 m if distances are in kilometers.
+         */
+        public static Builder newInstance(int noLocations, double resolution) {
+            if (!(resolution > 0)) {
+                throw new IllegalArgumentException("resolution must be positive");
+            }
+            return new Builder(noLocations, resolution);
+        }
+
+        /**
+         * Creates a float builder whose distances are computed from the locations' coordinates with the haversine
+         * formula on the common {@link ForkJoinPool}. Every location must carry an index.
+         *
+         * @param locations the indexed locations to build the matrix for.
+         */
+        public static Builder newInstance(Collection<Location> locations) {
+            return newInstance(GeodesicKernel.of(locations, GeodesicKernel.Mode.HAVERSINE), 0.0,
+                    ForkJoinPool.commonPool());
+        }
+
+        /**
+         * Creates a builder whose distances are computed by {@code kernel} on the given pool.
+         *
+         * @param kernel     the points, one per location index, and the distance mode.
+         * @param resolution the quantization step, or 0 to store floats.
+         * @param pool       the pool the rows of the triangle are computed on.
+         */
+        public static Builder newInstance(GeodesicKernel kernel, double resolution, ForkJoinPool pool) {
+            Builder builder = resolution == 0.0 ? newInstance(kernel.size()) : newInstance(kernel.size(), resolution);
+            pool.invoke(new RowPairTask(kernel, builder, 0, kernel.size() / 2));
+            return builder;
+        }
+
+        private final int noLocations;
+
+        private final double resolution;
+
+        private final int[] rowStarts;
+
+        private final float[] values;
+
+        private final char[] steps;
+
+        private SpeedProfile speedProfile;
+
+        private Builder(int noLocations, double resolution) {
+            if (noLocations < 0) {
+                throw new IllegalArgumentException("number of locations must not be negative");
+            }
+            long size = (long) noLocations * (noLocations - 1) / 2;
+            if (size > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException(noLocations + " locations do not fit into a triangular matrix");
+            }
+            this.noLocations = noLocations;
+            this.resolution = resolution;
+            this.rowStarts = new int[noLocations];
+            if (noLocations > 0) {
+                // Row i holds columns i + 1 ... n - 1, so its entry for column j is at rowStarts[i] + j.
+                rowStarts[0] = -1;
+                for (int i = 1; i < noLocations; i++) {
+                    rowStarts[i] = rowStarts[i - 1] + noLocations - i - 1;
+                }
+            }
+            this.values = resolution == 0.0 ? new float[(int) size] : null;
+            this.steps = resolution == 0.0 ? null : new char[(int) size];
+        }
+
+        /**
+         * Sets the distance between two location indices in both directions; the diagonal is always 0.
+         *
+         * @throws IllegalArgumentException if the distance is negative or too long for the resolution.
+         */
+        public Builder addTransportDistance(int fromIndex, int toIndex, double distance) {
+            if (fromIndex == toIndex) {
+                return this;
+            }
+            int slot = slot(rowStarts, fromIndex, toIndex);
+            if (values != null) {
+                values[slot] = (float) distance;
+                return this;
+            }
+            long step = Math.round(distance / resolution);
+            if (step < 0 || step > Character.MAX_VALUE) {
+                throw new IllegalArgumentException("distance " + distance + " between " + fromIndex + " and "
+                        + toIndex + " does not fit a resolution of " + resolution);
+            }
+            steps[slot] = (char) step;
+            return this;
+        }
+
+        /**
+         * Derives travel times from distances with the given profile.
+         */
+        public Builder setSpeedProfile(SpeedProfile speedProfile) {
+            this.speedProfile = speedProfile;
+            return this;
+        }
+
+        public TriangularTransportCosts build() {
+            return new TriangularTransportCosts(this);
+        }
+    }
+
+    private final int noLocations;
+
+    private final double resolution;
+
+    private final int[] rowStarts;
+
+    private final float[] values;
+
+    private final char[] steps;
+
+    private final SpeedProfile speedProfile;
+
+    private TriangularTransportCosts(Builder builder) {
+        this.noLocations = builder.noLocations;
+        this.resolution = builder.resolution;
+        this.rowStarts = builder.rowStarts;
+        this.values = builder.values;
+        this.steps = builder.steps;
+        this.speedProfile = builder.speedProfile;
+    }
+
+    @Override
+    public int getNoLocations() {
+        return noLocations;
+    }
+
+    @Override
+    public double getDistance(int fromIndex, int toIndex) {
+        if (fromIndex == toIndex) {
+            return 0.0;
+        }
+        int slot = slot(rowStarts, fromIndex, toIndex);
+        return values != null ? values[slot] : steps[slot] * resolution;
+    }
+
+    @Override
+    public double getTransportTime(int fromIndex, int toIndex) {
+        if (speedProfile == null) {
+            return 0.0;
+        }
+        return speedProfile.getTime(getDistance(fromIndex, toIndex));
+    }
+
+    private static int slot(int[] rowStarts, int fromIndex, int toIndex) {
+        return fromIndex < toIndex ? rowStarts[fromIndex] + toIndex : rowStarts[toIndex] + fromIndex;
+    }
+
+    /**
+     * Computes rows of the triangle in folded pairs, as {@link ParallelDistanceMatrix} does for the dense matrix.
+     */
+    private static final class RowPairTask extends RecursiveAction {
+
+        // Number of matrix cells below which a task is computed directly instead of being split further.
+        private static final int SEQUENTIAL_THRESHOLD = 16 * 1024;
+
+        private final GeodesicKernel kernel;
+
+        private final Builder builder;
+
+        private final int fromPair;
+
+        private final int toPair;
+
+        RowPairTask(GeodesicKernel kernel, Builder builder, int fromPair, int toPair) {
+            this.kernel = kernel;
+            this.builder = builder;
+            this.fromPair = fromPair;
+            this.toPair = toPair;
+        }
+
+        @Override
+        protected void compute() {
+            int n = kernel.size();
+            if ((long) (toPair - fromPair) * n <= SEQUENTIAL_THRESHOLD || toPair - fromPair == 1) {
+                double[] row = new double[n];
+                for (int pair = fromPair; pair < toPair; pair++) {
+                    computeRow(pair, row);
+                    int mirrored = n - 2 - pair;
+                    if (mirrored != pair) {
+                        computeRow(mirrored, row);
+                    }
+                }
+                return;
+            }
+            int mid = (fromPair + toPair) >>> 1;
+            invokeAll(new RowPairTask(kernel, builder, fromPair, mid), new RowPairTask(kernel, builder, mid, toPair));
+        }
+
+        private void computeRow(int i, double[] row) {
+            int n = kernel.size();
+            kernel.fillRow(i, row, 0, i + 1, n);
+            for (int j = i + 1; j < n; j++) {
+                builder.addTransportDistance(i, j, row[j]);
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package org.example;
+
+import com.graphhopper.jsprit.analysis.toolbox.Plotter;
+import com.graphhopper.jsprit.core.algorithm.VehicleRoutingAlgorithm;
+import com.graphhopper.jsprit.core.algorithm.box.Jsprit;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.util.Solutions;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Primes the JVM before the first real solve: loads and JIT-compiles jsprit's search, the cost models, the solution
+ * writer and JFreeChart's rendering by solving, writing and plotting a synthetic problem from
+ * {@link multiple100locations#createLocations(int, long)}.
+ * <p>
+ * The same run serves as the training run for an AppCDS archive, which removes most of the class loading from
+ * later cold starts, see the {@code Dockerfile}:
+ * <pre>
+ * java -XX:ArchiveClassesAtExit=app.jsa -cp JspritFirstP-1.0-SNAPSHOT.jar org.example.WarmUp
+ * java -XX:SharedArchiveFile=app.jsa -jar JspritFirstP-1.0-SNAPSHOT.jar
+ * </pre>
+ * Running this class prints the latency of the {@link JspritEx2experiment} solve before and after the warm-up, so
+ * the effect of both can be measured; {@code -Dwarmup.services} and {@code -Dwarmup.iterations} size the warm-up.
+ */
+public final class WarmUp {
+
+    private WarmUp() {
+    }
+
+    public static void main(String[] args) {
+        long cold = timeSolve(JspritEx2experiment.createProblem());
+        long warmUp = run(Integer.getInteger("warmup.services", 100), Integer.getInteger("warmup.iterations", 200));
+        long warm = timeSolve(JspritEx2experiment.createProblem());
+        System.out.println("First solve " + cold + " ms, warm-up " + warmUp + " ms, solve after warm-up " + warm
+                + " ms");
+    }
+
+    /**
+     * Solves a synthetic problem of {@code noServices} services for {@code iterations} iterations, writes the
+     * solutions and plots the best one into temporary files, and deletes them again.
+     *
+     * @return the time the warm-up took in milliseconds.
+     */
+    public static long run(int noServices, int iterations) {
+        return run(noServices, iterations, Paths.get(System.getProperty("java.io.tmpdir")));
+    }
+
+    // Like run(int, int), with the temporary files created in directory.
+    static long run(int noServices, int iterations, Path directory) {
+        long start = System.nanoTime();
+        List<Location> locations = multiple100locations.createLocations(noServices, 42);
+        VehicleRoutingProblem problem = multiple100locations.createProblem(locations,
+                DenseTransportCostsMatrix.Builder.newInstance(locations).build());
+        VehicleRoutingAlgorithm algorithm = Jsprit.Builder.newInstance(problem).setRandom(new Random(42))
+                .buildAlgorithm();
+        algorithm.setMaxIterations(iterations);
+        Collection<VehicleRoutingProblemSolution> solutions = algorithm.searchSolutions();
+
+        Path solutionsFile = null;
+        Path plotFile = null;
+        try {
+            solutionsFile = Files.createTempFile(directory, "warmup", ".jsonl");
+            plotFile = Files.createTempFile(directory, "warmup", ".png");
+            multiple100locations.writeSolutions(solutions, solutionsFile);
+            new Plotter(problem, Solutions.bestOf(solutions)).plot(plotFile.toString(), "warm-up");
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot write warm-up output", e);
+        } finally {
+            deleteQuietly(solutionsFile);
+            deleteQuietly(plotFile);
+        }
+        return (System.nanoTime() - start) / 1_000_000L;
+    }
+
+    private static long timeSolve(VehicleRoutingProblem problem) {
+        long start = System.nanoTime();
+        Solutions.bestOf(Jsprit.createAlgorithm(problem).searchSolutions());
+        return (System.nanoTime() - start) / 1_000_000L;
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // best effort, the file is in the temporary directory
+        }
+    }
+}
@@ -7,6 +7,7 @@ import com.graphhopper.jsprit.core.algorithm.VehicleRoutingAlgorithm;
 import com.graphhopper.jsprit.core.algorithm.box.Jsprit;
 import com.graphhopper.jsprit.core.problem.Location;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
 import com.graphhopper.jsprit.core.problem.job.Service;
 import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
@@ -17,118 +18,282 @@ import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
 import com.graphhopper.jsprit.core.reporting.SolutionPrinter;
 import com.graphhopper.jsprit.core.util.Coordinate;
 import com.graphhopper.jsprit.core.util.Solutions;
-import com.graphhopper.jsprit.core.util.VehicleRoutingTransportCostsMatrix;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 
 public class multiple100locations {
     // Earth radius in kilometers (for Haversine distance)
     public static final double EARTH_RADIUS = 6371;
 
     public static void main(String[] args) {
+        // With -Dsolver.telemetry=<file> per-iteration metrics are written as CSV (*.csv) or JSON lines.
+        String telemetryFile = System.getProperty("solver.telemetry");
+        SolverTelemetry telemetry = telemetryFile != null
+                ? new SolverTelemetry(Paths.get(telemetryFile), SolverTelemetry.Format.of(Paths.get(telemetryFile)))
+                : new SolverTelemetry();
+
+        // 1. + 2. Create the depot and 100 service locations spread across three clusters.
+        // With -Dproblem.file=<file> depots, vehicles and services are loaded from a CSV or binary (*.bin) file.
+        String problemFile = System.getProperty("problem.file");
+        ProblemLoader loader = null;
+        List<Location> allLocations;
+        if (problemFile != null) {
+            loader = ProblemLoader.load(Paths.get(problemFile));
+            telemetry.recordPhase("load", loader.getParseNanos());
+            System.out.println("Loaded " + problemFile + ": " + loader);
+            allLocations = loader.getLocations();
+        } else {
+            allLocations = createLocations(100, 42);
+        }
+
+        // 6. Build a distance (cost) matrix that includes the depot and all service locations.
+        // Every location carries its position in allLocations as index, so cost lookups are plain array reads.
+        // With -Dmatrix.cache=<file> the matrix is memory-mapped from disk and only rebuilt if the locations changed.
+        // With -Dmatrix.knn=<k> only the distances to the k nearest neighbours are stored, the rest is computed.
+        // With -Droad.graph=<file> distances and times are shortest paths in the road graph loaded from file.
+        // With -Dmatrix.triangular only the upper triangle is stored as floats, or as 16-bit multiples of
+        // -Dmatrix.resolution=<km>.
+        String matrixCache = System.getProperty("matrix.cache");
+        int knn = Integer.getInteger("matrix.knn", 0);
+        String roadGraph = System.getProperty("road.graph");
+        double resolution = Double.parseDouble(System.getProperty("matrix.resolution", "0"));
+        long matrixStart = System.nanoTime();
+        IndexedTransportCosts costs;
+        if (roadGraph != null) {
+            costs = RoadGraph.load(Paths.get(roadGraph)).buildMatrix(allLocations, ForkJoinPool.commonPool());
+        } else if (matrixCache != null) {
+            costs = MappedTransportCostsMatrix.loadOrBuild(Paths.get(matrixCache), allLocations);
+        } else if (knn > 0) {
+            costs = SparseTransportCosts.Builder.newInstance(allLocations, knn).build();
+        } else if (Boolean.getBoolean("matrix.triangular") || resolution > 0) {
+            costs = TriangularTransportCosts.Builder.newInstance(
+                    GeodesicKernel.of(allLocations, GeodesicKernel.Mode.HAVERSINE), resolution,
+                    ForkJoinPool.commonPool()).build();
+        } else {
+            costs = DenseTransportCostsMatrix.Builder.newInstance(allLocations).build();
+        }
+        telemetry.recordPhase("matrix", System.nanoTime() - matrixStart);
+        // With -Dcosts.stats=<file> cost lookups are counted and timed, and the statistics written to file as JSON.
+        String costsStats = System.getProperty("costs.stats");
+        InstrumentedTransportCosts instrumentedCosts = costsStats != null
+                ? InstrumentedTransportCosts.Builder.newInstance(costs).build()
+                : null;
+        VehicleRoutingTransportCosts routingCosts = instrumentedCosts != null ? instrumentedCosts : costs;
+
+        // 3. - 5. + 7. Build the vehicle routing problem with services, vehicles and the cost matrix.
+        VehicleRoutingProblem problem = loader != null
+                ? loader.newProblemBuilder().setRoutingCost(routingCosts).build()
+                : createProblem(allLocations, routingCosts);
+
+        // 8. Solve the problem using Jsprit's algorithm.
+        // With -Dsolver.runs=<k> (k > 1), k differently seeded searches race on all cores instead.
+        // With -Dsolver.clusters=<k> (k > 1), the clusters are solved as separate problems in parallel.
+        // With -Dsolver.deadline=<ms> the search stops at the deadline or after 200 iterations without improvement.
+        // With -Dsolution.cache=<dir> solutions are remembered in dir; a resubmitted problem is answered from it and
+        // one with a few changed jobs starts from the remembered routes.
+        // With -Dsolver.checkpoint=<file> the best solution is saved to file while searching, and a search started
+        // with an existing checkpoint of the same problem resumes from it.
+        String solutionCache = System.getProperty("solution.cache");
+        String checkpointFile = System.getProperty("solver.checkpoint");
+        long deadline = Long.getLong("solver.deadline", -1);
+        int runs = Integer.getInteger("solver.runs", 1);
+        int clusters = Integer.getInteger("solver.clusters", 1);
+        Collection<VehicleRoutingProblemSolution> solutions;
+        if (solutionCache != null) {
+            SolutionCache cache = SolutionCache.Builder.newInstance().setDirectory(Paths.get(solutionCache)).build();
+            solutions = Collections.singletonList(cache.solve(problem, 2000));
+            System.out.println("Solution cache: exact hits " + cache.getExactHits() + ", near hits "
+                    + cache.getNearHits() + ", misses " + cache.getMisses());
+        } else if (clusters > 1) {
+            solutions = Collections.singletonList(
+                    ClusterDecomposition.Builder.newInstance(problem).setNoClusters(clusters).build().solve());
+        } else if (deadline >= 0) {
+            solutions = Collections.singletonList(AnytimeSolver.Builder.newInstance(problem)
+                    .setTimeBudget(deadline, TimeUnit.MILLISECONDS)
+                    .setConvergenceWindow(200)
+                    .addListener(new AnytimeSolver.BestSolutionListener() {
+                        @Override
+                        public void informBestSolution(VehicleRoutingProblemSolution solution, int iteration,
+                                                       long elapsedMillis) {
+                            System.out.println("New best cost " + solution.getCost() + " at iteration " + iteration
+                                    + " after " + elapsedMillis + " ms");
+                        }
+                    })
+                    .build().solve());
+        } else if (runs > 1) {
+            MultiStartSolver multiStart = MultiStartSolver.Builder.newInstance(problem).setNoRuns(runs).build();
+            solutions = Collections.singletonList(multiStart.solve());
+            System.out.println("Multi-start runs: " + multiStart.getRuns());
+        } else {
+            VehicleRoutingAlgorithm algorithm = Jsprit.createAlgorithm(problem);
+            telemetry.attachTo(algorithm);
+            if (checkpointFile != null) {
+                VehicleRoutingProblemSolution saved = SolutionCheckpoint.read(problem, Paths.get(checkpointFile));
+                if (saved != null) {
+                    System.out.println("Resuming from checkpoint with cost " + saved.getCost());
+                    algorithm.addInitialSolution(saved);
+                }
+                try (SolutionCheckpoint checkpoint = SolutionCheckpoint.Builder
+                        .newInstance(problem, Paths.get(checkpointFile)).build().attachTo(algorithm)) {
+                    solutions = algorithm.searchSolutions();
+                    checkpoint.checkpoint(Solutions.bestOf(solutions), algorithm.getMaxIterations());
+                }
+            } else {
+                solutions = algorithm.searchSolutions();
+            }
+        }
+        telemetry.close();
+        System.out.println("Telemetry: " + telemetry.getSnapshot());
+        // Stream all solutions to -Dsolutions.out=<file> (default solutions.jsonl; *.bin for the binary format).
+        Path solutionsFile = Paths.get(System.getProperty("solutions.out", "solutions.jsonl"));
+        writeSolutions(solutions, solutionsFile);
+        System.out.println("All possible solutions written to " + solutionsFile);
+        if (instrumentedCosts != null) {
+            instrumentedCosts.writeJson(Paths.get(costsStats));
+            System.out.println("Cost lookup statistics written to " + costsStats);
+        }
+
+        // Print the best solution to the console.
+        System.out.println("The best solution:");
+        VehicleRoutingProblemSolution bestSolution = Solutions.bestOf(solutions);
+        // With -Dsolver.polish the routes of the best solution are improved with 2-opt and Or-opt in parallel.
+        if (Boolean.getBoolean("solver.polish")) {
+            double cost = bestSolution.getCost();
+            bestSolution = RoutePolisher.Builder.newInstance(problem).build().polish(bestSolution);
+            System.out.println("Polishing saved " + (cost - bestSolution.getCost()));
+        }
+        SolutionPrinter.print(bestSolution);
+
+        // Plot the solution.
+        new Plotter(problem, bestSolution).plot("outputGraph.png", "JspritEx2experiment");
+        // CustomPlotter.displaySolution(bestSolution); // Uncomment if you have CustomPlotter available.
+        CustomPlotter.displaySolution(bestSolution);
+        System.out.println("Number of routes: " + bestSolution.getRoutes().size());
+        for (VehicleRoute route : bestSolution.getRoutes()) {
+            System.out.println("Route for " + route.getVehicle().getId() + " has " + route.getActivities().size() + " stops.");
+        }
+
+
+    }
+
+    /**
+     * Writes the solutions to {@code file} with a {@link SolutionStreamWriter}, in the format its name implies.
+     */
+    static void writeSolutions(Collection<VehicleRoutingProblemSolution> solutions, Path file) {
+        try (SolutionStreamWriter writer = new SolutionStreamWriter(Files.newOutputStream(file),
+                SolutionStreamWriter.Format.of(file))) {
+            writer.writeAll(solutions);
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot write solutions to " + file, e);
+        }
+    }
+
+    /**
+     * Creates the depot (index 0, in New York) followed by {@code noServices} service locations spread across
+     * three clusters: New York, Los Angeles and Chicago. With 100 services and seed 42 these are the locations
+     * this example has always used.
+     *
+     * @param noServices the number of service locations.
+     * @param seed       the seed of the random spread within each cluster.
+     * @return all locations, indexed by their position in the list.
+     */
+    public static List<Location> createLocations(int noServices, long seed) {
         // 1. Create a depot location.
         // For consistency with our clusters, we choose a depot in New York.
-        Location depot = Location.Builder.newInstance()
+        // Coordinates follow jsprit's convention: x is the longitude, y the latitude.
+        List<Location> allLocations = new ArrayList<>();
+        allLocations.add(Location.Builder.newInstance()
                 .setId("depot")
-                .setCoordinate(Coordinate.newInstance(40.7128, -74.0060))
-                .build();
+                .setIndex(0)
+                .setCoordinate(Coordinate.newInstance(-74.0060, 40.7128))
+                .build());
 
-        // 2. Generate 100 service locations spread across three clusters:
+        // 2. Generate the service locations. For 100 services:
         //    - New York (34 locations), Los Angeles (33 locations), Chicago (33 locations).
-        List<Location> serviceLocations = new ArrayList<>();
-        Random rand = new Random(42);
-
-        // New York cluster: center around (40.7128, -74.0060)
-        for (int i = 0; i < 34; i++) {
-            double lat = 40.7128 + (rand.nextDouble() - 0.5) * 0.1; // variation ±0.05°
-            double lon = -74.0060 + (rand.nextDouble() - 0.5) * 0.1;
-            String id = "loc" + (i + 1);
-            Location loc = Location.Builder.newInstance()
-                    .setId(id)
-                    .setCoordinate(Coordinate.newInstance(lat, lon))
-                    .build();
-            serviceLocations.add(loc);
-        }
-        // Los Angeles cluster: center around (34.0522, -118.2437)
-        for (int i = 34; i < 67; i++) {
-            double lat = 34.0522 + (rand.nextDouble() - 0.5) * 0.1;
-            double lon = -118.2437 + (rand.nextDouble() - 0.5) * 0.1;
-            String id = "loc" + (i + 1);
-            Location loc = Location.Builder.newInstance()
-                    .setId(id)
-                    .setCoordinate(Coordinate.newInstance(lat, lon))
-                    .build();
-            serviceLocations.add(loc);
-        }
-        // Chicago cluster: center around (41.8781, -87.6298)
-        for (int i = 67; i < 100; i++) {
-            double lat = 41.8781 + (rand.nextDouble() - 0.5) * 0.1;
-            double lon = -87.6298 + (rand.nextDouble() - 0.5) * 0.1;
-            String id = "loc" + (i + 1);
-            Location loc = Location.Builder.newInstance()
-                    .setId(id)
-                    .setCoordinate(Coordinate.newInstance(lat, lon))
-                    .build();
-            serviceLocations.add(loc);
+        double[][] centers = {
+                {40.7128, -74.0060},  // New York
+                {34.0522, -118.2437}, // Los Angeles
+                {41.8781, -87.6298}   // Chicago
+        };
+        int perCluster = noServices / 3;
+        int[] clusterEnds = {noServices - 2 * perCluster, noServices - perCluster, noServices};
+        Random rand = new Random(seed);
+        int cluster = 0;
+        for (int i = 0; i < noServices; i++) {
+            while (i >= clusterEnds[cluster]) {
+                cluster++;
+            }
+            double lat = centers[cluster][0] + (rand.nextDouble() - 0.5) * 0.1; // variation ±0.05°
+            double lon = centers[cluster][1] + (rand.nextDouble() - 0.5) * 0.1;
+            allLocations.add(Location.Builder.newInstance()
+                    .setId("loc" + (i + 1))
+                    .setIndex(i + 1)
+                    .setCoordinate(Coordinate.newInstance(lon, lat))
+                    .build());
         }
+        return allLocations;
+    }
+
+    /**
+     * Creates the example problem: one service with demand 2 at every location but the depot, and five trucks
+     * with capacity 50 starting at the depot.
+     *
+     * @param allLocations the depot followed by the service locations, see {@link #createLocations(int, long)}.
+     * @param costs        the transport costs between the locations.
+     */
+    public static VehicleRoutingProblem createProblem(List<Location> allLocations, VehicleRoutingTransportCosts costs) {
+        return createProblem(allLocations, costs, 5, 50, 2, VehicleRoutingProblem.FleetSize.INFINITE);
+    }
 
-        // 3. Create service jobs for each location with a fixed demand (e.g., 5).
+    /**
+     * Creates the example problem with other fleet and demand parameters: one service per location but the depot,
+     * named {@code service_<location id>}, and {@code noVehicles} trucks of type {@code truck} starting at the depot.
+     *
+     * @param allLocations the depot followed by the service locations, see {@link #createLocations(int, long)}.
+     * @param costs        the transport costs between the locations.
+     * @param noVehicles   the number of trucks.
+     * @param capacity     the capacity of every truck.
+     * @param demand       the demand of every service.
+     * @param fleetSize    whether the trucks may be used more than once.
+     */
+    public static VehicleRoutingProblem createProblem(List<Location> allLocations, VehicleRoutingTransportCosts costs,
+                                                      int noVehicles, int capacity, int demand,
+                                                      VehicleRoutingProblem.FleetSize fleetSize) {
+        Location depot = allLocations.get(0);
+
+        // 3. Create service jobs for each location with a fixed demand.
         List<Service> services = new ArrayList<>();
-        for (Location loc : serviceLocations) {
+        for (Location loc : allLocations.subList(1, allLocations.size())) {
             Service service = Service.Builder.newInstance("service_" + loc.getId())
                     .setLocation(loc)
-                    .addSizeDimension(0, 2)
+                    .addSizeDimension(0, demand)
                     .build();
             services.add(service);
         }
 
         // 4. Create a vehicle type (with a capacity sufficient for multiple jobs).
         VehicleType vehicleType = VehicleTypeImpl.Builder.newInstance("truck")
-                .addCapacityDimension(0, 50)
+                .addCapacityDimension(0, capacity)
                 .build();
 
         // 5. Create several vehicles that start at the depot.
         List<Vehicle> vehicles = new ArrayList<>();
-        vehicles.add(VehicleImpl.Builder.newInstance("v1")
-                .setStartLocation(depot)
-                .setType(vehicleType)
-                .build());
-        vehicles.add(VehicleImpl.Builder.newInstance("ve2")
-                .setStartLocation(depot)
-                .setType(vehicleType)
-                .build());
-        vehicles.add(VehicleImpl.Builder.newInstance("veh3")
-                .setStartLocation(depot)
-                .setType(vehicleType)
-                .build());
-        vehicles.add(VehicleImpl.Builder.newInstance("vehi4")
-                .setStartLocation(depot)
-                .setType(vehicleType)
-                .build());
-        vehicles.add(VehicleImpl.Builder.newInstance("vehicle5")
-                .setStartLocation(depot)
-                .setType(vehicleType)
-                .build());
-
-        // 6. Build a distance (cost) matrix that includes the depot and all service locations.
-        // Create a list of all nodes (depot + services)
-        List<Location> allLocations = new ArrayList<>();
-        allLocations.add(depot);
-        allLocations.addAll(serviceLocations);
-
-        VehicleRoutingTransportCostsMatrix.Builder matrixBuilder =
-                VehicleRoutingTransportCostsMatrix.Builder.newInstance(true);
-        for (Location from : allLocations) {
-            for (Location to : allLocations) {
-                double distance = haversine(
-                        from.getCoordinate().getY(), from.getCoordinate().getX(),
-                        to.getCoordinate().getY(), to.getCoordinate().getX()
-                );
-                matrixBuilder.addTransportDistance(from.getId(), to.getId(), distance);
-            }
+        for (int k = 1; k <= noVehicles; k++) {
+            vehicles.add(VehicleImpl.Builder.newInstance(vehicleId(k))
+                    .setStartLocation(depot)
+                    .setType(vehicleType)
+                    .build());
         }
 
         // 7. Build the vehicle routing problem by adding vehicles, jobs, and the cost matrix.
@@ -139,33 +304,19 @@ public class multiple100locations {
         for (Service s : services) {
             vrpBuilder.addJob(s);
         }
-        vrpBuilder.setRoutingCost(matrixBuilder.build());
-
-        VehicleRoutingProblem problem = vrpBuilder.build();
-
-        // 8. Solve the problem using Jsprit's algorithm.
-        VehicleRoutingAlgorithm algorithm = Jsprit.createAlgorithm(problem);
-        Collection<VehicleRoutingProblemSolution> solutions = algorithm.searchSolutions();
-        System.out.println("All possible solutions: " + solutions);
-
-        // Print the best solution to the console.
-        System.out.println("The best solution:");
-        VehicleRoutingProblemSolution bestSolution = Solutions.bestOf(solutions);
-        SolutionPrinter.print(bestSolution);
-
-        // Plot the solution.
-        new Plotter(problem, bestSolution).plot("outputGraph.png", "JspritEx2experiment");
-        // CustomPlotter.displaySolution(bestSolution); // Uncomment if you have CustomPlotter available.
-        CustomPlotter.displaySolution(bestSolution);
-        System.out.println("Number of routes: " + bestSolution.getRoutes().size());
-        for (VehicleRoute route : bestSolution.getRoutes()) {
-            System.out.println("Route for " + route.getVehicle().getId() + " has " + route.getActivities().size() + " stops.");
-        }
-
+        vrpBuilder.setFleetSize(fleetSize);
+        vrpBuilder.setRoutingCost(costs);
+        return vrpBuilder.build();
+    }
 
+    // The ids the example has always used for its first five vehicles, then vehicle6, vehicle7 and so on.
+    private static String vehicleId(int k) {
+        String[] ids = {"v1", "ve2", "veh3", "vehi4", "vehicle5"};
+        return k <= ids.length ? ids[k - 1] : "vehicle" + k;
     }
 
     // Haversine formula to compute the distance (in kilometers) between two latitude/longitude pairs.
+    // Kept as the reference implementation; GeodesicKernel computes the same values from precomputed tables.
     public static double haversine(double lat1, double lon1, double lat2, double lon2) {
         double dLat = Math.toRadians(lat2 - lat1);
         double dLon = Math.toRadians(lon2 - lon1);
@@ -0,0 +1,55 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link AnytimeSolver}.
+ */
+public class AnytimeSolverTest extends TestCase {
+
+    private static VehicleRoutingProblem createProblem(int noServices) {
+        List<Location> locations = multiple100locations.createLocations(noServices, 42);
+        return multiple100locations.createProblem(locations, DenseTransportCostsMatrix.Builder.newInstance(locations).build());
+    }
+
+    public void testStopsWhenConverged() {
+        final List<Double> costs = new ArrayList<>();
+        AnytimeSolver solver = AnytimeSolver.Builder.newInstance(createProblem(6))
+                .setConvergenceWindow(20)
+                .addListener(new AnytimeSolver.BestSolutionListener() {
+                    @Override
+                    public void informBestSolution(VehicleRoutingProblemSolution solution, int iteration,
+                                                   long elapsedMillis) {
+                        costs.add(solution.getCost());
+                    }
+                })
+                .build();
+        VehicleRoutingProblemSolution best = solver.solve();
+
+        assertTrue(solver.getIterations() < 2000);
+        assertFalse(costs.isEmpty());
+        for (int i = 1; i < costs.size(); i++) {
+            assertTrue(costs.get(i) < costs.get(i - 1));
+        }
+        assertEquals(costs.get(costs.size() - 1), best.getCost(), 1e-9);
+    }
+
+    public void testStopsAtDeadline() {
+        AnytimeSolver solver = AnytimeSolver.Builder.newInstance(createProblem(60))
+                .setTimeBudget(300, TimeUnit.MILLISECONDS)
+                .build();
+        long start = System.nanoTime();
+        VehicleRoutingProblemSolution best = solver.solve();
+        long millis = (System.nanoTime() - start) / 1_000_000L;
+
+        assertNotNull(best);
+        assertTrue("took " + millis + " ms", millis < 3000);
+    }
+}
@@ -0,0 +1,107 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleType;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import junit.framework.TestCase;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Unit tests for {@link ClusterDecomposition} and {@link KMeansClustering}.
+ */
+public class ClusterDecompositionTest extends TestCase {
+
+    public void testKMeansSeparatesBlobs() {
+        Random rand = new Random(42);
+        double[] x = new double[90];
+        double[] y = new double[90];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = 10 * (i % 3) + rand.nextDouble();
+            y[i] = rand.nextDouble();
+        }
+        KMeansClustering clustering = KMeansClustering.cluster(x, y, 3, new Random(1), 100);
+        assertEquals(3, clustering.getNoClusters());
+        for (int i = 3; i < x.length; i++) {
+            assertEquals(clustering.getCluster(i % 3), clustering.getCluster(i));
+        }
+        double centroidX = clustering.getCentroidX(clustering.getCluster(0));
+        assertTrue(centroidX > 0 && centroidX < 1);
+    }
+
+    public void testSplitsFleetAndMergesRoutes() {
+        List<Location> locations = multiple100locations.createLocations(60, 42);
+        // Travel and service times, so that stale activity times would show.
+        TriangularTransportCosts costs = TriangularTransportCosts.Builder.newInstance(locations)
+                .setSpeedProfile(TriangularTransportCosts.SpeedProfile.constant(50)).build();
+        VehicleType type = VehicleTypeImpl.Builder.newInstance("truck").addCapacityDimension(0, 30).build();
+        VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance()
+                .setFleetSize(VehicleRoutingProblem.FleetSize.FINITE)
+                .setRoutingCost(costs);
+        for (int v = 1; v <= 6; v++) {
+            builder.addVehicle(VehicleImpl.Builder.newInstance("v" + v).setStartLocation(locations.get(0))
+                    .setType(type).build());
+        }
+        for (Location location : locations.subList(1, locations.size())) {
+            builder.addJob(Service.Builder.newInstance("s" + location.getId()).setLocation(location)
+                    .addSizeDimension(0, 2).setServiceTime(0.1).build());
+        }
+        VehicleRoutingProblem problem = builder.build();
+
+        VehicleRoutingProblemSolution solution = ClusterDecomposition.Builder.newInstance(problem)
+                .setNoClusters(3).setMaxIterations(50).setNoThreads(2).build().solve();
+
+        Set<String> vehicles = new HashSet<>();
+        Set<String> jobs = new HashSet<>();
+        double cost = 0;
+        for (VehicleRoute route : solution.getRoutes()) {
+            assertTrue(problem.getVehicles().contains(route.getVehicle()));
+            assertTrue("vehicle used twice", vehicles.add(route.getVehicle().getId()));
+            cost += checkTimesAndGetCost(route, problem.getTransportCosts());
+            for (TourActivity activity : route.getActivities()) {
+                Job job = ProblemCopies.jobOf(activity);
+                assertSame(problem.getJobs().get(job.getId()), job);
+                assertTrue("job routed twice", jobs.add(job.getId()));
+            }
+        }
+        for (Job job : solution.getUnassignedJobs()) {
+            assertTrue("job routed and unassigned", jobs.add(job.getId()));
+        }
+        assertEquals(problem.getJobs().keySet(), jobs);
+        assertTrue(solution.getUnassignedJobs().isEmpty());
+        assertEquals(cost, solution.getCost(), 1e-6);
+    }
+
+    // Checks the activity times against the original costs and returns the route's transport cost.
+    private static double checkTimesAndGetCost(VehicleRoute route, VehicleRoutingTransportCosts costs) {
+        double cost = 0;
+        double time = route.getStart().getEndTime();
+        TourActivity previous = route.getStart();
+        for (TourActivity activity : route.getActivities()) {
+            time += costs.getTransportTime(previous.getLocation(), activity.getLocation(), time, null,
+                    route.getVehicle());
+            assertEquals(time, activity.getArrTime(), 1e-9);
+            time = Math.max(time, activity.getTheoreticalEarliestOperationStartTime()) + activity.getOperationTime();
+            assertEquals(time, activity.getEndTime(), 1e-9);
+            cost += costs.getTransportCost(previous.getLocation(), activity.getLocation(), 0, null,
+                    route.getVehicle());
+            previous = activity;
+        }
+        time += costs.getTransportTime(previous.getLocation(), route.getEnd().getLocation(), time, null,
+                route.getVehicle());
+        assertEquals(time, route.getEnd().getArrTime(), 1e-9);
+        return cost + costs.getTransportCost(previous.getLocation(), route.getEnd().getLocation(), 0, null,
+                route.getVehicle());
+    }
+}
@@ -0,0 +1,87 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import junit.framework.TestCase;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.renderer.xy.SamplingXYLineRenderer;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link CustomPlotter}. They run headless, as the surefire configuration sets
+ * {@code java.awt.headless}.
+ */
+public class CustomPlotterTest extends TestCase {
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+
+    public void testThinsLabelsPastThreshold() {
+        VehicleRoutingProblemSolution large = createSolution(300, 50);
+        JFreeChart chart = CustomPlotter.createChart(large);
+        assertTrue(chart.getXYPlot().getRenderer() instanceof SamplingXYLineRenderer);
+        // Every second stop, plus the single depot.
+        assertEquals(150 + 1, chart.getXYPlot().getAnnotations().size());
+        assertEquals(6, chart.getXYPlot().getDataset().getSeriesCount());
+
+        JFreeChart small = CustomPlotter.createChart(createSolution(20, 10));
+        assertFalse(small.getXYPlot().getRenderer() instanceof SamplingXYLineRenderer);
+        assertEquals(20 + 1, small.getXYPlot().getAnnotations().size());
+    }
+
+    public void testRendersLargeSolutionToPngAndSvg() throws Exception {
+        VehicleRoutingProblemSolution solution = createSolution(300, 50);
+        Path png = File.createTempFile("plot", ".png").toPath();
+        Path svg = File.createTempFile("plot", ".svg").toPath();
+        try {
+            assertEquals(png, CustomPlotter.renderToFile(solution, png, 800, 600));
+            byte[] bytes = Files.readAllBytes(png);
+            assertTrue(bytes.length > PNG_SIGNATURE.length);
+            assertTrue(Arrays.equals(PNG_SIGNATURE, Arrays.copyOf(bytes, PNG_SIGNATURE.length)));
+
+            assertEquals(svg, CustomPlotter.renderInBackground(solution, svg, 800, 600).get(30, TimeUnit.SECONDS));
+            String text = new String(Files.readAllBytes(svg), StandardCharsets.UTF_8);
+            assertTrue(text.contains("<svg"));
+            assertTrue(text.trim().endsWith("</svg>"));
+        } finally {
+            Files.deleteIfExists(png);
+            Files.deleteIfExists(svg);
+        }
+    }
+
+    // A solution visiting noServices services in routes of routeLength stops each, in index order.
+    private static VehicleRoutingProblemSolution createSolution(int noServices, int routeLength) {
+        List<Location> locations = multiple100locations.createLocations(noServices, 42);
+        VehicleRoutingProblem problem = multiple100locations.createProblem(locations,
+                DenseTransportCostsMatrix.Builder.newInstance(locations).build());
+        List<Vehicle> vehicles = new ArrayList<>(problem.getVehicles());
+        List<VehicleRoute> routes = new ArrayList<>();
+        VehicleRoute.Builder route = null;
+        for (int i = 1; i < locations.size(); i++) {
+            if ((i - 1) % routeLength == 0) {
+                if (route != null) {
+                    routes.add(route.build());
+                }
+                route = VehicleRoute.Builder.newInstance(vehicles.get(routes.size() % vehicles.size()))
+                        .setJobActivityFactory(problem.getJobActivityFactory());
+            }
+            Job job = problem.getJobs().get("service_" + locations.get(i).getId());
+            route.addService((Service) job);
+        }
+        routes.add(route.build());
+        return new VehicleRoutingProblemSolution(routes, Collections.<Job>emptyList(), 0);
+    }
+}
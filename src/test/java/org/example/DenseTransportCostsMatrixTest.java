@@ -0,0 +1,67 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.util.Coordinate;
+import com.graphhopper.jsprit.core.util.VehicleRoutingTransportCostsMatrix;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Unit tests for {@link DenseTransportCostsMatrix}.
+ */
+public class DenseTransportCostsMatrixTest extends TestCase {
+
+    public void testMatchesStringKeyedMatrix() {
+        Random rand = new Random(42);
+        List<Location> locations = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            locations.add(Location.Builder.newInstance()
+                    .setId("loc" + i)
+                    .setIndex(i)
+                    .setCoordinate(Coordinate.newInstance(40 + rand.nextDouble(), -74 + rand.nextDouble()))
+                    .build());
+        }
+        VehicleRoutingTransportCostsMatrix.Builder reference = VehicleRoutingTransportCostsMatrix.Builder.newInstance(true);
+        for (Location from : locations) {
+            for (Location to : locations) {
+                reference.addTransportDistance(from.getId(), to.getId(), multiple100locations.haversine(
+                        from.getCoordinate().getY(), from.getCoordinate().getX(),
+                        to.getCoordinate().getY(), to.getCoordinate().getX()));
+            }
+        }
+        VehicleRoutingTransportCostsMatrix expected = reference.build();
+        DenseTransportCostsMatrix actual = DenseTransportCostsMatrix.Builder.newInstance(locations).build();
+
+        assertEquals(100, actual.getNoLocations());
+        for (Location from : locations) {
+            for (Location to : locations) {
+                assertEquals(expected.getTransportCost(from, to, 0, null, null),
+                        actual.getTransportCost(from, to, 0, null, null), 0.0);
+                assertEquals(0.0, actual.getTransportTime(from, to, 0, null, null), 0.0);
+            }
+        }
+    }
+
+    public void testSymmetricBuilderFillsBothDirections() {
+        DenseTransportCostsMatrix matrix = DenseTransportCostsMatrix.Builder.newInstance(3, true)
+                .addTransportDistance(0, 2, 7.5)
+                .addTransportTime(2, 1, 3.0)
+                .build();
+        assertEquals(7.5, matrix.getDistance(2, 0), 0.0);
+        assertEquals(3.0, matrix.getTransportTime(1, 2), 0.0);
+        assertEquals(0.0, matrix.getDistance(1, 1), 0.0);
+    }
+
+    public void testRejectsLocationWithoutIndex() {
+        DenseTransportCostsMatrix matrix = DenseTransportCostsMatrix.Builder.newInstance(1, true).build();
+        try {
+            matrix.getDistance(Location.newInstance("noIndex"), Location.newInstance("noIndex"), 0, null);
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import junit.framework.TestCase;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Unit tests for {@link GeodesicKernel}.
+ */
+public class GeodesicKernelTest extends TestCase {
+
+    public void testHaversineIsBitIdenticalToReference() {
+        Random rand = new Random(42);
+        int n = 400;
+        double[] lat = new double[n];
+        double[] lon = new double[n];
+        for (int i = 0; i < n; i++) {
+            lat[i] = (rand.nextDouble() - 0.5) * 180;
+            lon[i] = (rand.nextDouble() - 0.5) * 360;
+        }
+        GeodesicKernel kernel = new GeodesicKernel(lat, lon, GeodesicKernel.Mode.HAVERSINE);
+        double[] row = new double[n];
+        for (int i = 0; i < n; i++) {
+            kernel.fillRow(i, row, 0, 0, n);
+            for (int j = 0; j < n; j++) {
+                double expected = multiple100locations.haversine(lat[i], lon[i], lat[j], lon[j]);
+                assertEquals(Double.doubleToLongBits(expected), Double.doubleToLongBits(kernel.distance(i, j)));
+                assertEquals(Double.doubleToLongBits(expected), Double.doubleToLongBits(row[j]));
+            }
+        }
+
+        List<Location> locations = multiple100locations.createLocations(50, 7);
+        GeodesicKernel fromLocations = GeodesicKernel.of(locations, GeodesicKernel.Mode.HAVERSINE);
+        for (Location from : locations) {
+            for (Location to : locations) {
+                assertEquals(multiple100locations.haversine(from.getCoordinate().getY(), from.getCoordinate().getX(),
+                        to.getCoordinate().getY(), to.getCoordinate().getX()),
+                        fromLocations.distance(from.getIndex(), to.getIndex()), 0.0);
+            }
+        }
+    }
+
+    public void testEquirectangularStaysWithinDocumentedBound() {
+        Random rand = new Random(42);
+        double[] latitudes = {-60, -45, -20, 0, 20, 45, 60};
+        double[] distances = {0.5, 5, 20, 50, 100};
+        for (double startLat : latitudes) {
+            for (double km : distances) {
+                for (int k = 0; k < 50; k++) {
+                    double startLon = (rand.nextDouble() - 0.5) * 360;
+                    double[] end = destination(startLat, startLon, rand.nextDouble() * 360, km);
+                    if (Math.abs(end[0]) > 60) {
+                        continue;
+                    }
+                    double[] lat = {startLat, end[0]};
+                    double[] lon = {startLon, end[1]};
+                    double exact = new GeodesicKernel(lat, lon, GeodesicKernel.Mode.HAVERSINE).distance(0, 1);
+                    double fast = new GeodesicKernel(lat, lon, GeodesicKernel.Mode.EQUIRECTANGULAR).distance(0, 1);
+                    double error = Math.abs(fast - exact) / exact;
+                    assertTrue(startLat + "/" + km + " km: " + error, error < 1e-4);
+                    if (km <= 20) {
+                        assertTrue(startLat + "/" + km + " km: " + error, error < 1e-5);
+                    }
+                }
+            }
+        }
+    }
+
+    // The point km kilometers from (lat, lon) along the initial bearing, as {latitude, longitude}.
+    private static double[] destination(double lat, double lon, double bearing, double km) {
+        double delta = km / multiple100locations.EARTH_RADIUS;
+        double phi = Math.toRadians(lat);
+        double theta = Math.toRadians(bearing);
+        double phi2 = Math.asin(Math.sin(phi) * Math.cos(delta) + Math.cos(phi) * Math.sin(delta) * Math.cos(theta));
+        double lambda = Math.atan2(Math.sin(theta) * Math.sin(delta) * Math.cos(phi),
+                Math.cos(delta) - Math.sin(phi) * Math.sin(phi2));
+        double lon2 = lon + Math.toDegrees(lambda);
+        if (lon2 > 180) {
+            lon2 -= 360;
+        } else if (lon2 < -180) {
+            lon2 += 360;
+        }
+        return new double[]{Math.toDegrees(phi2), lon2};
+    }
+}
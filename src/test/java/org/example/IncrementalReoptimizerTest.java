@@ -0,0 +1,67 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.algorithm.VehicleRoutingAlgorithm;
+import com.graphhopper.jsprit.core.algorithm.box.Jsprit;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.util.Solutions;
+import junit.framework.TestCase;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Unit tests for {@link IncrementalReoptimizer}.
+ */
+public class IncrementalReoptimizerTest extends TestCase {
+
+    public void testKeepsRoutesAndInsertsAddedJobs() {
+        List<Location> locations = multiple100locations.createLocations(24, 42);
+        DenseTransportCostsMatrix costs = DenseTransportCostsMatrix.Builder.newInstance(locations).build();
+        VehicleRoutingProblem previous = multiple100locations.createProblem(locations.subList(0, 21), costs);
+        VehicleRoutingAlgorithm algorithm = Jsprit.Builder.newInstance(previous).setRandom(new Random(42)).buildAlgorithm();
+        algorithm.setMaxIterations(50);
+        VehicleRoutingProblemSolution previousSolution = Solutions.bestOf(algorithm.searchSolutions());
+
+        IncrementalReoptimizer.Builder builder = IncrementalReoptimizer.Builder.newInstance(previous, previousSolution)
+                .removeJob("service_loc1")
+                .removeJob("service_loc2")
+                .setMaxIterations(20);
+        for (Location location : locations.subList(21, 25)) {
+            builder.addJob(Service.Builder.newInstance("service_" + location.getId())
+                    .setLocation(location)
+                    .addSizeDimension(0, 2)
+                    .build());
+        }
+        IncrementalReoptimizer reoptimizer = builder.build();
+
+        assertEquals(22, reoptimizer.getProblem().getJobs().size());
+        assertEquals(22, jobIds(reoptimizer.getInitialSolution()).size());
+        assertTrue(reoptimizer.getInitialSolution().getUnassignedJobs().isEmpty());
+        VehicleRoutingProblemSolution solution = reoptimizer.solve();
+        Set<String> ids = jobIds(solution);
+        assertEquals(reoptimizer.getProblem().getJobs().keySet(), ids);
+        assertFalse(ids.contains("service_loc1"));
+        assertTrue(ids.contains("service_loc24"));
+        // The previous problem is untouched and can still be solved.
+        assertEquals(20, previous.getJobs().size());
+    }
+
+    private static Set<String> jobIds(VehicleRoutingProblemSolution solution) {
+        Set<String> ids = new HashSet<>();
+        for (VehicleRoute route : solution.getRoutes()) {
+            for (TourActivity activity : route.getActivities()) {
+                Job job = ProblemCopies.jobOf(activity);
+                assertTrue(ids.add(job.getId()));
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,130 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.algorithm.VehicleRoutingAlgorithm;
+import com.graphhopper.jsprit.core.algorithm.box.Jsprit;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.util.Solutions;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests for {@link InstrumentedTransportCosts}.
+ */
+public class InstrumentedTransportCostsTest extends TestCase {
+
+    public void testCountsLookupsAndHotPairs() throws Exception {
+        List<Location> locations = multiple100locations.createLocations(20, 42);
+        DenseTransportCostsMatrix matrix = DenseTransportCostsMatrix.Builder.newInstance(locations).build();
+        InstrumentedTransportCosts costs = InstrumentedTransportCosts.Builder.newInstance(matrix)
+                .setNoHotPairs(2).setLatencySampling(1).build();
+        Location a = locations.get(1);
+        Location b = locations.get(2);
+        for (int k = 0; k < 5; k++) {
+            assertEquals(matrix.getDistance(1, 2), costs.getTransportCost(a, b, 0.0, null, null));
+        }
+        costs.getTransportTime(b, a, 0.0, null, null);
+        costs.getBackwardTransportCost(b, a, 0.0, null, null);
+        costs.getBackwardTransportTime(a, b, 0.0, null, null);
+        costs.getDistance(a, b, 0.0, null);
+
+        InstrumentedTransportCosts.Snapshot snapshot = costs.getSnapshot();
+        assertEquals(5, snapshot.getCostCalls());
+        assertEquals(1, snapshot.getTimeCalls());
+        assertEquals(1, snapshot.getBackwardCostCalls());
+        assertEquals(1, snapshot.getBackwardTimeCalls());
+        assertEquals(1, snapshot.getDistanceCalls());
+        long histogramTotal = 0;
+        for (long count : snapshot.getLatencyHistogram()) {
+            histogramTotal += count;
+        }
+        assertEquals(snapshot.getCalls(), histogramTotal);
+        assertEquals(2, snapshot.getDistinctPairs());
+        assertEquals(2, snapshot.getHotPairs().size());
+        InstrumentedTransportCosts.Pair hottest = snapshot.getHotPairs().get(0);
+        assertEquals(1, hottest.getFromIndex());
+        assertEquals(2, hottest.getToIndex());
+        assertEquals(7, hottest.getCount());
+        assertEquals(2, snapshot.getHotPairs().get(1).getCount());
+        assertEquals(0, snapshot.getFrontCacheHits());
+
+        Path file = File.createTempFile("costs", ".json").toPath();
+        try {
+            costs.writeJson(file);
+            String json = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+            assertTrue(json.startsWith("{\"costCalls\":5,"));
+            assertTrue(json.contains("\"hotPairs\":[{\"from\":1,\"to\":2,\"count\":7}"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    public void testFrontCacheAnswersHotPairsPerVehicleType() {
+        List<Location> locations = multiple100locations.createLocations(30, 42);
+        LazyHaversineTransportCosts lazy = new LazyHaversineTransportCosts(locations, 1024);
+        InstrumentedTransportCosts costs = InstrumentedTransportCosts.Builder.newInstance(lazy)
+                .setFrontCacheSize(64).setPromotionThreshold(4).build();
+        VehicleRoutingProblem problem = multiple100locations.createProblem(locations, costs);
+        Vehicle vehicle = problem.getVehicles().iterator().next();
+        for (int k = 0; k < 20; k++) {
+            for (int i = 0; i < locations.size(); i++) {
+                Location from = locations.get(i);
+                Location to = locations.get((i * 7 + 3) % locations.size());
+                assertEquals(lazy.getTransportCost(from, to, 0.0, null, vehicle),
+                        costs.getTransportCost(from, to, 0.0, null, vehicle));
+                assertEquals(lazy.getTransportCost(from, to, 0.0, null, null),
+                        costs.getTransportCost(from, to, 0.0, null, null));
+            }
+        }
+        assertTrue(costs.getSnapshot().getFrontCacheHits() > 0);
+
+        VehicleRoutingAlgorithm algorithm = Jsprit.Builder.newInstance(problem).setRandom(new Random(42))
+                .buildAlgorithm();
+        algorithm.setMaxIterations(20);
+        VehicleRoutingProblemSolution best = Solutions.bestOf(algorithm.searchSolutions());
+        assertTrue(best.getUnassignedJobs().isEmpty());
+        assertTrue(costs.getSnapshot().getCalls() > 1000);
+    }
+
+    public void testFrontCacheUnderConcurrentPromotion() throws Exception {
+        List<Location> locations = multiple100locations.createLocations(30, 42);
+        final DenseTransportCostsMatrix matrix = DenseTransportCostsMatrix.Builder.newInstance(locations).build();
+        // One entry that every miss promotes into, so writers race on it all the time.
+        final InstrumentedTransportCosts costs = InstrumentedTransportCosts.Builder.newInstance(matrix)
+                .setFrontCacheSize(1).setPromotionThreshold(1).build();
+        final Location[] array = locations.toArray(new Location[0]);
+        final AtomicInteger wrong = new AtomicInteger();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final Random random = new Random(t);
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int k = 0; k < 200_000; k++) {
+                        Location from = array[random.nextInt(3)];
+                        Location to = array[3 + random.nextInt(3)];
+                        if (costs.getTransportCost(from, to, 0.0, null, null)
+                                != matrix.getDistance(from.getIndex(), to.getIndex())) {
+                            wrong.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, wrong.get());
+        assertTrue(costs.getSnapshot().getFrontCacheHits() > 0);
+    }
+}
@@ -0,0 +1,49 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import junit.framework.TestCase;
+
+import java.util.List;
+
+/**
+ * Unit tests for {@link LazyHaversineTransportCosts}.
+ */
+public class LazyHaversineTransportCostsTest extends TestCase {
+
+    public void testMatchesHaversineAfterEvictions() {
+        List<Location> locations = multiple100locations.createLocations(30, 42);
+        int n = locations.size();
+        LazyHaversineTransportCosts costs = new LazyHaversineTransportCosts(locations, 64);
+
+        for (int pass = 0; pass < 3; pass++) {
+            for (int k = 0; k < n * n; k++) {
+                int i = pass % 2 == 0 ? k / n : n - 1 - k / n;
+                Location from = locations.get(i);
+                Location to = locations.get(k % n);
+                double expected = from == to ? 0.0 : multiple100locations.haversine(from.getCoordinate().getY(),
+                        from.getCoordinate().getX(), to.getCoordinate().getY(), to.getCoordinate().getX());
+                assertEquals(expected, costs.getDistance(from.getIndex(), to.getIndex()), 0.0);
+                assertEquals(expected, costs.getTransportCost(from, to, 0.0, null, null), 0.0);
+                assertEquals(0.0, costs.getTransportTime(from, to, 0.0, null, null), 0.0);
+            }
+        }
+
+        LongDoubleLruCache cache = costs.getCache();
+        assertTrue(cache.toString(), cache.getEvictions() > 0);
+        assertTrue(cache.size() <= cache.capacity());
+    }
+
+    public void testBothDirectionsShareOneEntry() {
+        List<Location> locations = multiple100locations.createLocations(3, 42);
+        LazyHaversineTransportCosts costs = new LazyHaversineTransportCosts(locations, 16);
+
+        double forward = costs.getDistance(1, 2);
+        double backward = costs.getDistance(2, 1);
+
+        assertEquals(forward, backward, 0.0);
+        assertEquals(1, costs.getCache().getMisses());
+        assertEquals(1, costs.getCache().getHits());
+        assertEquals(0.0, costs.getDistance(2, 2), 0.0);
+        assertEquals(1, costs.getCache().getMisses());
+    }
+}
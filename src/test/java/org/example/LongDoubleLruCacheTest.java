@@ -0,0 +1,54 @@
+package org.example;
+
+import junit.framework.TestCase;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Unit tests for {@link LongDoubleLruCache}.
+ */
+public class LongDoubleLruCacheTest extends TestCase {
+
+    public void testEvictsLeastRecentlyUsed() {
+        LongDoubleLruCache cache = new LongDoubleLruCache(2, 1);
+        cache.put(1L, 1.0);
+        cache.put(2L, 2.0);
+        assertEquals(1.0, cache.get(1L), 0.0);
+        cache.put(3L, 3.0);
+
+        assertTrue(Double.isNaN(cache.get(2L)));
+        assertEquals(1.0, cache.get(1L), 0.0);
+        assertEquals(3.0, cache.get(3L), 0.0);
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertEquals(3, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    public void testBehavesLikeReferenceLru() {
+        final int capacity = 64;
+        Map<Long, Double> reference = new LinkedHashMap<Long, Double>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Double> eldest) {
+                return size() > capacity;
+            }
+        };
+        LongDoubleLruCache cache = new LongDoubleLruCache(capacity, 1);
+        Random rand = new Random(7);
+        for (int i = 0; i < 100000; i++) {
+            long key = ((long) rand.nextInt(20) << 32) | rand.nextInt(20);
+            Double expected = reference.get(key);
+            double actual = cache.get(key);
+            if (expected == null) {
+                assertTrue(Double.isNaN(actual));
+                reference.put(key, (double) i);
+                cache.put(key, i);
+            } else {
+                assertEquals(expected, actual, 0.0);
+            }
+        }
+        assertEquals(reference.size(), cache.size());
+    }
+}
@@ -0,0 +1,79 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.util.Coordinate;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Unit tests for {@link MappedTransportCostsMatrix}.
+ */
+public class MappedTransportCostsMatrixTest extends TestCase {
+
+    private Path file;
+
+    @Override
+    protected void setUp() throws Exception {
+        file = File.createTempFile("matrix", ".bin").toPath();
+        Files.delete(file);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    public void testBuildsReusesAndRebuildsCache() throws Exception {
+        List<Location> locations = locations(50, 1);
+        MappedTransportCostsMatrix built = MappedTransportCostsMatrix.loadOrBuild(file, locations);
+        DenseTransportCostsMatrix expected = DenseTransportCostsMatrix.Builder.newInstance(locations).build();
+        assertSameDistances(expected, built);
+
+        long modified = Files.getLastModifiedTime(file).toMillis();
+        Files.setLastModifiedTime(file, FileTime.fromMillis(modified - 60000));
+        MappedTransportCostsMatrix reused = MappedTransportCostsMatrix.loadOrBuild(file, locations);
+        assertEquals(modified - 60000, Files.getLastModifiedTime(file).toMillis());
+        assertSameDistances(expected, reused);
+
+        List<Location> changed = locations(50, 2);
+        MappedTransportCostsMatrix rebuilt = MappedTransportCostsMatrix.loadOrBuild(file, changed);
+        assertSameDistances(DenseTransportCostsMatrix.Builder.newInstance(changed).build(), rebuilt);
+    }
+
+    public void testBuildsMatrixSplitAcrossTasks() {
+        // Large enough for the row pairs to be split over several tasks that store rows concurrently.
+        List<Location> locations = locations(700, 3);
+        MappedTransportCostsMatrix built = MappedTransportCostsMatrix.loadOrBuild(file, locations);
+        assertSameDistances(DenseTransportCostsMatrix.Builder.newInstance(locations).build(), built);
+        assertEquals(0.0, built.getDistance(699, 699));
+    }
+
+    private static void assertSameDistances(IndexedTransportCosts expected, IndexedTransportCosts actual) {
+        assertEquals(expected.getNoLocations(), actual.getNoLocations());
+        for (int i = 0; i < expected.getNoLocations(); i++) {
+            for (int j = 0; j < expected.getNoLocations(); j++) {
+                assertEquals(expected.getDistance(i, j), actual.getDistance(i, j), 0.0);
+            }
+        }
+    }
+
+    private static List<Location> locations(int n, long seed) {
+        Random rand = new Random(seed);
+        List<Location> locations = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            locations.add(Location.Builder.newInstance()
+                    .setId("loc" + i)
+                    .setIndex(i)
+                    .setCoordinate(Coordinate.newInstance(-74 + rand.nextDouble(), 40 + rand.nextDouble()))
+                    .build());
+        }
+        return locations;
+    }
+}
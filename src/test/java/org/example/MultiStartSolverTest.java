@@ -0,0 +1,70 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import junit.framework.TestCase;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link MultiStartSolver}.
+ */
+public class MultiStartSolverTest extends TestCase {
+
+    private static VehicleRoutingProblem createProblem(int noServices) {
+        List<Location> locations = multiple100locations.createLocations(noServices, 42);
+        return multiple100locations.createProblem(locations, DenseTransportCostsMatrix.Builder.newInstance(locations).build());
+    }
+
+    public void testReturnsBestRun() {
+        MultiStartSolver solver = MultiStartSolver.Builder.newInstance(createProblem(20))
+                .setNoRuns(3)
+                .setBaseSeed(7)
+                .setMaxIterations(30)
+                .build();
+        VehicleRoutingProblemSolution best = solver.solve();
+
+        List<MultiStartSolver.Run> runs = solver.getRuns();
+        assertEquals(3, runs.size());
+        MultiStartSolver.Run bestRun = runs.get(0);
+        for (int k = 0; k < runs.size(); k++) {
+            assertEquals(7 + k, runs.get(k).getSeed());
+            assertEquals(30, runs.get(k).getIterations());
+            if (runs.get(k).getBestSolution().getCost() < bestRun.getBestSolution().getCost()) {
+                bestRun = runs.get(k);
+            }
+        }
+        assertSame(bestRun.getBestSolution(), best);
+    }
+
+    public void testConvergedRunStopsAllRuns() {
+        MultiStartSolver solver = MultiStartSolver.Builder.newInstance(createProblem(6))
+                .setNoRuns(2)
+                .setConvergenceWindow(20)
+                .build();
+        solver.solve();
+
+        for (MultiStartSolver.Run run : solver.getRuns()) {
+            assertTrue(run.toString(), run.getIterations() < 500);
+        }
+    }
+
+    public void testStopsAtGlobalDeadline() {
+        MultiStartSolver solver = MultiStartSolver.Builder.newInstance(createProblem(60))
+                .setNoRuns(2)
+                .setMaxIterations(100_000)
+                .setTimeBudget(300, TimeUnit.MILLISECONDS)
+                .build();
+        long start = System.nanoTime();
+        VehicleRoutingProblemSolution best = solver.solve();
+        long millis = (System.nanoTime() - start) / 1_000_000L;
+
+        assertNotNull(best);
+        assertTrue("took " + millis + " ms", millis < 3000);
+        for (MultiStartSolver.Run run : solver.getRuns()) {
+            assertTrue(run.toString(), run.getIterations() < 100_000);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.constraint.HardActivityConstraint.ConstraintsStatus;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.End;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.ServiceActivity;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.Start;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import junit.framework.TestCase;
+
+import java.util.List;
+
+/**
+ * Unit tests for {@link NeighbourInsertionConstraint}.
+ */
+public class NeighbourInsertionConstraintTest extends TestCase {
+
+    public void testAllowsNeighboursAndRouteEndsOnly() {
+        List<Location> locations = multiple100locations.createLocations(30, 42);
+        SparseTransportCosts costs = SparseTransportCosts.Builder.newInstance(locations, 3).build();
+        NeighbourInsertionConstraint constraint = new NeighbourInsertionConstraint(costs);
+        // Location 1 lies in New York, 11 in Los Angeles and 21 in Chicago, so none is a neighbour of another.
+        TourActivity newYork = activity(locations.get(1));
+        TourActivity losAngeles = activity(locations.get(11));
+        TourActivity chicago = activity(locations.get(21));
+        TourActivity neighbour = activity(locations.get(costs.getNeighbour(1, 0)));
+
+        assertEquals(ConstraintsStatus.NOT_FULFILLED, constraint.fulfilled(null, losAngeles, newYork, chicago, 0));
+        assertEquals(ConstraintsStatus.FULFILLED, constraint.fulfilled(null, neighbour, newYork, chicago, 0));
+        assertEquals(ConstraintsStatus.FULFILLED, constraint.fulfilled(null, losAngeles, newYork, neighbour, 0));
+
+        Start start = new Start(locations.get(11), 0, Double.MAX_VALUE);
+        End end = new End(locations.get(21), 0, Double.MAX_VALUE);
+        assertEquals(ConstraintsStatus.FULFILLED, constraint.fulfilled(null, start, newYork, chicago, 0));
+        assertEquals(ConstraintsStatus.FULFILLED, constraint.fulfilled(null, losAngeles, newYork, end, 0));
+        assertEquals(ConstraintsStatus.FULFILLED, constraint.fulfilled(null, start, newYork, end, 0));
+    }
+
+    private static TourActivity activity(Location location) {
+        return ServiceActivity.newInstance(Service.Builder.newInstance("s" + location.getId()).setLocation(location)
+                .build());
+    }
+}
@@ -0,0 +1,115 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Unit tests for {@link ProblemLoader}.
+ */
+public class ProblemLoaderTest extends TestCase {
+
+    private Path csv;
+
+    private Path bin;
+
+    @Override
+    protected void setUp() throws Exception {
+        csv = File.createTempFile("problem", ".csv").toPath();
+        bin = File.createTempFile("problem", ".bin").toPath();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        Files.deleteIfExists(csv);
+        Files.deleteIfExists(bin);
+    }
+
+    public void testLoadsCsvAndBinary() throws Exception {
+        Random rand = new Random(42);
+        double[] x = new double[200];
+        double[] y = new double[200];
+        StringBuilder text = new StringBuilder("# test problem\ndepot,depot,-74.0060,40.7128\r\ntype,truck,50,7\n")
+                .append("vehicle,v1,truck,depot\nvehicle,v2,truck,depot\n\n");
+        for (int i = 0; i < x.length; i++) {
+            // Mix short, long and exponent notation to exercise both number paths.
+            x[i] = -74 + (rand.nextDouble() - 0.5) * 0.1;
+            y[i] = i % 3 == 0 ? Math.round(40.7 * 1e4 + i) / 1e4 : 40.7 + rand.nextDouble();
+            text.append("service,s").append(i).append(',').append(x[i]).append(',')
+                    .append(i % 7 == 0 ? String.format(Locale.ROOT, "%.17e", y[i]) : Double.toString(y[i]))
+                    .append(',').append(i % 5).append(i % 2 == 0 ? "\n" : ",1\n");
+        }
+        Files.write(csv, text.toString().getBytes(StandardCharsets.UTF_8));
+
+        ProblemLoader fromCsv = ProblemLoader.loadCsv(csv);
+        fromCsv.writeBinary(bin);
+        ProblemLoader fromBin = ProblemLoader.load(bin);
+
+        for (ProblemLoader loader : new ProblemLoader[]{fromCsv, fromBin}) {
+            assertEquals(1, loader.getNoDepots());
+            assertEquals(2, loader.getNoVehicles());
+            assertEquals(200, loader.getNoServices());
+            assertEquals(2, loader.getNoDimensions());
+            List<Location> locations = loader.getLocations();
+            assertEquals(201, locations.size());
+            assertEquals(40.7128, locations.get(0).getCoordinate().getY(), 0.0);
+            for (int i = 0; i < x.length; i++) {
+                Location location = locations.get(i + 1);
+                assertEquals(i + 1, location.getIndex());
+                assertEquals("s" + i, location.getId());
+                assertEquals(x[i], location.getCoordinate().getX(), 0.0);
+                assertEquals(y[i], location.getCoordinate().getY(), 0.0);
+            }
+
+            VehicleRoutingProblem problem = loader.newProblemBuilder().build();
+            assertEquals(200, problem.getJobs().size());
+            Job s3 = problem.getJobs().get("s3");
+            assertEquals(3, s3.getSize().get(0));
+            assertEquals(1, s3.getSize().get(1));
+            assertEquals(0, problem.getJobs().get("s4").getSize().get(1));
+            for (Vehicle vehicle : problem.getVehicles()) {
+                assertEquals(50, vehicle.getType().getCapacityDimensions().get(0));
+                assertEquals(7, vehicle.getType().getCapacityDimensions().get(1));
+                assertEquals("depot", vehicle.getStartLocation().getId());
+            }
+        }
+    }
+
+    public void testReportsLineOfMalformedRecord() throws Exception {
+        Files.write(csv, "depot,depot,1,2\nservice,s1,1,x2,3\n".getBytes(StandardCharsets.UTF_8));
+        try {
+            ProblemLoader.loadCsv(csv);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().endsWith(":2: expected a number but got x2"));
+        }
+    }
+
+    public void testRejectsUndefinedIndexInBinary() throws Exception {
+        Files.write(csv, "depot,depot,1,2\ntype,truck,5\nvehicle,v1,truck,depot\nservice,s1,1,2,3\n"
+                .getBytes(StandardCharsets.UTF_8));
+        ProblemLoader.loadCsv(csv).writeBinary(bin);
+        byte[] bytes = Files.readAllBytes(bin);
+        // Header, the type "truck" with one capacity, the depot "depot" with coordinates, the vehicle id "v1".
+        int typeIndexAt = 32 + (4 + 5 + 4) + (4 + 5 + 16) + (4 + 2);
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putInt(typeIndexAt, 1);
+        try {
+            ProblemLoader.loadBinary(ByteBuffer.wrap(bytes), "request");
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("request: vehicle v1 has undefined type 1", e.getMessage());
+        }
+    }
+}
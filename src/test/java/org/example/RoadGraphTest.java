@@ -0,0 +1,91 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.util.Coordinate;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Unit tests for {@link RoadGraph}.
+ */
+public class RoadGraphTest extends TestCase {
+
+    private Path file;
+
+    @Override
+    protected void setUp() throws Exception {
+        file = File.createTempFile("roads", ".csv").toPath();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    public void testShortestPathsBetweenStops() throws Exception {
+        // A square 1-2-3-4 with a one-way shortcut 1->3, and an island 5-6 next to node 4.
+        String graph = "# test graph\n"
+                + "node,1,0.0,0.0\nnode,2,0.01,0.0\nnode,3,0.01,0.01\nnode,4,0.0,0.01\n"
+                + "node,5,0.0,0.0101\nnode,6,0.001,0.0101\n"
+                + "edge,1,2,1.0,2\nedge,2,3,1.0,2\nedge,3,4,1.0,2\nedge,4,1,1.0,2\narc,1,3,0.5,5\n"
+                + "edge,5,6,0.1,1\n";
+        Files.write(file, graph.getBytes(StandardCharsets.UTF_8));
+        RoadGraph roads = RoadGraph.load(file);
+        assertEquals(6, roads.getNoNodes());
+        assertEquals(11, roads.getNoArcs());
+
+        List<Location> stops = Arrays.asList(stop("a", 0, 0.0, 0.0), stop("b", 1, 0.01, 0.01),
+                stop("c", 2, 0.0, 0.0101));
+        DenseTransportCostsMatrix matrix = roads.buildMatrix(stops, ForkJoinPool.commonPool());
+
+        assertEquals(0.0, matrix.getDistance(0, 0));
+        assertEquals(0.5, matrix.getDistance(0, 1), 1e-9);
+        assertEquals(5.0, matrix.getTransportTime(0, 1), 1e-9);
+        assertEquals(2.0, matrix.getDistance(1, 0), 1e-9);
+        assertEquals(4.0, matrix.getTransportTime(1, 0), 1e-9);
+        // Stop c lies on the island, so it is snapped to node 4 of the main network instead.
+        double offset = multiple100locations.haversine(0.0101, 0.0, 0.01, 0.0);
+        assertEquals(offset + 1.0, matrix.getDistance(2, 0), 1e-9);
+        assertEquals(1.0 + offset, matrix.getDistance(0, 2), 1e-9);
+        // The way to the node takes time at the average speed of the timed arcs.
+        assertEquals(8.7 / 23, roads.getAccessSpeed(), 1e-9);
+        assertEquals(offset / roads.getAccessSpeed() + 2.0, matrix.getTransportTime(2, 0), 1e-9);
+        assertEquals(2.0 + offset / roads.getAccessSpeed(), matrix.getTransportTime(0, 2), 1e-9);
+    }
+
+    public void testUntimedGraphHasNoAccessTime() {
+        RoadGraph roads = RoadGraph.Builder.newInstance().addNode(1, 0.0, 0.0).addNode(2, 0.01, 0.0)
+                .addEdge(1, 2, 1.0, 0.0).build();
+        assertEquals(Double.POSITIVE_INFINITY, roads.getAccessSpeed());
+        List<Location> stops = Arrays.asList(stop("a", 0, 0.0, 0.001), stop("b", 1, 0.01, 0.001));
+        // Each build uses its own scratch space, so a second build on the same pool gives the same result.
+        for (int k = 0; k < 2; k++) {
+            DenseTransportCostsMatrix matrix = roads.buildMatrix(stops, ForkJoinPool.commonPool());
+            assertEquals(1.0 + 2 * multiple100locations.haversine(0.001, 0.0, 0.0, 0.0), matrix.getDistance(0, 1),
+                    1e-9);
+            assertEquals(0.0, matrix.getTransportTime(0, 1));
+        }
+    }
+
+    public void testReportsLineOfBadRecord() throws Exception {
+        Files.write(file, "node,1,0,0\nedge,1,2,1.0\n".getBytes(StandardCharsets.UTF_8));
+        try {
+            RoadGraph.load(file);
+            fail("expected an exception for an unknown node");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().endsWith(":2: node 2 is not defined"));
+        }
+    }
+
+    private static Location stop(String id, int index, double x, double y) {
+        return Location.Builder.newInstance().setId(id).setIndex(index).setCoordinate(Coordinate.newInstance(x, y))
+                .build();
+    }
+}
@@ -0,0 +1,109 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.algorithm.VehicleRoutingAlgorithm;
+import com.graphhopper.jsprit.core.algorithm.box.Jsprit;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
+import com.graphhopper.jsprit.core.problem.job.Delivery;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Pickup;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import com.graphhopper.jsprit.core.util.Solutions;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Unit tests for {@link RoutePolisher}.
+ */
+public class RoutePolisherTest extends TestCase {
+
+    public void testPolishesRoutesWithoutChangingTheirJobs() {
+        List<Location> locations = multiple100locations.createLocations(60, 3);
+        DenseTransportCostsMatrix costs = DenseTransportCostsMatrix.Builder.newInstance(locations).build();
+        VehicleRoutingProblem problem = multiple100locations.createProblem(locations, costs);
+        VehicleRoutingAlgorithm algorithm = Jsprit.Builder.newInstance(problem).setRandom(new Random(1))
+                .buildAlgorithm();
+        algorithm.setMaxIterations(1);
+        VehicleRoutingProblemSolution rough = Solutions.bestOf(algorithm.searchSolutions());
+
+        VehicleRoutingProblemSolution polished = RoutePolisher.Builder.newInstance(problem).build().polish(rough);
+
+        assertEquals(rough.getRoutes().size(), polished.getRoutes().size());
+        List<VehicleRoute> before = new ArrayList<>(rough.getRoutes());
+        List<VehicleRoute> after = new ArrayList<>(polished.getRoutes());
+        double saved = 0.0;
+        for (int r = 0; r < before.size(); r++) {
+            assertSame(before.get(r).getVehicle(), after.get(r).getVehicle());
+            assertEquals(jobs(before.get(r)), jobs(after.get(r)));
+            saved += cost(costs, before.get(r)) - cost(costs, after.get(r));
+        }
+        assertTrue("a single iteration leaves crossings to remove", saved > 0.0);
+        assertEquals(rough.getCost() - saved, polished.getCost(), 1e-6);
+    }
+
+    public void testKeepsOrderThatCapacityRequires() {
+        List<Location> locations = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            locations.add(Location.Builder.newInstance().setId("l" + i).setIndex(i).build());
+        }
+        // Delivering first costs 15, picking up first costs 3.
+        DenseTransportCostsMatrix costs = DenseTransportCostsMatrix.Builder.newInstance(3, false)
+                .addTransportDistance(0, 1, 5).addTransportDistance(1, 2, 5).addTransportDistance(2, 0, 5)
+                .addTransportDistance(0, 2, 1).addTransportDistance(2, 1, 1).addTransportDistance(1, 0, 1)
+                .build();
+        assertEquals(0.0, polishSaving(locations, costs, 2), 1e-9);
+        assertEquals(12.0, polishSaving(locations, costs, 4), 1e-9);
+    }
+
+    private static double polishSaving(List<Location> locations, DenseTransportCostsMatrix costs, int capacity) {
+        Delivery delivery = Delivery.Builder.newInstance("delivery").setLocation(locations.get(1))
+                .addSizeDimension(0, 2).build();
+        Pickup pickup = Pickup.Builder.newInstance("pickup").setLocation(locations.get(2))
+                .addSizeDimension(0, 2).build();
+        VehicleImpl vehicle = VehicleImpl.Builder.newInstance("truck").setStartLocation(locations.get(0))
+                .setType(VehicleTypeImpl.Builder.newInstance("type").addCapacityDimension(0, capacity).build())
+                .build();
+        VehicleRoutingProblem problem = VehicleRoutingProblem.Builder.newInstance()
+                .setFleetSize(VehicleRoutingProblem.FleetSize.FINITE)
+                .addVehicle(vehicle).addJob(delivery).addJob(pickup).setRoutingCost(costs).build();
+        VehicleRoute route = VehicleRoute.Builder.newInstance(vehicle)
+                .setJobActivityFactory(problem.getJobActivityFactory())
+                .addDelivery(delivery).addPickup(pickup).build();
+        VehicleRoutingProblemSolution solution = new VehicleRoutingProblemSolution(
+                Collections.singletonList(route), Collections.<Job>emptyList(), 15.0);
+        VehicleRoutingProblemSolution polished = RoutePolisher.Builder.newInstance(problem).build().polish(solution);
+        VehicleRoute polishedRoute = polished.getRoutes().iterator().next();
+        assertEquals(15.0 - polished.getCost(), 15.0 - cost(costs, polishedRoute), 1e-9);
+        return 15.0 - polished.getCost();
+    }
+
+    private static Set<String> jobs(VehicleRoute route) {
+        Set<String> ids = new HashSet<>();
+        for (Job job : route.getTourActivities().getJobs()) {
+            ids.add(job.getId());
+        }
+        return ids;
+    }
+
+    private static double cost(VehicleRoutingTransportCosts costs, VehicleRoute route) {
+        double cost = 0.0;
+        TourActivity previous = route.getStart();
+        for (TourActivity activity : route.getActivities()) {
+            cost += costs.getTransportCost(previous.getLocation(), activity.getLocation(), 0.0, null, route.getVehicle());
+            previous = activity;
+        }
+        return cost + costs.getTransportCost(previous.getLocation(), route.getEnd().getLocation(), 0.0, null,
+                route.getVehicle());
+    }
+}
@@ -0,0 +1,50 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Unit tests for {@link ScenarioSweep}.
+ */
+public class ScenarioSweepTest extends TestCase {
+
+    public void testSolvesGridAndWritesTable() throws Exception {
+        List<Location> locations = multiple100locations.createLocations(12, 42);
+        DenseTransportCostsMatrix costs = DenseTransportCostsMatrix.Builder.newInstance(locations).build();
+        ScenarioSweep sweep = ScenarioSweep.Builder.newInstance(locations, costs)
+                .addVehicleCounts(1, 3)
+                .addCapacities(10, 30)
+                .setNoThreads(2)
+                .setMaxIterations(20)
+                .build();
+        assertEquals(4, sweep.getScenarios().size());
+
+        List<ScenarioSweep.Result> results = sweep.solve();
+        assertEquals(4, results.size());
+        // One vehicle with capacity 10 serves 5 services of demand 2, the other 7 stay unassigned.
+        assertEquals(1, results.get(0).getScenario().getNoVehicles());
+        assertEquals(10, results.get(0).getScenario().getCapacity());
+        assertEquals(7, results.get(0).getUnassignedJobs());
+        assertEquals(1, results.get(0).getVehiclesUsed());
+        // Three vehicles with capacity 30 serve everything.
+        assertEquals(0, results.get(3).getUnassignedJobs());
+        assertTrue(results.get(3).getVehiclesUsed() <= 3);
+
+        Path file = File.createTempFile("sweep", ".csv").toPath();
+        try {
+            ScenarioSweep.writeCsv(results, file);
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            assertEquals(5, lines.size());
+            assertEquals("vehicles,capacity,demand,cost,vehicles_used,unassigned_jobs,millis", lines.get(0));
+            assertTrue(lines.get(1), lines.get(1).startsWith("1,10,2,"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Unit tests for {@link SolutionCache}.
+ */
+public class SolutionCacheTest extends TestCase {
+
+    private Path directory;
+
+    @Override
+    protected void setUp() throws Exception {
+        directory = Files.createTempDirectory("solutions");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        delete(directory.toFile());
+    }
+
+    private static void delete(File file) throws Exception {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                delete(child);
+            }
+        }
+        Files.delete(file.toPath());
+    }
+
+    public void testExactNearAndDiskHits() {
+        List<Location> locations = multiple100locations.createLocations(24, 42);
+        DenseTransportCostsMatrix costs = DenseTransportCostsMatrix.Builder.newInstance(locations).build();
+        SolutionCache cache = SolutionCache.Builder.newInstance().setDirectory(directory).setNearHitIterations(10)
+                .build();
+
+        VehicleRoutingProblem problem = multiple100locations.createProblem(locations.subList(0, 21), costs);
+        VehicleRoutingProblemSolution solved = cache.solve(problem, 30);
+        assertEquals(1, cache.getMisses());
+
+        // The same stops built again are an exact hit with the same routes on the new problem's objects.
+        VehicleRoutingProblem again = multiple100locations.createProblem(locations.subList(0, 21), costs);
+        assertTrue(Arrays.equals(SolutionCache.fingerprint(problem), SolutionCache.fingerprint(again)));
+        SolutionCache.Lookup exact = cache.lookup(again);
+        assertEquals(SolutionCache.HitType.EXACT, exact.getType());
+        assertEquals(solved.getCost(), exact.getSolution().getCost());
+        assertEquals(routes(solved), routes(exact.getSolution()));
+        for (VehicleRoute route : exact.getSolution().getRoutes()) {
+            for (Job job : route.getTourActivities().getJobs()) {
+                assertSame(again.getJobs().get(job.getId()), job);
+            }
+        }
+
+        // Two more stops are a near hit; every job is routed or explicitly unassigned.
+        VehicleRoutingProblem changed = multiple100locations.createProblem(locations.subList(0, 23), costs);
+        SolutionCache.Lookup near = cache.lookup(changed);
+        assertEquals(SolutionCache.HitType.NEAR, near.getType());
+        assertEquals(2, near.getDelta());
+        assertEquals(22, noJobs(near.getSolution()) + near.getSolution().getUnassignedJobs().size());
+
+        // A new cache over the same directory finds the entry on disk.
+        SolutionCache restarted = SolutionCache.Builder.newInstance().setDirectory(directory).build();
+        assertEquals(SolutionCache.HitType.EXACT, restarted.lookup(again).getType());
+        assertEquals(SolutionCache.HitType.NEAR, restarted.lookup(changed).getType());
+        assertEquals(SolutionCache.HitType.MISS, SolutionCache.Builder.newInstance().build().lookup(again).getType());
+    }
+
+    public void testIndexesEntriesByFleetAndDeletesUnreadableOnes() throws Exception {
+        List<Location> locations = multiple100locations.createLocations(24, 42);
+        DenseTransportCostsMatrix costs = DenseTransportCostsMatrix.Builder.newInstance(locations).build();
+        SolutionCache cache = SolutionCache.Builder.newInstance().setDirectory(directory).setNearHitIterations(10)
+                .build();
+        VehicleRoutingProblem problem = multiple100locations.createProblem(locations.subList(0, 21), costs);
+        cache.solve(problem, 30);
+        List<Path> fleets = children(directory);
+        assertEquals(1, fleets.size());
+        Path fleet = fleets.get(0);
+        Path entry = fleet.resolve(LocationFingerprint.toHex(SolutionCache.fingerprint(problem)) + ".solution");
+        assertTrue(Files.isRegularFile(entry));
+
+        // Another depot is another fleet, with its own subdirectory.
+        cache.solve(multiple100locations.createProblem(locations.subList(1, 22), costs), 30);
+        fleets = children(directory);
+        assertEquals(2, fleets.size());
+        Path otherFleet = fleets.get(0).equals(fleet) ? fleets.get(1) : fleets.get(0);
+
+        // Near hits only read this fleet's files; the unreadable one among them is deleted, not thrown on.
+        Path foreign = otherFleet.resolve("00.solution");
+        Path corrupt = fleet.resolve("ff.solution");
+        Files.write(foreign, new byte[]{1, 2, 3});
+        Files.write(corrupt, new byte[]{1, 2, 3});
+        VehicleRoutingProblem changed = multiple100locations.createProblem(locations.subList(0, 23), costs);
+        SolutionCache restarted = SolutionCache.Builder.newInstance().setDirectory(directory).build();
+        assertEquals(SolutionCache.HitType.NEAR, restarted.lookup(changed).getType());
+        assertFalse(Files.exists(corrupt));
+        assertTrue(Files.exists(foreign));
+
+        // A truncated entry is a miss.
+        byte[] bytes = Files.readAllBytes(entry);
+        Files.write(entry, Arrays.copyOf(bytes, bytes.length / 2));
+        VehicleRoutingProblem again = multiple100locations.createProblem(locations.subList(0, 21), costs);
+        SolutionCache fresh = SolutionCache.Builder.newInstance().setDirectory(directory).build();
+        assertEquals(SolutionCache.HitType.MISS, fresh.lookup(again).getType());
+        assertFalse(Files.exists(entry));
+    }
+
+    public void testRemovesTemporaryFileWhenWriteFails() throws Exception {
+        List<Location> locations = multiple100locations.createLocations(10, 42);
+        DenseTransportCostsMatrix costs = DenseTransportCostsMatrix.Builder.newInstance(locations).build();
+        SolutionCache cache = SolutionCache.Builder.newInstance().setDirectory(directory).build();
+        VehicleRoutingProblem problem = multiple100locations.createProblem(locations, costs);
+        VehicleRoutingProblemSolution solution = cache.solve(problem, 5);
+        Path fleet = children(directory).get(0);
+        Path entry = fleet.resolve(LocationFingerprint.toHex(SolutionCache.fingerprint(problem)) + ".solution");
+        // A non-empty directory where the entry should go, so the move into place fails.
+        Files.delete(entry);
+        Files.createFile(Files.createDirectory(entry).resolve("blocker"));
+        try {
+            cache.put(problem, solution);
+            fail("expected the write to fail");
+        } catch (UncheckedIOException e) {
+            // expected
+        }
+        assertEquals(Arrays.asList(entry), children(fleet));
+    }
+
+    public void testFingerprintCoversEveryCostCell() {
+        // More locations than the cache used to hash in full.
+        List<Location> locations = multiple100locations.createLocations(2100, 42);
+        final DenseTransportCostsMatrix costs = DenseTransportCostsMatrix.Builder.newInstance(locations).build();
+        IndexedTransportCosts changed = new IndexedTransportCosts() {
+            @Override
+            public int getNoLocations() {
+                return costs.getNoLocations();
+            }
+
+            @Override
+            public double getDistance(int fromIndex, int toIndex) {
+                double distance = costs.getDistance(fromIndex, toIndex);
+                return fromIndex == 1 && toIndex == 2 ? distance + 1 : distance;
+            }
+
+            @Override
+            public double getTransportTime(int fromIndex, int toIndex) {
+                return costs.getTransportTime(fromIndex, toIndex);
+            }
+        };
+        byte[] original = SolutionCache.fingerprint(multiple100locations.createProblem(locations, costs));
+        assertTrue(Arrays.equals(original,
+                SolutionCache.fingerprint(multiple100locations.createProblem(locations, costs))));
+        assertFalse(Arrays.equals(original,
+                SolutionCache.fingerprint(multiple100locations.createProblem(locations, changed))));
+    }
+
+    private static List<Path> children(Path directory) {
+        List<Path> children = new ArrayList<>();
+        for (File file : directory.toFile().listFiles()) {
+            children.add(file.toPath());
+        }
+        return children;
+    }
+
+    private static List<List<String>> routes(VehicleRoutingProblemSolution solution) {
+        List<List<String>> routes = new ArrayList<>();
+        for (VehicleRoute route : solution.getRoutes()) {
+            List<String> ids = new ArrayList<>();
+            for (Job job : route.getTourActivities().getJobs()) {
+                ids.add(job.getId());
+            }
+            routes.add(ids);
+        }
+        return routes;
+    }
+
+    private static int noJobs(VehicleRoutingProblemSolution solution) {
+        int noJobs = 0;
+        for (VehicleRoute route : solution.getRoutes()) {
+            noJobs += route.getTourActivities().getJobs().size();
+        }
+        return noJobs;
+    }
+}
@@ -0,0 +1,228 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.algorithm.VehicleRoutingAlgorithm;
+import com.graphhopper.jsprit.core.algorithm.box.Jsprit;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleType;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import com.graphhopper.jsprit.core.util.Solutions;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link SolutionCheckpoint}.
+ */
+public class SolutionCheckpointTest extends TestCase {
+
+    public void testWritesAndResumesBestSolution() throws Exception {
+        List<Location> locations = multiple100locations.createLocations(30, 42);
+        DenseTransportCostsMatrix costs = DenseTransportCostsMatrix.Builder.newInstance(locations).build();
+        VehicleRoutingProblem problem = multiple100locations.createProblem(locations, costs);
+        Path file = File.createTempFile("checkpoint", ".bin").toPath();
+        Files.delete(file);
+        try {
+            assertNull(SolutionCheckpoint.read(problem, file));
+
+            VehicleRoutingAlgorithm algorithm = Jsprit.Builder.newInstance(problem).setRandom(new Random(42))
+                    .buildAlgorithm();
+            algorithm.setMaxIterations(50);
+            VehicleRoutingProblemSolution best;
+            SolutionCheckpoint checkpoint = SolutionCheckpoint.Builder.newInstance(problem, file)
+                    .setInterval(0, TimeUnit.MILLISECONDS)
+                    .build()
+                    .attachTo(algorithm);
+            try {
+                best = Solutions.bestOf(algorithm.searchSolutions());
+            } finally {
+                checkpoint.close();
+            }
+            assertTrue(checkpoint.getNoWritten() > 0);
+            // Header plus the ids of the vehicles and jobs.
+            assertTrue(Files.size(file) < 64 + 16 * 30);
+
+            VehicleRoutingProblemSolution saved = SolutionCheckpoint.read(problem, file);
+            assertEquals(best.getCost(), saved.getCost());
+            assertEquals(routes(best), routes(saved));
+            assertTrue(saved.getUnassignedJobs().isEmpty());
+
+            VehicleRoutingAlgorithm resumed = Jsprit.Builder.newInstance(problem).setRandom(new Random(7))
+                    .buildAlgorithm();
+            resumed.setMaxIterations(5);
+            resumed.addInitialSolution(saved);
+            assertTrue(Solutions.bestOf(resumed.searchSolutions()).getCost() <= best.getCost() + 1e-9);
+
+            VehicleRoutingProblem other = multiple100locations.createProblem(locations.subList(0, 20), costs);
+            try {
+                SolutionCheckpoint.read(other, file);
+                fail("expected an exception for a checkpoint of another problem");
+            } catch (IllegalStateException expected) {
+                // expected
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    public void testResumesProblemWithVehiclesAddedInAnotherOrder() throws Exception {
+        List<Location> locations = multiple100locations.createLocations(20, 42);
+        DenseTransportCostsMatrix costs = DenseTransportCostsMatrix.Builder.newInstance(locations).build();
+        VehicleRoutingProblem problem = mixedFleetProblem(locations, costs, false);
+        VehicleRoutingProblem reversed = mixedFleetProblem(locations, costs, true);
+        assertTrue(Arrays.equals(SolutionCache.fingerprint(problem), SolutionCache.fingerprint(reversed)));
+        Path file = File.createTempFile("checkpoint", ".bin").toPath();
+        try {
+            VehicleRoutingAlgorithm algorithm = Jsprit.Builder.newInstance(problem).setRandom(new Random(42))
+                    .buildAlgorithm();
+            algorithm.setMaxIterations(20);
+            VehicleRoutingProblemSolution best = Solutions.bestOf(algorithm.searchSolutions());
+            try (SolutionCheckpoint checkpoint = SolutionCheckpoint.Builder.newInstance(problem, file).build()) {
+                checkpoint.checkpoint(best, 20);
+            }
+
+            VehicleRoutingProblemSolution saved = SolutionCheckpoint.read(reversed, file);
+            assertEquals(routes(best), routes(saved));
+            for (VehicleRoute route : saved.getRoutes()) {
+                assertTrue(reversed.getVehicles().contains(route.getVehicle()));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    public void testDefersImprovementsWithinInterval() throws Exception {
+        List<Location> locations = multiple100locations.createLocations(10, 42);
+        DenseTransportCostsMatrix costs = DenseTransportCostsMatrix.Builder.newInstance(locations).build();
+        VehicleRoutingProblem problem = multiple100locations.createProblem(locations, costs);
+        VehicleRoutingAlgorithm algorithm = Jsprit.Builder.newInstance(problem).setRandom(new Random(42))
+                .buildAlgorithm();
+        algorithm.setMaxIterations(5);
+        VehicleRoutingProblemSolution best = Solutions.bestOf(algorithm.searchSolutions());
+        Path file = File.createTempFile("checkpoint", ".bin").toPath();
+        try (SolutionCheckpoint checkpoint = SolutionCheckpoint.Builder.newInstance(problem, file)
+                .setInterval(300, TimeUnit.MILLISECONDS).build()) {
+            checkpoint.informIterationEnds(1, problem, Collections.singletonList(withCost(best, 100)));
+            awaitWritten(checkpoint, 1);
+            // Better, but within the interval: deferred.
+            checkpoint.informIterationEnds(2, problem, Collections.singletonList(withCost(best, 90)));
+            Thread.sleep(100);
+            assertEquals(1, checkpoint.getNoWritten());
+            assertEquals(100.0, SolutionCheckpoint.read(problem, file).getCost());
+            // The search has moved on to a worse solution by the time the interval has passed.
+            Thread.sleep(300);
+            checkpoint.informIterationEnds(3, problem, Collections.singletonList(withCost(best, 95)));
+            awaitWritten(checkpoint, 2);
+            assertEquals(90.0, SolutionCheckpoint.read(problem, file).getCost());
+
+            // Deferred at close: written by close.
+            checkpoint.informIterationEnds(4, problem, Collections.singletonList(withCost(best, 80)));
+            checkpoint.close();
+            assertEquals(3, checkpoint.getNoWritten());
+            assertEquals(80.0, SolutionCheckpoint.read(problem, file).getCost());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    public void testRemovesTemporaryFileWhenWriteFails() throws Exception {
+        List<Location> locations = multiple100locations.createLocations(10, 42);
+        DenseTransportCostsMatrix costs = DenseTransportCostsMatrix.Builder.newInstance(locations).build();
+        VehicleRoutingProblem problem = multiple100locations.createProblem(locations, costs);
+        VehicleRoutingAlgorithm algorithm = Jsprit.Builder.newInstance(problem).setRandom(new Random(42))
+                .buildAlgorithm();
+        algorithm.setMaxIterations(5);
+        VehicleRoutingProblemSolution best = Solutions.bestOf(algorithm.searchSolutions());
+        Path directory = Files.createTempDirectory("checkpoints");
+        // A non-empty directory where the checkpoint should go, so the move into place fails.
+        Path file = directory.resolve("checkpoint.bin");
+        Path blocker = Files.createFile(Files.createDirectory(file).resolve("blocker"));
+        try {
+            SolutionCheckpoint checkpoint = SolutionCheckpoint.Builder.newInstance(problem, file).build();
+            checkpoint.checkpoint(best, 5);
+            try {
+                checkpoint.close();
+                fail("expected the write to fail");
+            } catch (UncheckedIOException e) {
+                // expected
+            }
+            assertEquals(1, directory.toFile().list().length);
+        } finally {
+            Files.delete(blocker);
+            Files.delete(file);
+            for (File left : directory.toFile().listFiles()) {
+                Files.delete(left.toPath());
+            }
+            Files.delete(directory);
+        }
+    }
+
+    private static VehicleRoutingProblemSolution withCost(VehicleRoutingProblemSolution solution, double cost) {
+        return new VehicleRoutingProblemSolution(solution.getRoutes(), solution.getUnassignedJobs(), cost);
+    }
+
+    private static void awaitWritten(SolutionCheckpoint checkpoint, int noWritten) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (checkpoint.getNoWritten() < noWritten && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(noWritten, checkpoint.getNoWritten());
+    }
+
+    // Three trucks of different capacities, added in order or in reverse, and the jobs likewise.
+    private static VehicleRoutingProblem mixedFleetProblem(List<Location> locations, DenseTransportCostsMatrix costs,
+                                                           boolean reverse) {
+        List<Vehicle> vehicles = new ArrayList<>();
+        for (int v = 1; v <= 3; v++) {
+            VehicleType type = VehicleTypeImpl.Builder.newInstance("truck" + v).addCapacityDimension(0, 4 * v)
+                    .build();
+            vehicles.add(VehicleImpl.Builder.newInstance("v" + v).setStartLocation(locations.get(0)).setType(type)
+                    .build());
+        }
+        List<Service> services = new ArrayList<>();
+        for (Location location : locations.subList(1, locations.size())) {
+            services.add(Service.Builder.newInstance("service_" + location.getId()).setLocation(location)
+                    .addSizeDimension(0, 1).build());
+        }
+        if (reverse) {
+            Collections.reverse(vehicles);
+            Collections.reverse(services);
+        }
+        VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance()
+                .setFleetSize(VehicleRoutingProblem.FleetSize.FINITE).setRoutingCost(costs);
+        for (Vehicle vehicle : vehicles) {
+            builder.addVehicle(vehicle);
+        }
+        for (Service service : services) {
+            builder.addJob(service);
+        }
+        return builder.build();
+    }
+
+    private static List<String> routes(VehicleRoutingProblemSolution solution) {
+        List<String> routes = new ArrayList<>();
+        for (VehicleRoute route : solution.getRoutes()) {
+            StringBuilder ids = new StringBuilder(route.getVehicle().getId());
+            for (TourActivity activity : route.getActivities()) {
+                ids.append(',').append(ProblemCopies.jobOf(activity).getId());
+            }
+            routes.add(ids.toString());
+        }
+        return routes;
+    }
+}
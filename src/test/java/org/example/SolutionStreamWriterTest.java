@@ -0,0 +1,108 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.algorithm.VehicleRoutingAlgorithm;
+import com.graphhopper.jsprit.core.algorithm.box.Jsprit;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.util.Solutions;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Unit tests for {@link SolutionStreamWriter}.
+ */
+public class SolutionStreamWriterTest extends TestCase {
+
+    private static VehicleRoutingProblemSolution solve() {
+        List<Location> locations = multiple100locations.createLocations(12, 42);
+        VehicleRoutingProblem problem = multiple100locations.createProblem(locations,
+                DenseTransportCostsMatrix.Builder.newInstance(locations).build());
+        VehicleRoutingAlgorithm algorithm = Jsprit.Builder.newInstance(problem).setRandom(new Random(42)).buildAlgorithm();
+        algorithm.setMaxIterations(10);
+        return Solutions.bestOf(algorithm.searchSolutions());
+    }
+
+    public void testWritesOneJsonLinePerSolutionAndRoute() {
+        VehicleRoutingProblemSolution solution = solve();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SolutionStreamWriter writer = new SolutionStreamWriter(out, SolutionStreamWriter.Format.JSON_LINES);
+        writer.write(solution);
+        writer.close();
+
+        String[] lines = new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertEquals(1 + solution.getRoutes().size(), lines.length);
+        assertTrue(lines[0], lines[0].startsWith("{\"type\":\"solution\",\"index\":0,\"cost\":" + solution.getCost()));
+        VehicleRoute route = solution.getRoutes().iterator().next();
+        assertTrue(lines[1], lines[1].startsWith("{\"type\":\"route\",\"solution\":0,\"vehicle\":\""
+                + route.getVehicle().getId() + "\",\"start\":\"depot\""));
+        assertTrue(lines[1], lines[1].contains("\"job\":\"service_" + route.getActivities().get(0).getLocation().getId() + "\""));
+    }
+
+    public void testBinaryFormatRoundTrips() throws IOException {
+        VehicleRoutingProblemSolution solution = solve();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SolutionStreamWriter writer = new SolutionStreamWriter(out, SolutionStreamWriter.Format.BINARY);
+        writer.write(solution);
+        writer.write(solution);
+        writer.close();
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(SolutionStreamWriter.MAGIC, in.readInt());
+        assertEquals(SolutionStreamWriter.VERSION, in.readByte());
+        List<String> strings = new ArrayList<>();
+        for (int k = 0; k < 2; k++) {
+            assertEquals(solution.getCost(), in.readDouble(), 0.0);
+            assertEquals(solution.getRoutes().size(), readVarint(in));
+            assertEquals(0, readVarint(in));
+            for (VehicleRoute route : solution.getRoutes()) {
+                assertEquals(route.getVehicle().getId(), readString(in, strings));
+                assertEquals("depot", readString(in, strings));
+                assertEquals(route.getStart().getEndTime(), in.readDouble(), 0.0);
+                assertEquals("depot", readString(in, strings));
+                assertEquals(route.getEnd().getArrTime(), in.readDouble(), 0.0);
+                assertEquals(route.getActivities().size(), readVarint(in));
+                for (int i = 0; i < route.getActivities().size(); i++) {
+                    assertEquals("service", readString(in, strings));
+                    assertEquals("service_" + route.getActivities().get(i).getLocation().getId(), readString(in, strings));
+                    assertEquals(route.getActivities().get(i).getLocation().getId(), readString(in, strings));
+                    assertEquals(route.getActivities().get(i).getArrTime(), in.readDouble(), 0.0);
+                    assertEquals(route.getActivities().get(i).getEndTime(), in.readDouble(), 0.0);
+                }
+            }
+        }
+        assertEquals(-1, in.read());
+    }
+
+    private static long readVarint(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    private static String readString(DataInputStream in, List<String> strings) throws IOException {
+        long k = readVarint(in);
+        if ((k & 1) == 0) {
+            return strings.get((int) (k >> 1));
+        }
+        byte[] bytes = new byte[(int) (k >> 1)];
+        in.readFully(bytes);
+        String s = new String(bytes, StandardCharsets.UTF_8);
+        strings.add(s);
+        return s;
+    }
+}
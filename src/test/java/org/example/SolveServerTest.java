@@ -0,0 +1,142 @@
+package org.example;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Unit tests for {@link SolveServer}, driven over HTTP by a local client.
+ */
+public class SolveServerTest extends TestCase {
+
+    private SolveServer server;
+
+    @Override
+    protected void setUp() {
+        server = SolveServer.Builder.newInstance().setPort(0).setNoWorkers(2).setMaxIterations(50).build().start();
+    }
+
+    @Override
+    protected void tearDown() {
+        server.close();
+    }
+
+    public void testSolvesAndReusesMatrix() throws Exception {
+        StringBuilder csv = new StringBuilder("depot,depot,-74.0060,40.7128\ntype,truck,20\nvehicle,v1,truck,depot\n");
+        Random rand = new Random(42);
+        for (int i = 0; i < 15; i++) {
+            csv.append("service,s").append(i).append(',').append(-74 + (rand.nextDouble() - 0.5) * 0.1).append(',')
+                    .append(40.7 + (rand.nextDouble() - 0.5) * 0.1).append(",2\n");
+        }
+
+        for (int run = 0; run < 2; run++) {
+            HttpURLConnection connection = post("/solve?iterations=20", csv.toString());
+            assertEquals(200, connection.getResponseCode());
+            String body = read(connection.getInputStream());
+            assertTrue(body, body.startsWith("{\"type\":\"solution\",\"index\":0,"));
+            assertTrue(body, body.contains("\"unassigned\":[]"));
+            assertTrue(body, body.contains("\"job\":\"s14\""));
+        }
+
+        SolveServer.Snapshot snapshot = server.getSnapshot();
+        assertEquals(2, snapshot.getCompleted());
+        assertEquals(1, snapshot.getMatrixCacheMisses());
+        assertEquals(1, snapshot.getMatrixCacheHits());
+        assertTrue(snapshot.getLatencyMillis(1) >= snapshot.getLatencyMillis(0.5));
+        HttpURLConnection metrics = (HttpURLConnection) url("/metrics").openConnection();
+        assertEquals(200, metrics.getResponseCode());
+        assertTrue(read(metrics.getInputStream()).contains("\"completed\":2"));
+    }
+
+    public void testRejectsMalformedProblem() throws Exception {
+        HttpURLConnection connection = post("/solve", "depot,depot,-74.0060\n");
+        assertEquals(400, connection.getResponseCode());
+        assertTrue(read(connection.getErrorStream()).startsWith("request:1:"));
+        assertEquals(0, server.getSnapshot().getCompleted());
+    }
+
+    public void testRejectsNonPositiveIterationsAndNegativeTimeout() throws Exception {
+        String csv = "depot,depot,-74.0060,40.7128\ntype,truck,20\nvehicle,v1,truck,depot\nservice,s1,-74,40.7,2\n";
+        for (String query : new String[]{"iterations=-1", "iterations=0", "timeout=-5"}) {
+            HttpURLConnection connection = post("/solve?" + query, csv);
+            assertEquals(query, 400, connection.getResponseCode());
+            assertTrue(read(connection.getErrorStream()).startsWith("parameter "));
+        }
+        assertEquals(0, server.getSnapshot().getCompleted());
+    }
+
+    public void testRejectsOversizedRequest() throws Exception {
+        server.close();
+        server = SolveServer.Builder.newInstance().setPort(0).setNoWorkers(1).setMaxRequestBytes(1024).build()
+                .start();
+        StringBuilder csv = new StringBuilder("depot,depot,-74.0060,40.7128\ntype,truck,20\nvehicle,v1,truck,depot\n");
+        for (int i = 0; csv.length() <= 1024; i++) {
+            csv.append("service,s").append(i).append(",-74,40.7,2\n");
+        }
+        HttpURLConnection connection = post("/solve", csv.toString());
+        assertEquals(413, connection.getResponseCode());
+        assertEquals(0, server.getSnapshot().getCompleted());
+    }
+
+    public void testRejectsTruncatedBinaryProblem() throws Exception {
+        Path csv = File.createTempFile("problem", ".csv").toPath();
+        Path bin = File.createTempFile("problem", ".bin").toPath();
+        byte[] bytes;
+        try {
+            Files.write(csv, ("depot,depot,-74.0060,40.7128\ntype,truck,20\nvehicle,v1,truck,depot\n"
+                    + "service,s1,-74,40.7,2\n").getBytes(StandardCharsets.UTF_8));
+            ProblemLoader.loadCsv(csv).writeBinary(bin);
+            bytes = Files.readAllBytes(bin);
+        } finally {
+            Files.delete(csv);
+            Files.delete(bin);
+        }
+
+        HttpURLConnection connection = post("/solve", Arrays.copyOf(bytes, bytes.length - 10),
+                "application/octet-stream");
+        assertEquals(400, connection.getResponseCode());
+        assertEquals("request is truncated or corrupt\n", read(connection.getErrorStream()));
+        assertEquals(0, server.getSnapshot().getCompleted());
+    }
+
+    private URL url(String path) throws IOException {
+        return new URL("http://localhost:" + server.getPort() + path);
+    }
+
+    private HttpURLConnection post(String path, String body) throws IOException {
+        return post(path, body.getBytes(StandardCharsets.UTF_8), "text/csv");
+    }
+
+    private HttpURLConnection post(String path, byte[] body, String contentType) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url(path).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", contentType);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body);
+        }
+        return connection;
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            out.write(buffer, 0, n);
+        }
+        in.close();
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
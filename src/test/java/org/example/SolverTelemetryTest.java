@@ -0,0 +1,110 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.algorithm.VehicleRoutingAlgorithm;
+import com.graphhopper.jsprit.core.algorithm.box.Jsprit;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Unit tests for {@link SolverTelemetry}.
+ */
+public class SolverTelemetryTest extends TestCase {
+
+    public void testWritesRectangularCsv() throws Exception {
+        Path file = File.createTempFile("telemetry", ".csv").toPath();
+        try {
+            SolverTelemetry telemetry = new SolverTelemetry(file, SolverTelemetry.Format.of(file));
+            telemetry.recordPhase("load, \"parse\"", 5);
+            solve(telemetry, 10);
+            telemetry.close();
+
+            SolverTelemetry.Snapshot snapshot = telemetry.getSnapshot();
+            assertEquals(10, snapshot.getIterations().size());
+            assertTrue(snapshot.isFinished());
+            for (int i = 1; i < snapshot.getIterations().size(); i++) {
+                assertTrue(snapshot.getIterations().get(i).getBestCost()
+                        <= snapshot.getIterations().get(i - 1).getBestCost());
+            }
+            assertEquals(Long.valueOf(5), snapshot.getPhaseNanos().get("load, \"parse\""));
+
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            assertEquals("record,name,iteration,cost,accepted,bestCost,nanos,allocatedBytes", lines.get(0));
+            assertEquals(1 + 1 + 10 + 1, lines.size());
+            for (String line : lines) {
+                assertEquals(line, 8, fields(line).size());
+            }
+            assertEquals("phase,\"load, \"\"parse\"\"\",,,,,5,", lines.get(1));
+            List<String> first = fields(lines.get(2));
+            assertEquals("iteration", first.get(0));
+            assertEquals("1", first.get(2));
+            assertTrue(lines.get(lines.size() - 1).startsWith("phase,solve,,,,,"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    public void testEscapesJsonStrings() throws Exception {
+        Path file = File.createTempFile("telemetry", ".jsonl").toPath();
+        try {
+            SolverTelemetry telemetry = new SolverTelemetry(file, SolverTelemetry.Format.of(file));
+            telemetry.recordPhase("a \"quoted\\\" name\n", 7);
+            solve(telemetry, 2);
+            telemetry.close();
+
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            assertEquals("{\"phase\":\"a \\\"quoted\\\\\\\" name\\u000a\",\"nanos\":7}", lines.get(0));
+            assertTrue(lines.get(1), lines.get(1).matches("\\{\"iteration\":1,\"strategy\":\"[^\"]+\",.*"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void solve(SolverTelemetry telemetry, int iterations) {
+        List<Location> locations = multiple100locations.createLocations(10, 42);
+        VehicleRoutingProblem problem = multiple100locations.createProblem(locations,
+                DenseTransportCostsMatrix.Builder.newInstance(locations).build());
+        VehicleRoutingAlgorithm algorithm = Jsprit.Builder.newInstance(problem).setRandom(new Random(42))
+                .buildAlgorithm();
+        algorithm.setMaxIterations(iterations);
+        telemetry.attachTo(algorithm);
+        algorithm.searchSolutions();
+    }
+
+    // Splits an RFC 4180 line into its unquoted fields.
+    private static List<String> fields(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,70 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Unit tests for {@link SpatialIndex} and {@link SparseTransportCosts}.
+ */
+public class SparseTransportCostsTest extends TestCase {
+
+    public void testNeighboursMatchBruteForce() {
+        List<Location> locations = multiple100locations.createLocations(300, 7);
+        final GeodesicKernel kernel = GeodesicKernel.of(locations, GeodesicKernel.Mode.HAVERSINE);
+        int k = 10;
+        int[] neighbours = SpatialIndex.of(kernel).nearest(k, ForkJoinPool.commonPool());
+
+        for (final int i : new int[]{0, 1, 57, 150, 300}) {
+            Integer[] byDistance = new Integer[kernel.size()];
+            for (int j = 0; j < byDistance.length; j++) {
+                byDistance[j] = j;
+            }
+            Arrays.sort(byDistance, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer a, Integer b) {
+                    return Double.compare(kernel.distance(i, a), kernel.distance(i, b));
+                }
+            });
+            for (int rank = 0; rank < k; rank++) {
+                // byDistance[0] is i itself.
+                assertEquals(kernel.distance(i, byDistance[rank + 1]), kernel.distance(i, neighbours[i * k + rank]),
+                        1e-9);
+            }
+        }
+        assertEquals(42, SpatialIndex.of(kernel).nearest(kernel.getLatitude(42), kernel.getLongitude(42)));
+    }
+
+    public void testStoresNeighboursAndFallsBack() {
+        List<Location> locations = multiple100locations.createLocations(200, 42);
+        GeodesicKernel kernel = GeodesicKernel.of(locations, GeodesicKernel.Mode.HAVERSINE);
+        SparseTransportCosts costs = SparseTransportCosts.Builder.newInstance(locations, 8).build();
+        for (int i = 0; i < kernel.size(); i++) {
+            for (int j = 0; j < kernel.size(); j++) {
+                assertEquals(i == j ? 0.0 : kernel.distance(i, j), costs.getDistance(i, j), 1e-9);
+            }
+        }
+
+        int near = costs.getNeighbour(5, 0);
+        int far = 0;
+        while (far == 5 || costs.isNeighbour(5, far) || costs.isNeighbour(far, 5)) {
+            far++;
+        }
+        SparseTransportCosts.Builder builder = SparseTransportCosts.Builder.newInstance(locations, 8)
+                .addTransportDistance(5, near, 123.0);
+        try {
+            builder.addTransportDistance(5, far, 1.0);
+            fail("expected an exception for a pair that is not stored");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+        SparseTransportCosts road = builder.build();
+        assertEquals(123.0, road.getDistance(5, near));
+        assertEquals(123.0, road.getDistance(near, 5));
+        assertEquals(kernel.distance(5, far), road.getDistance(5, far), 1e-9);
+    }
+}
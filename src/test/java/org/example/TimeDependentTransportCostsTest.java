@@ -0,0 +1,104 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import junit.framework.TestCase;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Unit tests for {@link TimeDependentTransportCosts}.
+ */
+public class TimeDependentTransportCostsTest extends TestCase {
+
+    public void testIntegratesSpeedOverBucketsPerRegionPair() {
+        List<Location> locations = multiple100locations.createLocations(30, 42);
+        DenseTransportCostsMatrix base = DenseTransportCostsMatrix.Builder.newInstance(locations).build();
+        TimeDependentTransportCosts.Builder builder = TimeDependentTransportCosts.Builder
+                .newInstance(base, locations, 3, 24, 60.0)
+                .setBaseSpeed(2.0)
+                .setFactor(8, 2.0);
+        // Locations 1 (New York) and 11 (Los Angeles) lie in different regions, 2 and 3 both in New York.
+        int newYork = builder.getRegion(1);
+        int losAngeles = builder.getRegion(11);
+        assertTrue(newYork != losAngeles);
+        assertEquals(newYork, builder.getRegion(2));
+        builder.setFactor(newYork, losAngeles, 9, 4.0);
+        TimeDependentTransportCosts costs = builder.build();
+        assertEquals(3, costs.getNoRegions());
+
+        // A few minutes, well within one bucket.
+        double nyTime = base.getDistance(2, 3) / 2.0;
+        assertEquals(base.getDistance(2, 3), costs.getDistance(2, 3));
+        assertEquals(nyTime, costs.getTransportTime(2, 3), 1e-9);
+        assertEquals(nyTime, costs.getTransportTime(2, 3, 7.5 * 60), 1e-9);
+        assertEquals(2.0 * nyTime, costs.getTransportTime(2, 3, 8 * 60), 1e-9);
+        // Half the trip before rush hour, half in it; and the other way round.
+        assertEquals(1.5 * nyTime, costs.getTransportTime(2, 3, 8 * 60 - nyTime / 2), 1e-9);
+        assertEquals(1.5 * nyTime, costs.getTransportTime(2, 3, 9 * 60 - nyTime), 1e-9);
+        // The next day looks the same, and so does the day before.
+        assertEquals(2.0 * nyTime, costs.getTransportTime(2, 3, 24 * 60 + 8.5 * 60), 1e-9);
+        assertEquals(2.0, costs.getFactor(newYork, newYork, 8.5 * 60 - 24 * 60), 1e-9);
+        assertEquals(1.0, costs.getFactor(newYork, newYork, -60), 1e-9);
+
+        // More than a day: both rush hours are driven through twice, at half and a quarter of the speed.
+        double crossTime = base.getDistance(1, 11) / 2.0;
+        assertTrue(crossTime > 1890 && crossTime < 2730);
+        assertEquals(crossTime + 2 * (30 + 45), costs.getTransportTime(1, 11, 0), 1e-9);
+        assertEquals(4.0, costs.getFactor(newYork, losAngeles, 9.5 * 60), 1e-9);
+        assertEquals(1.0, costs.getFactor(losAngeles, newYork, 9.5 * 60), 1e-9);
+
+        VehicleImpl vehicle = VehicleImpl.Builder.newInstance("v").setStartLocation(locations.get(0))
+                .setType(VehicleTypeImpl.Builder.newInstance("t").setCostPerDistance(1.0).setCostPerTransportTime(0.5)
+                        .build())
+                .build();
+        double time = costs.getTransportTime(1, 11, 9.5 * 60);
+        assertEquals(base.getDistance(1, 11) + 0.5 * time,
+                costs.getTransportCost(locations.get(1), locations.get(11), 9.5 * 60, null, vehicle), 1e-9);
+        assertEquals(time, costs.getTransportTime(locations.get(1), locations.get(11), 9.5 * 60, null, vehicle),
+                1e-9);
+    }
+
+    public void testLaterDepartureNeverArrivesEarlier() {
+        List<Location> locations = multiple100locations.createLocations(30, 42);
+        DenseTransportCostsMatrix base = DenseTransportCostsMatrix.Builder.newInstance(locations).build();
+        TimeDependentTransportCosts.Builder builder = TimeDependentTransportCosts.Builder
+                .newInstance(base, locations, 3, 24, 60.0)
+                .setBaseSpeed(2.0);
+        // Steep jumps in both directions, which scaling by an interpolated factor would turn into overtaking.
+        Random random = new Random(42);
+        for (int bucket = 0; bucket < 24; bucket++) {
+            builder.setFactor(bucket, bucket % 2 == 0 ? 5.0 : 0.2 + random.nextDouble());
+        }
+        TimeDependentTransportCosts costs = builder.build();
+        int[][] pairs = {{2, 3}, {1, 11}, {11, 21}, {4, 4}};
+        for (int[] pair : pairs) {
+            double arrival = Double.NEGATIVE_INFINITY;
+            for (double departure = -60; departure < 2 * 24 * 60; departure += 0.25) {
+                double next = departure + costs.getTransportTime(pair[0], pair[1], departure);
+                assertTrue(pair[0] + "->" + pair[1] + " at " + departure, next >= arrival - 1e-9);
+                arrival = next;
+            }
+        }
+    }
+
+    public void testUnreachablePairStaysUnreachable() {
+        List<Location> locations = multiple100locations.createLocations(2, 42);
+        DenseTransportCostsMatrix.Builder matrix = DenseTransportCostsMatrix.Builder.newInstance(3, false);
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                matrix.addTransportDistance(i, j, i == j ? 0.0 : 1.0);
+                matrix.addTransportTime(i, j, i == j ? 0.0 : 10.0);
+            }
+        }
+        matrix.addTransportTime(0, 1, Double.POSITIVE_INFINITY);
+        TimeDependentTransportCosts costs = TimeDependentTransportCosts.Builder
+                .newInstance(matrix.build(), locations, 2, 24, 60.0)
+                .setFactor(0, 2.0)
+                .build();
+        assertEquals(Double.POSITIVE_INFINITY, costs.getTransportTime(0, 1, 30.0));
+        assertEquals(20.0, costs.getTransportTime(1, 0, 0.0), 1e-9);
+    }
+}
@@ -0,0 +1,55 @@
+package org.example;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import junit.framework.TestCase;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Unit tests for {@link TriangularTransportCosts}.
+ */
+public class TriangularTransportCostsTest extends TestCase {
+
+    public void testMatchesDenseMatrix() {
+        List<Location> locations = multiple100locations.createLocations(150, 42);
+        GeodesicKernel kernel = GeodesicKernel.of(locations, GeodesicKernel.Mode.HAVERSINE);
+        DenseTransportCostsMatrix dense = DenseTransportCostsMatrix.Builder.newInstance(locations).build();
+        TriangularTransportCosts floats = TriangularTransportCosts.Builder.newInstance(locations).build();
+        TriangularTransportCosts quantized = TriangularTransportCosts.Builder
+                .newInstance(kernel, 0.1, ForkJoinPool.commonPool()).build();
+
+        assertEquals(kernel.size(), floats.getNoLocations());
+        for (int i = 0; i < kernel.size(); i++) {
+            for (int j = 0; j < kernel.size(); j++) {
+                double expected = dense.getDistance(i, j);
+                assertEquals(expected, floats.getDistance(i, j), 1e-6 * expected);
+                assertEquals(expected, quantized.getDistance(i, j), 0.05 + 1e-9);
+                assertEquals(floats.getDistance(i, j), floats.getDistance(j, i));
+                assertEquals(0.0, floats.getTransportTime(i, j));
+            }
+        }
+    }
+
+    public void testAddsDistancesAndDerivesTimes() {
+        TriangularTransportCosts.SpeedProfile profile =
+                new TriangularTransportCosts.SpeedProfile(new double[]{2.0}, new double[]{0.5, 1.5});
+        TriangularTransportCosts costs = TriangularTransportCosts.Builder.newInstance(4, 0.5)
+                .addTransportDistance(0, 3, 1.0)
+                .addTransportDistance(2, 1, 5.0)
+                .setSpeedProfile(profile)
+                .build();
+        assertEquals(1.0, costs.getDistance(3, 0));
+        assertEquals(5.0, costs.getDistance(1, 2));
+        assertEquals(0.0, costs.getDistance(0, 1));
+        assertEquals(2.0, costs.getTransportTime(0, 3), 1e-9);
+        assertEquals(4.0 + 2.0, costs.getTransportTime(1, 2), 1e-9);
+
+        try {
+            TriangularTransportCosts.Builder.newInstance(2, 0.001).addTransportDistance(0, 1, 100.0);
+            fail("expected an exception for a distance beyond 16 bits");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package org.example;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+/**
+ * Unit tests for {@link WarmUp}.
+ */
+public class WarmUpTest extends TestCase {
+
+    public void testRunsSyntheticProblemAndCleansUp() throws Exception {
+        Path directory = Files.createTempDirectory("warmup");
+        try {
+            assertTrue(WarmUp.run(12, 5, directory) > 0);
+            try (Stream<Path> files = Files.list(directory)) {
+                assertEquals(0, files.count());
+            }
+        } finally {
+            File[] left = directory.toFile().listFiles();
+            for (File file : left == null ? new File[0] : left) {
+                Files.delete(file.toPath());
+            }
+            Files.delete(directory);
+        }
+    }
+}